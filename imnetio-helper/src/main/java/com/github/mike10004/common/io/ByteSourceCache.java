@@ -0,0 +1,237 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Size-bounded in-memory cache of the contents of byte sources. Sources
+ * wrapped by a cache read their contents into the cache upon first use, so
+ * expensive sources, such as remote or decompressing sources, are read
+ * only once as long as their contents remain cached. Many sources may share
+ * one cache, and the total size of the cached contents is bounded; the least
+ * recently used contents are evicted first.
+ *
+ * <p>Concurrent first reads of the same source are coalesced: one thread
+ * reads the underlying source while the others wait for its contents.
+ * Failures are not cached, so a subsequent read retries the source.</p>
+ *
+ * <p>The bound is enforced per segment of the underlying {@link Cache}, so
+ * contents larger than the maximum size divided by the concurrency level
+ * are evicted soon after they are read.</p>
+ *
+ * @see ByteSources#caching(ByteSource, ByteSourceCache)
+ */
+public final class ByteSourceCache {
+
+    private final Cache<Object, byte[]> cache;
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private ByteSourceCache(Builder builder) {
+        CacheBuilder<Object, Object> cb = CacheBuilder.newBuilder()
+                .maximumWeight(builder.maximumBytes)
+                .concurrencyLevel(builder.concurrencyLevel)
+                .recordStats();
+        if (builder.expireAfterAccess != null) {
+            cb.expireAfterAccess(builder.expireAfterAccess.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        cache = cb.<Object, byte[]>weigher((key, value) -> value.length)
+                .removalListener(this::removed)
+                .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private void removed(RemovalNotification<Object, byte[]> notification) {
+        byte[] value = notification.getValue();
+        if (value != null) {
+            cachedBytes.addAndGet(-value.length);
+        }
+    }
+
+    /**
+     * Returns a byte source that provides the contents of the given source
+     * from this cache. The source itself is the cache key.
+     * @param source the source
+     * @return the caching source
+     */
+    public ByteSource cache(ByteSource source) {
+        return cache(source, source);
+    }
+
+    /**
+     * Returns a byte source that provides the contents of the given source
+     * from this cache under the given key. Use this method if instances of
+     * equivalent sources are created repeatedly, such as sources created by
+     * {@link ByteSources#gunzipping(java.net.URL)}; any source with an equal
+     * key shares the cached contents.
+     * @param key the cache key
+     * @param source the source
+     * @return the caching source
+     */
+    public ByteSource cache(Object key, ByteSource source) {
+        return new CachingByteSource(checkNotNull(key, "key"), checkNotNull(source, "source"));
+    }
+
+    /**
+     * Discards the cached contents for the given key.
+     * @param key the cache key
+     */
+    public void invalidate(Object key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Discards all cached contents.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Gets the statistics of this cache, including hit rate, load count,
+     * and eviction count.
+     * @return a snapshot of the statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Gets the total size of the cached contents.
+     * @return the number of bytes cached
+     */
+    public long getCachedBytes() {
+        return cachedBytes.get();
+    }
+
+    private byte[] load(Object key, ByteSource source) throws IOException {
+        try {
+            return cache.get(key, () -> {
+                byte[] contents = source.read();
+                cachedBytes.addAndGet(contents.length);
+                return contents;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (ExecutionError e) {
+            throw (Error) e.getCause();
+        }
+    }
+
+    private final class CachingByteSource extends ByteSource {
+
+        private final Object key;
+        private final ByteSource source;
+
+        CachingByteSource(Object key, ByteSource source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return new ByteArrayInputStream(load(key, source));
+        }
+
+        @Override
+        public byte[] read() throws IOException {
+            return load(key, source).clone();
+        }
+
+        @Override
+        public long copyTo(OutputStream output) throws IOException {
+            byte[] contents = load(key, source);
+            output.write(contents);
+            return contents.length;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return load(key, source).length;
+        }
+
+        @Override
+        public Optional<Long> sizeIfKnown() {
+            // asMap().get() does not count toward hit and miss statistics
+            byte[] contents = cache.asMap().get(key);
+            if (contents != null) {
+                return Optional.of((long) contents.length);
+            }
+            return source.sizeIfKnown();
+        }
+
+        @Override
+        public String toString() {
+            return "CachingByteSource{key=" + key + ", source=" + source + "}";
+        }
+    }
+
+    /**
+     * Builder of byte source caches. By default, the cache holds up to
+     * 64 MiB, has a concurrency level of 4, and entries do not expire.
+     */
+    public static final class Builder {
+
+        private long maximumBytes = 64L * 1024 * 1024;
+        private int concurrencyLevel = 4;
+        private Duration expireAfterAccess;
+
+        private Builder() {
+        }
+
+        public Builder maximumBytes(long maximumBytes) {
+            checkArgument(maximumBytes >= 0, "maximumBytes must be nonnegative");
+            this.maximumBytes = maximumBytes;
+            return this;
+        }
+
+        /**
+         * Sets the number of independently locked segments of the cache.
+         * @param concurrencyLevel the concurrency level
+         * @return this builder
+         * @see CacheBuilder#concurrencyLevel(int)
+         */
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            checkArgument(concurrencyLevel > 0, "concurrencyLevel must be positive");
+            this.concurrencyLevel = concurrencyLevel;
+            return this;
+        }
+
+        public Builder expireAfterAccess(Duration expireAfterAccess) {
+            checkArgument(!expireAfterAccess.isNegative(), "duration must be nonnegative");
+            this.expireAfterAccess = expireAfterAccess;
+            return this;
+        }
+
+        public ByteSourceCache build() {
+            return new ByteSourceCache(this);
+        }
+    }
+}
@@ -5,10 +5,14 @@ import com.google.common.collect.Lists;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Resources;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 
@@ -108,6 +112,70 @@ public class ByteSources {
         };
     }
 
+    /**
+     * Creates a byte source that opens a stream from the first of the given
+     * sources that succeeds, racing the sources against each other. An
+     * attempt to open the first source is started immediately; each time
+     * the hedge delay elapses without a stream being opened, or an attempt
+     * fails, an attempt on the next source is started. The first stream
+     * opened is returned, pending attempts are cancelled, and streams opened
+     * by losing attempts are closed. Attempts run on a shared pool of daemon
+     * threads.
+     * <p>Use this instead of {@link #or(Iterable)} when sources may be slow
+     * to respond, for example when they are mirrors of a remote resource.</p>
+     * @param hedgeDelay the time to wait for an attempt before starting the next
+     * @param sources the sources, in order of preference
+     * @return the hedged source
+     */
+    public static ByteSource hedged(Duration hedgeDelay, Iterable<ByteSource> sources) {
+        return hedged(hedgeDelay, HedgedByteSource.defaultExecutor(), sources);
+    }
+
+    /**
+     * Creates a byte source that opens a stream from the first of the given
+     * sources that succeeds, racing the sources against each other.
+     * @param hedgeDelay the time to wait for an attempt before starting the next
+     * @param executor the executor service that runs attempts to open sources
+     * @param sources the sources, in order of preference
+     * @return the hedged source
+     * @see #hedged(Duration, Iterable)
+     */
+    public static ByteSource hedged(Duration hedgeDelay, ExecutorService executor, Iterable<ByteSource> sources) {
+        return new HedgedByteSource(hedgeDelay, executor, sources);
+    }
+
+    /**
+     * Creates a byte source that maps a file into memory upon first use.
+     * @param file the file
+     * @return the byte source
+     * @see MappedByteSource
+     */
+    public static MappedByteSource mapped(File file) {
+        return mapped(file.toPath());
+    }
+
+    /**
+     * Creates a byte source that maps a file into memory upon first use.
+     * @param path the file pathname
+     * @return the byte source
+     * @see MappedByteSource
+     */
+    public static MappedByteSource mapped(Path path) {
+        return new MappedByteSource(path, 0, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a byte source that provides the contents of the given source
+     * from a cache, reading the source only if its contents are not cached.
+     * @param byteSource the byte source
+     * @param cache the cache
+     * @return the caching byte source
+     * @see ByteSourceCache
+     */
+    public static ByteSource caching(ByteSource byteSource, ByteSourceCache cache) {
+        return cache.cache(byteSource);
+    }
+
     /**
      * Returns an empty byte source.
      * @deprecated use {@link ByteSource#empty()}
@@ -147,6 +215,55 @@ public class ByteSources {
         return new GunzippingByteSource(gzippedByteSource);
     }
 
+    /**
+     * Creates and returns a byte source that decompresses a gzipped byte
+     * source, inflating members of the gzip stream concurrently where
+     * possible. Ordinary single-member gzip data is decompressed sequentially.
+     * @param gzippedByteSource the gzipped byte source to decompress
+     * @param gzip the parallel gzip instance
+     * @return the byte source providing uncompressed data
+     * @see ParallelGzip
+     */
+    public static ByteSource gunzipping(ByteSource gzippedByteSource, ParallelGzip gzip) {
+        checkNotNull(gzippedByteSource);
+        checkNotNull(gzip);
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return gzip.decompressing(gzippedByteSource.openStream());
+            }
+
+            @Override
+            public String toString() {
+                return "ParallelGunzippingByteSource{wrapped=" + gzippedByteSource + "}";
+            }
+        };
+    }
+
+    /**
+     * Creates and returns a byte source that compresses a byte source,
+     * deflating blocks of the data concurrently.
+     * @param byteSource the byte source to compress
+     * @param gzip the parallel gzip instance
+     * @return the byte source providing gzipped data
+     * @see ParallelGzip
+     */
+    public static ByteSource gzipping(ByteSource byteSource, ParallelGzip gzip) {
+        checkNotNull(byteSource);
+        checkNotNull(gzip);
+        return new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return gzip.compressing(byteSource.openStream());
+            }
+
+            @Override
+            public String toString() {
+                return "ParallelGzippingByteSource{wrapped=" + byteSource + "}";
+            }
+        };
+    }
+
     /**
      * Creates and returns a byte source that decompresses a gzipped resource.
      * @param gzippedResource the gzipped resource
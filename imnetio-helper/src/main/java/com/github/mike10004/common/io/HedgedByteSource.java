@@ -0,0 +1,143 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteSource;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Byte source that races attempts to open streams from a sequence of
+ * sources, starting each attempt after a delay or upon failure of the
+ * previous attempt.
+ * @see ByteSources#hedged(Duration, Iterable)
+ */
+class HedgedByteSource extends ByteSource {
+
+    private final long hedgeDelayNanos;
+    private final ExecutorService executor;
+    private final Iterable<ByteSource> sources;
+
+    public HedgedByteSource(Duration hedgeDelay, ExecutorService executor, Iterable<ByteSource> sources) {
+        checkArgument(!hedgeDelay.isNegative(), "hedge delay must be nonnegative");
+        this.hedgeDelayNanos = hedgeDelay.toNanos();
+        this.executor = checkNotNull(executor, "executor");
+        this.sources = checkNotNull(sources, "sources");
+    }
+
+    private static class DefaultExecutorHolder {
+        static final ExecutorService instance = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("hedged-byte-source-%d")
+                .build());
+    }
+
+    static ExecutorService defaultExecutor() {
+        return DefaultExecutorHolder.instance;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new Race(ImmutableList.copyOf(sources)).run();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgedByteSource{sources=" + sources + ", hedgeDelay=" + Duration.ofNanos(hedgeDelayNanos) + "}";
+    }
+
+    private final class Race {
+
+        private final List<ByteSource> candidates;
+        private final CompletableFuture<InputStream> winner = new CompletableFuture<>();
+        private final BlockingQueue<IOException> failures = new LinkedBlockingQueue<>();
+        private final List<Future<?>> attempts = new ArrayList<>();
+
+        Race(List<ByteSource> candidates) {
+            this.candidates = candidates;
+        }
+
+        InputStream run() throws IOException {
+            List<IOException> causes = new ArrayList<>();
+            try {
+                while (!winner.isDone()) {
+                    if (attempts.size() < candidates.size()) {
+                        start(candidates.get(attempts.size()));
+                    } else if (causes.size() == attempts.size()) {
+                        IOException e = new IOException("no streams available from " + candidates.size() + " sources");
+                        causes.forEach(e::addSuppressed);
+                        throw e;
+                    }
+                    // wait for a failure or a hedge delay; hedge immediately on failure
+                    boolean hedge = attempts.size() < candidates.size();
+                    IOException failure = hedge ? failures.poll(hedgeDelayNanos, TimeUnit.NANOSECONDS) : failures.take();
+                    if (failure != null && failure != SUCCESS) {
+                        causes.add(failure);
+                    }
+                }
+                return winner.getNow(null);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("interrupted while opening stream");
+            } finally {
+                // streams opened by any attempt that completes later are closed
+                winner.completeExceptionally(new IllegalStateException("race finished"));
+                attempts.forEach(attempt -> attempt.cancel(true));
+            }
+        }
+
+        private void start(ByteSource source) {
+            try {
+                attempts.add(executor.submit(() -> attempt(source)));
+            } catch (RejectedExecutionException e) {
+                attempts.add(CompletableFuture.completedFuture(null));
+                failures.add(new IOException("attempt rejected by executor", e));
+            }
+        }
+
+        private void attempt(ByteSource source) {
+            InputStream in;
+            try {
+                in = source.openStream();
+            } catch (IOException e) {
+                failures.add(e);
+                return;
+            } catch (RuntimeException e) {
+                failures.add(new IOException(e));
+                return;
+            }
+            if (winner.complete(in)) {
+                failures.add(SUCCESS);
+            } else {
+                closeQuietly(in);
+            }
+        }
+    }
+
+    /**
+     * Marker placed on the failure queue to wake the waiting thread when an attempt succeeds.
+     */
+    private static final IOException SUCCESS = new IOException("success");
+
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteSink;
+import com.google.common.io.ByteSource;
+
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Byte source that provides a region of a file by mapping it into memory.
+ * The region is mapped read-only upon first use and the mapping is shared
+ * by all streams opened from this source; {@link #slice(long, long) Slices}
+ * map their own regions instead of skipping bytes of a stream.
+ *
+ * <p>The size of the region is determined from the file size upon first
+ * use and does not change thereafter, so this source should only be used
+ * for files that are not modified while it is in use. Copying to a file
+ * or a channel transfers bytes with {@link FileChannel#transferTo}, which
+ * may avoid copying them through the Java heap.</p>
+ *
+ * <p>The mapping is released when this source is garbage-collected.</p>
+ *
+ * @see ByteSources#mapped(Path)
+ */
+public final class MappedByteSource extends ByteSource {
+
+    private static final ByteBuffer[] EMPTY = {ByteBuffer.allocate(0)};
+
+    private final Path path;
+    private final long offset;
+    private final long maxLength;
+    private final int chunkSize;
+    private final IOSupplier<Long> length;
+    private final IOSupplier<ByteBuffer[]> mapping;
+
+    MappedByteSource(Path path, long offset, long maxLength, int chunkSize) {
+        checkArgument(offset >= 0, "offset must be nonnegative");
+        checkArgument(maxLength >= 0, "length must be nonnegative");
+        checkArgument(chunkSize > 0, "chunk size must be positive");
+        this.path = checkNotNull(path, "path");
+        this.offset = offset;
+        this.maxLength = maxLength;
+        this.chunkSize = chunkSize;
+        length = IOSupplier.memoize(() -> Math.min(maxLength, Math.max(0, Files.size(path) - offset)));
+        mapping = IOSupplier.memoize(this::map);
+    }
+
+    private ByteBuffer[] map() throws IOException {
+        long length = this.length.get();
+        if (length == 0) {
+            return EMPTY;
+        }
+        int numChunks = (int) ((length + chunkSize - 1) / chunkSize);
+        ByteBuffer[] chunks = new ByteBuffer[numChunks];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (int i = 0; i < numChunks; i++) {
+                long chunkOffset = (long) i * chunkSize;
+                long chunkLength = Math.min(chunkSize, length - chunkOffset);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + chunkOffset, chunkLength);
+            }
+        }
+        return chunks;
+    }
+
+    @Override
+    public InputStream openStream() throws IOException {
+        return new MappedInputStream(mapping.get(), length.get());
+    }
+
+    @Override
+    public Optional<Long> sizeIfKnown() {
+        try {
+            return Optional.of(length.get());
+        } catch (IOException e) {
+            return Optional.absent();
+        }
+    }
+
+    @Override
+    public long size() throws IOException {
+        return length.get();
+    }
+
+    @Override
+    public boolean isEmpty() throws IOException {
+        return length.get() == 0;
+    }
+
+    /**
+     * Returns a view of a region of this source. The returned source maps
+     * its own region of the file upon first use.
+     * @param offset the offset within this source
+     * @param length the maximum length of the slice
+     * @return the slice
+     */
+    @Override
+    public MappedByteSource slice(long offset, long length) {
+        checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+        checkArgument(length >= 0, "length (%s) may not be negative", length);
+        long sliceOffset = this.offset + Math.min(offset, maxLength);
+        long sliceLength = Math.min(length, maxLength - Math.min(offset, maxLength));
+        return new MappedByteSource(path, sliceOffset, sliceLength, chunkSize);
+    }
+
+    /**
+     * Returns a read-only buffer whose content is the content of this source.
+     * The buffer is a view of the mapped region, so no bytes are copied.
+     * @return a new read-only buffer
+     * @throws IOException on I/O error
+     * @throws IllegalStateException if the region is too large for a single buffer
+     */
+    public ByteBuffer asByteBuffer() throws IOException {
+        ByteBuffer[] chunks = mapping.get();
+        checkState(chunks.length == 1, "region of %s bytes is too large for a single buffer", length.get());
+        return chunks[0].asReadOnlyBuffer();
+    }
+
+    /**
+     * Reads the full contents of this source as a byte array. The bytes are
+     * copied from the mapped region directly into an array of the exact size.
+     * @return the contents
+     * @throws IOException on I/O error
+     */
+    @Override
+    public byte[] read() throws IOException {
+        long length = this.length.get();
+        checkState(length <= Integer.MAX_VALUE - 8, "region of %s bytes is too large for an array", length);
+        byte[] bytes = new byte[(int) length];
+        int position = 0;
+        for (ByteBuffer chunk : mapping.get()) {
+            ByteBuffer view = chunk.duplicate();
+            int n = view.remaining();
+            view.get(bytes, position, n);
+            position += n;
+        }
+        return bytes;
+    }
+
+    /**
+     * Copies the contents of this source to an output stream. If the stream
+     * is a {@link FileOutputStream}, bytes are transferred to its channel with
+     * {@link FileChannel#transferTo}.
+     * @param output the output stream
+     * @return the number of bytes copied
+     * @throws IOException on I/O error
+     */
+    @Override
+    public long copyTo(OutputStream output) throws IOException {
+        checkNotNull(output);
+        if (output instanceof FileOutputStream) {
+            return copyTo(((FileOutputStream) output).getChannel());
+        }
+        WritableByteChannel channel = Channels.newChannel(output);
+        long total = 0;
+        for (ByteBuffer chunk : mapping.get()) {
+            ByteBuffer view = chunk.duplicate();
+            while (view.hasRemaining()) {
+                total += channel.write(view);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long copyTo(ByteSink sink) throws IOException {
+        checkNotNull(sink);
+        try (OutputStream out = sink.openStream()) {
+            return copyTo(out);
+        }
+    }
+
+    /**
+     * Copies the contents of this source to a channel with
+     * {@link FileChannel#transferTo}. The transfer avoids copying bytes
+     * through the Java heap if the target is a file or socket channel.
+     * The channel is not closed.
+     * @param target the target channel
+     * @return the number of bytes copied
+     * @throws IOException on I/O error
+     */
+    public long copyTo(WritableByteChannel target) throws IOException {
+        checkNotNull(target);
+        long length = this.length.get();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < length) {
+                long n = channel.transferTo(offset + transferred, length - transferred, target);
+                if (n <= 0 && offset + transferred >= channel.size()) {
+                    throw new EOFException("file truncated: " + path);
+                }
+                transferred += n;
+            }
+            return transferred;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MappedByteSource{path=" + path + ", offset=" + offset + ", maxLength=" + maxLength + "}";
+    }
+
+    private static final class MappedInputStream extends InputStream {
+
+        private final ByteBuffer[] chunks;
+        private final long length;
+        private int chunkIndex;
+        private long position;
+        private long mark;
+
+        MappedInputStream(ByteBuffer[] chunks, long length) {
+            this.chunks = new ByteBuffer[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+                this.chunks[i] = chunks[i].duplicate();
+            }
+            this.length = length;
+        }
+
+        /**
+         * Gets the chunk containing the current position, or null at the end.
+         */
+        private ByteBuffer current() {
+            while (chunkIndex < chunks.length && !chunks[chunkIndex].hasRemaining()) {
+                chunkIndex++;
+            }
+            return chunkIndex < chunks.length ? chunks[chunkIndex] : null;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer chunk = current();
+            if (chunk == null) {
+                return -1;
+            }
+            position++;
+            return chunk.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            ByteBuffer chunk = current();
+            if (chunk == null) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.remaining());
+            chunk.get(b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.min(length - position, Math.max(0, n));
+            seek(position + skipped);
+            return skipped;
+        }
+
+        private void seek(long target) {
+            long chunkStart = 0;
+            for (int i = 0; i < chunks.length; i++) {
+                int chunkLength = chunks[i].limit();
+                chunks[i].position((int) Math.max(0, Math.min(chunkLength, target - chunkStart)));
+                chunkStart += chunkLength;
+            }
+            chunkIndex = 0;
+            position = target;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, length - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            seek(mark);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Gzip compressor and decompressor that process blocks of data concurrently.
+ *
+ * <p>Compression splits the input into blocks, deflates each block as an
+ * independent gzip member on an executor, and concatenates the members in
+ * order. The output is in the BGZF format: each member carries its own
+ * compressed size in a header extra field, and the stream ends with an empty
+ * member. Any gzip decompressor can read the output.</p>
+ *
+ * <p>Decompression reads the member headers on the calling thread and
+ * inflates members concurrently when their sizes are known from a BGZF
+ * header field, as in data compressed by this class or by {@code bgzip}.
+ * When a member without that field is encountered, the rest of the input is
+ * decompressed sequentially, as with {@link GZIPInputStream}.</p>
+ *
+ * <p>In both directions, up to a configured number of blocks are processed
+ * ahead of the reader, so memory use is bounded by that number times the
+ * block size of 64 KiB.</p>
+ *
+ * @see ByteSources#gzipping(com.google.common.io.ByteSource, ParallelGzip)
+ * @see ByteSources#gunzipping(com.google.common.io.ByteSource, ParallelGzip)
+ */
+public final class ParallelGzip {
+
+    /**
+     * Maximum number of uncompressed bytes in a block. This is the block
+     * size used by {@code bgzip}; it guarantees that a compressed member
+     * fits within the 64 KiB limit imposed by the 16-bit size field.
+     */
+    static final int BLOCK_SIZE = 0xff00;
+
+    private static final int MAX_MEMBER_SIZE = 0x10000;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FLG_FEXTRA = 0x04;
+    private static final int HEADER_LENGTH = 18;
+    private static final int TRAILER_LENGTH = 8;
+
+    /**
+     * Empty member marking the end of a BGZF stream.
+     */
+    private static final byte[] EOF_MEMBER = {
+            0x1f, (byte) 0x8b, 0x08, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00, (byte) 0xff, 0x06, 0x00,
+            0x42, 0x43, 0x02, 0x00, 0x1b, 0x00, 0x03, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+    };
+
+    private final ExecutorService executor;
+    private final int level;
+    private final int maxBlocksInFlight;
+
+    private ParallelGzip(Builder builder) {
+        executor = builder.executor;
+        level = builder.level;
+        maxBlocksInFlight = builder.maxBlocksInFlight;
+    }
+
+    /**
+     * Gets an instance with default settings, which runs tasks on a shared
+     * pool of daemon threads with one thread per available processor.
+     * @return the instance
+     */
+    public static ParallelGzip getDefault() {
+        return DefaultInstanceHolder.instance;
+    }
+
+    private static class DefaultInstanceHolder {
+        static final ParallelGzip instance = builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a stream that supplies the gzip-compressed content of the
+     * given stream. Closing the returned stream closes the given stream.
+     * @param uncompressed the stream to compress
+     * @return the compressed stream
+     */
+    public InputStream compressing(InputStream uncompressed) {
+        return new CompressingInputStream(checkNotNull(uncompressed));
+    }
+
+    /**
+     * Returns a stream that supplies the decompressed content of the given
+     * gzip-compressed stream. Closing the returned stream closes the given
+     * stream.
+     * @param compressed the stream to decompress
+     * @return the decompressed stream
+     */
+    public InputStream decompressing(InputStream compressed) {
+        return new DecompressingInputStream(checkNotNull(compressed));
+    }
+
+    /**
+     * Input stream that supplies the output of tasks in the order they are
+     * created, keeping a bounded number of tasks in flight.
+     */
+    private abstract class BlockPipelineInputStream extends InputStream {
+
+        protected final InputStream source;
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private byte[] current = new byte[0];
+        private int position;
+        private boolean exhausted;
+        private InputStream tail;
+
+        protected BlockPipelineInputStream(InputStream source) {
+            this.source = source;
+        }
+
+        /**
+         * Reads the next block from the source and creates a task that
+         * processes it. Invoked on the reading thread.
+         * @return the task, or null if there are no more blocks
+         * @throws IOException on I/O error
+         */
+        protected abstract Callable<byte[]> nextTask() throws IOException;
+
+        /**
+         * Stops creating tasks and supplies the given stream's content once
+         * the output of tasks already created has been consumed.
+         * @param tail the stream
+         */
+        protected void switchTo(InputStream tail) {
+            this.tail = tail;
+        }
+
+        private boolean advance() throws IOException {
+            while (position == current.length) {
+                while (!exhausted && tail == null && pending.size() < maxBlocksInFlight) {
+                    Callable<byte[]> task = nextTask();
+                    if (task == null) {
+                        exhausted = true;
+                    } else {
+                        pending.add(executor.submit(task));
+                    }
+                }
+                Future<byte[]> next = pending.poll();
+                if (next == null) {
+                    return false;
+                }
+                current = await(next);
+                position = 0;
+            }
+            return true;
+        }
+
+        private byte[] await(Future<byte[]> future) throws IOException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while awaiting block");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (advance()) {
+                return current[position++] & 0xff;
+            }
+            return tail == null ? -1 : tail.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (advance()) {
+                int n = Math.min(len, current.length - position);
+                System.arraycopy(current, position, b, off, n);
+                position += n;
+                return n;
+            }
+            return tail == null ? -1 : tail.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current.length - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            pending.forEach(future -> future.cancel(true));
+            pending.clear();
+            exhausted = true;
+            try {
+                source.close();
+            } finally {
+                if (tail != null) {
+                    tail.close();
+                }
+            }
+        }
+    }
+
+    private final class CompressingInputStream extends BlockPipelineInputStream {
+
+        private boolean eofMemberWritten;
+
+        CompressingInputStream(InputStream source) {
+            super(source);
+        }
+
+        @Override
+        protected Callable<byte[]> nextTask() throws IOException {
+            byte[] block = new byte[BLOCK_SIZE];
+            int length = ByteStreams.read(source, block, 0, block.length);
+            if (length > 0) {
+                return () -> deflateMember(block, length);
+            }
+            if (!eofMemberWritten) {
+                eofMemberWritten = true;
+                return EOF_MEMBER::clone;
+            }
+            return null;
+        }
+    }
+
+    private byte[] deflateMember(byte[] block, int length) {
+        byte[] member = new byte[MAX_MEMBER_SIZE];
+        Deflater deflater = new Deflater(level, true);
+        int compressedLength;
+        try {
+            deflater.setInput(block, 0, length);
+            deflater.finish();
+            compressedLength = deflater.deflate(member, HEADER_LENGTH, MAX_MEMBER_SIZE - HEADER_LENGTH - TRAILER_LENGTH);
+            if (!deflater.finished()) {
+                throw new IllegalStateException("block of " + length + " bytes does not fit in member");
+            }
+        } finally {
+            deflater.end();
+        }
+        int memberLength = HEADER_LENGTH + compressedLength + TRAILER_LENGTH;
+        System.arraycopy(EOF_MEMBER, 0, member, 0, HEADER_LENGTH);
+        putShortLE(member, 16, memberLength - 1);
+        CRC32 crc = new CRC32();
+        crc.update(block, 0, length);
+        putIntLE(member, memberLength - TRAILER_LENGTH, (int) crc.getValue());
+        putIntLE(member, memberLength - 4, length);
+        return Arrays.copyOf(member, memberLength);
+    }
+
+    private final class DecompressingInputStream extends BlockPipelineInputStream {
+
+        DecompressingInputStream(InputStream source) {
+            super(source);
+        }
+
+        @Override
+        protected Callable<byte[]> nextTask() throws IOException {
+            byte[] header = new byte[12];
+            int headerLength = ByteStreams.read(source, header, 0, header.length);
+            if (headerLength == 0) {
+                return null;
+            }
+            if (headerLength < header.length
+                    || getShortLE(header, 0) != GZIP_MAGIC
+                    || header[2] != Deflater.DEFLATED
+                    || header[3] != FLG_FEXTRA) {
+                return fallBack(Arrays.copyOf(header, headerLength));
+            }
+            int xlen = getShortLE(header, 10);
+            byte[] extra = new byte[xlen];
+            ByteStreams.readFully(source, extra);
+            int bsize = findBlockSize(extra);
+            if (bsize < 0) {
+                byte[] consumed = Arrays.copyOf(header, header.length + xlen);
+                System.arraycopy(extra, 0, consumed, header.length, xlen);
+                return fallBack(consumed);
+            }
+            int remaining = bsize + 1 - header.length - xlen;
+            if (remaining < TRAILER_LENGTH) {
+                throw new ZipException("invalid BGZF block size " + bsize);
+            }
+            byte[] body = new byte[remaining];
+            try {
+                ByteStreams.readFully(source, body);
+            } catch (EOFException e) {
+                throw new ZipException("unexpected end of gzip member");
+            }
+            return () -> inflateMember(body);
+        }
+
+        private Callable<byte[]> fallBack(byte[] consumed) throws IOException {
+            switchTo(new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(consumed), source)));
+            return null;
+        }
+    }
+
+    /**
+     * Finds the BGZF block size subfield in a gzip header extra field.
+     * @return the block size, or -1 if not present
+     */
+    private static int findBlockSize(byte[] extra) {
+        int i = 0;
+        while (i + 4 <= extra.length) {
+            int slen = getShortLE(extra, i + 2);
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && slen == 2 && i + 6 <= extra.length) {
+                return getShortLE(extra, i + 4);
+            }
+            i += 4 + slen;
+        }
+        return -1;
+    }
+
+    private static byte[] inflateMember(byte[] body) throws IOException {
+        int dataLength = body.length - TRAILER_LENGTH;
+        int expectedCrc = getIntLE(body, dataLength);
+        int uncompressedLength = getIntLE(body, dataLength + 4);
+        if (uncompressedLength < 0 || uncompressedLength > MAX_MEMBER_SIZE) {
+            throw new ZipException("invalid BGZF uncompressed size " + (uncompressedLength & 0xffffffffL));
+        }
+        byte[] output = new byte[uncompressedLength];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(body, 0, dataLength);
+            int n = inflater.inflate(output);
+            if (!inflater.finished() && n == uncompressedLength) {
+                // the end of the deflate stream may not be reached while the output buffer is full
+                n += inflater.inflate(new byte[1]);
+            }
+            if (n != uncompressedLength || !inflater.finished()) {
+                throw new ZipException("corrupt gzip member: expected " + uncompressedLength + " bytes, inflated " + n);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(output);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new ZipException("corrupt gzip member: CRC mismatch");
+        }
+        return output;
+    }
+
+    private static int getShortLE(byte[] b, int offset) {
+        return (b[offset] & 0xff) | ((b[offset + 1] & 0xff) << 8);
+    }
+
+    private static int getIntLE(byte[] b, int offset) {
+        return getShortLE(b, offset) | (getShortLE(b, offset + 2) << 16);
+    }
+
+    private static void putShortLE(byte[] b, int offset, int value) {
+        b[offset] = (byte) value;
+        b[offset + 1] = (byte) (value >>> 8);
+    }
+
+    private static void putIntLE(byte[] b, int offset, int value) {
+        putShortLE(b, offset, value);
+        putShortLE(b, offset + 2, value >>> 16);
+    }
+
+    /**
+     * Builder of parallel gzip instances. By default, tasks run on a shared
+     * pool of daemon threads with one thread per available processor, the
+     * compression level is {@link Deflater#DEFAULT_COMPRESSION}, and up to
+     * twice as many blocks as there are processors are processed ahead of
+     * the reader.
+     */
+    public static final class Builder {
+
+        private ExecutorService executor;
+        private int level = Deflater.DEFAULT_COMPRESSION;
+        private int maxBlocksInFlight = 2 * Runtime.getRuntime().availableProcessors();
+
+        private Builder() {
+        }
+
+        public Builder executor(ExecutorService executor) {
+            this.executor = checkNotNull(executor);
+            return this;
+        }
+
+        /**
+         * Sets the compression level.
+         * @param level the level, from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+         * @return this builder
+         */
+        public Builder level(int level) {
+            checkArgument(level == Deflater.DEFAULT_COMPRESSION || (level >= 0 && level <= 9), "invalid level %s", level);
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of blocks processed ahead of the reader.
+         * @param maxBlocksInFlight the number of blocks
+         * @return this builder
+         */
+        public Builder maxBlocksInFlight(int maxBlocksInFlight) {
+            checkArgument(maxBlocksInFlight > 0, "maxBlocksInFlight must be positive");
+            this.maxBlocksInFlight = maxBlocksInFlight;
+            return this;
+        }
+
+        public ParallelGzip build() {
+            if (executor == null) {
+                executor = DefaultExecutorHolder.instance;
+            }
+            return new ParallelGzip(this);
+        }
+    }
+
+    private static class DefaultExecutorHolder {
+        static final ExecutorService instance = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("parallel-gzip-%d")
+                .build());
+    }
+}
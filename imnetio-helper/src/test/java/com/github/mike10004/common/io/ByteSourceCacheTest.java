@@ -0,0 +1,161 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.io.ByteSource;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ByteSourceCacheTest {
+
+    private static class CountingByteSource extends ByteSource {
+
+        private final byte[] content;
+        private final AtomicInteger numOpens = new AtomicInteger();
+        private final CountDownLatch gate;
+
+        CountingByteSource(byte[] content, CountDownLatch gate) {
+            this.content = content;
+            this.gate = gate;
+        }
+
+        CountingByteSource(String content) {
+            this(content.getBytes(StandardCharsets.US_ASCII), new CountDownLatch(0));
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            numOpens.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return ByteSource.wrap(content).openStream();
+        }
+    }
+
+    @Test
+    public void cache_hit() throws Exception {
+        System.out.println("cache_hit");
+        ByteSourceCache cache = ByteSourceCache.builder().build();
+        CountingByteSource source = new CountingByteSource("hello");
+        ByteSource cached = ByteSources.caching(source, cache);
+        assertFalse(cached.sizeIfKnown().isPresent());
+        assertEquals("hello", cached.asCharSource(StandardCharsets.US_ASCII).read());
+        assertEquals(5, cached.size());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(5, cached.copyTo(out));
+        assertArrayEquals(source.content, out.toByteArray());
+        assertEquals(Long.valueOf(5), cached.sizeIfKnown().get());
+        assertEquals("underlying reads", 1, source.numOpens.get());
+        CacheStats stats = cache.stats();
+        System.out.println(stats);
+        assertEquals(1, stats.missCount());
+        assertEquals(2, stats.hitCount());
+        assertEquals(5, cache.getCachedBytes());
+        cache.invalidate(source);
+        assertEquals(0, cache.getCachedBytes());
+        cached.read();
+        assertEquals("underlying reads after invalidate", 2, source.numOpens.get());
+    }
+
+    @Test
+    public void cache_sharedKey() throws Exception {
+        System.out.println("cache_sharedKey");
+        ByteSourceCache cache = ByteSourceCache.builder().build();
+        CountingByteSource source = new CountingByteSource("foo");
+        ByteSource a = cache.cache("key", source), b = cache.cache("key", new CountingByteSource("bar"));
+        assertArrayEquals(a.read(), b.read());
+        assertEquals(1, source.numOpens.get());
+    }
+
+    @Test
+    public void cache_singleFlight() throws Exception {
+        System.out.println("cache_singleFlight");
+        ByteSourceCache cache = ByteSourceCache.builder().build();
+        CountDownLatch gate = new CountDownLatch(1);
+        CountingByteSource source = new CountingByteSource(new byte[1000], gate);
+        ByteSource cached = cache.cache(source);
+        int numThreads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(() -> cached.read()));
+            }
+            Thread.sleep(100);
+            gate.countDown();
+            for (Future<byte[]> future : futures) {
+                assertEquals(1000, future.get(10, TimeUnit.SECONDS).length);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("underlying reads", 1, source.numOpens.get());
+        assertEquals("loads", 1, cache.stats().loadCount());
+    }
+
+    @Test
+    public void cache_eviction() throws Exception {
+        System.out.println("cache_eviction");
+        ByteSourceCache cache = ByteSourceCache.builder().maximumBytes(1000).concurrencyLevel(1).build();
+        List<CountingByteSource> sources = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            CountingByteSource source = new CountingByteSource(new byte[300], new CountDownLatch(0));
+            sources.add(source);
+            cache.cache(source).read();
+        }
+        System.out.format("%d bytes cached; %s%n", cache.getCachedBytes(), cache.stats());
+        assertTrue("cached bytes " + cache.getCachedBytes(), cache.getCachedBytes() <= 1000);
+        assertTrue("evictions", cache.stats().evictionCount() >= 7);
+        cache.cache(sources.get(9)).read();
+        assertEquals("most recent still cached", 1, sources.get(9).numOpens.get());
+        cache.cache(sources.get(0)).read();
+        assertEquals("least recent evicted", 2, sources.get(0).numOpens.get());
+        cache.invalidateAll();
+        assertEquals(0, cache.getCachedBytes());
+    }
+
+    @Test
+    public void cache_failureNotCached() throws Exception {
+        System.out.println("cache_failureNotCached");
+        AtomicInteger attempts = new AtomicInteger();
+        ByteSource flaky = new ByteSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IOException("first attempt fails");
+                }
+                return ByteSource.wrap(new byte[]{1, 2, 3}).openStream();
+            }
+        };
+        ByteSource cached = ByteSourceCache.builder().build().cache(flaky);
+        try {
+            cached.read();
+            fail("should have thrown");
+        } catch (IOException e) {
+            assertEquals("first attempt fails", e.getMessage());
+        }
+        assertArrayEquals(new byte[]{1, 2, 3}, cached.read());
+        assertArrayEquals(new byte[]{1, 2, 3}, cached.read());
+        assertEquals(2, attempts.get());
+    }
+}
@@ -5,21 +5,31 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteSource;
 import com.google.common.io.CharSource;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 import static com.github.mike10004.common.io.ByteSources.broken;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class ByteSourcesTest {
@@ -190,4 +200,104 @@ public class ByteSourcesTest {
         System.out.println("decompressed: " + decompressedContent);
         assertEquals(uncompressedContent, decompressedContent);
     }
+
+    private static class SlowByteSource extends ByteSource {
+
+        private final byte[] content;
+        private final long delayMs;
+        private final boolean interruptible;
+        private final AtomicBoolean interrupted = new AtomicBoolean();
+        private final List<InputStream> opened = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        SlowByteSource(String content, long delayMs, boolean interruptible) {
+            this.content = content.getBytes(StandardCharsets.US_ASCII);
+            this.delayMs = delayMs;
+            this.interruptible = interruptible;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            if (interruptible) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    throw new InterruptedIOException();
+                }
+            } else {
+                Uninterruptibles.sleepUninterruptibly(delayMs, TimeUnit.MILLISECONDS);
+            }
+            InputStream in = new ByteArrayInputStream(content) {
+                @Override
+                public void close() throws IOException {
+                    closed.set(true);
+                    super.close();
+                }
+            };
+            opened.add(in);
+            return in;
+        }
+    }
+
+    @Test
+    public void hedged_slowFirst() throws Exception {
+        System.out.println("hedged_slowFirst");
+        SlowByteSource slow = new SlowByteSource("slow", 10000, true);
+        SlowByteSource fast = new SlowByteSource("fast", 0, true);
+        ByteSource hedged = ByteSources.hedged(Duration.ofMillis(50), asList(slow, fast));
+        long start = System.nanoTime();
+        String content = hedged.asCharSource(StandardCharsets.US_ASCII).read();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.format("read %s in %d ms%n", content, elapsedMs);
+        assertEquals("fast", content);
+        assertTrue("elapsed " + elapsedMs, elapsedMs < 5000);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!slow.interrupted.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("slow attempt cancelled", slow.interrupted.get());
+    }
+
+    @Test
+    public void hedged_failedFirstHedgesImmediately() throws Exception {
+        System.out.println("hedged_failedFirstHedgesImmediately");
+        ByteSource hedged = ByteSources.hedged(Duration.ofSeconds(30), asList(broken(), wrap(1, 2)));
+        long start = System.nanoTime();
+        assertArrayEquals(toByteArray(1, 2), hedged.read());
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+    }
+
+    @Test
+    public void hedged_allFail() throws Exception {
+        System.out.println("hedged_allFail");
+        ByteSource hedged = ByteSources.hedged(Duration.ofMillis(10), asList(broken(), broken(), broken()));
+        try {
+            hedged.read();
+            fail("should have thrown");
+        } catch (IOException e) {
+            System.out.println("expected: " + e);
+            assertEquals(3, e.getSuppressed().length);
+        }
+        try {
+            ByteSources.hedged(Duration.ofMillis(10), Collections.emptyList()).read();
+            fail("should have thrown");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void hedged_loserStreamClosed() throws Exception {
+        System.out.println("hedged_loserStreamClosed");
+        SlowByteSource late = new SlowByteSource("late", 200, false);
+        SlowByteSource quick = new SlowByteSource("quick", 0, false);
+        ByteSource hedged = ByteSources.hedged(Duration.ZERO, asList(late, quick));
+        assertEquals("quick", hedged.asCharSource(StandardCharsets.US_ASCII).read());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!late.closed.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("late streams opened", 1, late.opened.size());
+        assertTrue("late stream closed", late.closed.get());
+    }
 }
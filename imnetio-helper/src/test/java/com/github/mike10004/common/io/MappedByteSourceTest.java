@@ -0,0 +1,141 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedByteSourceTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private byte[] content;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        content = new byte[10_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        file = temporaryFolder.newFile();
+        Files.write(content, file);
+    }
+
+    @Test
+    public void read() throws Exception {
+        System.out.println("read");
+        for (MappedByteSource source : Arrays.asList(ByteSources.mapped(file), new MappedByteSource(file.toPath(), 0, Long.MAX_VALUE, 7))) {
+            assertEquals(content.length, source.size());
+            assertEquals(Long.valueOf(content.length), source.sizeIfKnown().get());
+            assertArrayEquals(content, source.read());
+            try (InputStream in = source.openStream()) {
+                assertArrayEquals(content, ByteStreams.toByteArray(in));
+            }
+            assertTrue(source.contentEquals(ByteSource.wrap(content)));
+        }
+    }
+
+    @Test
+    public void slice() throws Exception {
+        System.out.println("slice");
+        ByteSource expected = ByteSource.wrap(content);
+        for (int chunkSize : new int[]{Integer.MAX_VALUE, 100, 1}) {
+            MappedByteSource source = new MappedByteSource(file.toPath(), 0, Long.MAX_VALUE, chunkSize);
+            long[][] cases = {{0, 10}, {5000, 3000}, {9990, 100}, {10_000, 5}, {20_000, 5}, {0, Long.MAX_VALUE}};
+            for (long[] c : cases) {
+                MappedByteSource slice = source.slice(c[0], c[1]);
+                assertArrayEquals(Arrays.toString(c), expected.slice(c[0], c[1]).read(), slice.read());
+                assertEquals(Arrays.toString(c), expected.slice(c[0], c[1]).size(), slice.size());
+            }
+            assertArrayEquals(expected.slice(150, 20).read(), source.slice(100, 200).slice(50, 20).read());
+            assertArrayEquals(new byte[0], source.slice(100, 10).slice(20, 5).read());
+        }
+    }
+
+    @Test
+    public void openStream_skipMarkReset() throws Exception {
+        System.out.println("openStream_skipMarkReset");
+        MappedByteSource source = new MappedByteSource(file.toPath(), 0, Long.MAX_VALUE, 64);
+        try (InputStream in = source.openStream()) {
+            assertEquals(1000, in.skip(1000));
+            assertEquals(content[1000] & 0xff, in.read());
+            in.mark(0);
+            byte[] buffer = new byte[100];
+            ByteStreams.readFully(in, buffer);
+            assertArrayEquals(Arrays.copyOfRange(content, 1001, 1101), buffer);
+            in.reset();
+            assertEquals(content[1001] & 0xff, in.read());
+            assertEquals(content.length - 1002, in.available());
+            assertEquals(content.length - 1002, in.skip(Long.MAX_VALUE));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void copyTo() throws Exception {
+        System.out.println("copyTo");
+        MappedByteSource slice = ByteSources.mapped(file).slice(100, 5000);
+        byte[] expected = Arrays.copyOfRange(content, 100, 5100);
+        File target = temporaryFolder.newFile();
+        assertEquals(5000, slice.copyTo(Files.asByteSink(target)));
+        assertArrayEquals(expected, Files.toByteArray(target));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        assertEquals(5000, slice.copyTo(baos));
+        assertArrayEquals(expected, baos.toByteArray());
+        File channelTarget = temporaryFolder.newFile();
+        try (FileChannel channel = FileChannel.open(channelTarget.toPath(), StandardOpenOption.WRITE)) {
+            channel.position(3);
+            assertEquals(5000, slice.copyTo(channel));
+        }
+        assertArrayEquals(expected, Arrays.copyOfRange(Files.toByteArray(channelTarget), 3, 5003));
+    }
+
+    @Test
+    public void asByteBuffer() throws Exception {
+        System.out.println("asByteBuffer");
+        ByteBuffer buffer = ByteSources.mapped(file).slice(10, 20).asByteBuffer();
+        assertEquals(20, buffer.remaining());
+        assertEquals(content[10], buffer.get(0));
+        try {
+            buffer.put(0, (byte) 0);
+            fail("should be read-only");
+        } catch (ReadOnlyBufferException expected) {
+        }
+    }
+
+    @Test
+    public void emptyAndMissing() throws Exception {
+        System.out.println("emptyAndMissing");
+        MappedByteSource empty = ByteSources.mapped(temporaryFolder.newFile());
+        assertTrue(empty.isEmpty());
+        assertArrayEquals(new byte[0], empty.read());
+        assertEquals(0, empty.copyTo(new ByteArrayOutputStream()));
+        MappedByteSource missing = ByteSources.mapped(new File(temporaryFolder.getRoot(), "missing"));
+        assertTrue(!missing.sizeIfKnown().isPresent());
+        try {
+            missing.read();
+            fail("should have thrown");
+        } catch (IOException expected) {
+        }
+    }
+}
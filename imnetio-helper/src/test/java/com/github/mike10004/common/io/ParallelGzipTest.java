@@ -0,0 +1,132 @@
+package com.github.mike10004.common.io;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelGzipTest {
+
+    private static byte[] createContent(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append("line ").append(random.nextInt(1000)).append(' ').append(Long.toHexString(random.nextLong())).append('\n');
+        }
+        return sb.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gunzipSequentially(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(ByteSource.wrap(compressed).openStream())) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static byte[] gzipSequentially(byte[]... members) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] member : members) {
+            ByteArrayOutputStream memberOut = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzout = new GZIPOutputStream(memberOut)) {
+                gzout.write(member);
+            }
+            out.write(memberOut.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        System.out.println("roundTrip");
+        ParallelGzip gzip = ParallelGzip.builder().maxBlocksInFlight(3).build();
+        for (int length : new int[]{0, 1, ParallelGzip.BLOCK_SIZE, ParallelGzip.BLOCK_SIZE + 1, 3 * 1024 * 1024 + 17}) {
+            byte[] content = createContent(length, length);
+            byte[] compressed = ByteSources.gzipping(ByteSource.wrap(content), gzip).read();
+            System.out.format("%d bytes compressed to %d%n", length, compressed.length);
+            assertArrayEquals("sequential gunzip of " + length, content, gunzipSequentially(compressed));
+            assertArrayEquals("parallel gunzip of " + length, content, ByteSources.gunzipping(ByteSource.wrap(compressed), gzip).read());
+        }
+    }
+
+    @Test
+    public void roundTrip_incompressible() throws Exception {
+        System.out.println("roundTrip_incompressible");
+        byte[] content = new byte[5 * ParallelGzip.BLOCK_SIZE / 2];
+        new Random(1).nextBytes(content);
+        for (int level : new int[]{0, 1, 9}) {
+            ParallelGzip gzip = ParallelGzip.builder().level(level).build();
+            byte[] compressed = ByteSources.gzipping(ByteSource.wrap(content), gzip).read();
+            assertArrayEquals("level " + level, content, ByteSources.gunzipping(ByteSource.wrap(compressed), gzip).read());
+        }
+    }
+
+    @Test
+    public void decompress_ordinaryGzip() throws Exception {
+        System.out.println("decompress_ordinaryGzip");
+        byte[] content = createContent(500_000, 2);
+        byte[] compressed = gzipSequentially(content);
+        assertArrayEquals(content, ByteSources.gunzipping(ByteSource.wrap(compressed), ParallelGzip.getDefault()).read());
+        ByteSource hello = ByteSources.gunzipping(Resources.asByteSource(getClass().getResource("/hello.txt.gz")), ParallelGzip.getDefault());
+        assertEquals("hello", hello.asCharSource(StandardCharsets.US_ASCII).read().trim());
+    }
+
+    @Test
+    public void decompress_blockedThenOrdinary() throws Exception {
+        System.out.println("decompress_blockedThenOrdinary");
+        byte[] first = createContent(200_000, 3), second = createContent(1000, 4);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        ByteSources.gzipping(ByteSource.wrap(first), ParallelGzip.getDefault()).copyTo(compressed);
+        compressed.write(gzipSequentially(second));
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(first);
+        expected.write(second);
+        assertArrayEquals(expected.toByteArray(), ByteSources.gunzipping(ByteSource.wrap(compressed.toByteArray()), ParallelGzip.getDefault()).read());
+    }
+
+    @Test
+    public void decompress_corrupt() throws Exception {
+        System.out.println("decompress_corrupt");
+        byte[] compressed = ByteSources.gzipping(ByteSource.wrap(createContent(100_000, 5)), ParallelGzip.getDefault()).read();
+        compressed[compressed.length / 2] ^= 0x55;
+        try {
+            ByteSources.gunzipping(ByteSource.wrap(compressed), ParallelGzip.getDefault()).read();
+            fail("should have thrown");
+        } catch (IOException expected) {
+            System.out.println("expected: " + expected);
+        }
+    }
+
+    @Test
+    public void decompress_truncated() throws Exception {
+        System.out.println("decompress_truncated");
+        byte[] compressed = ByteSources.gzipping(ByteSource.wrap(createContent(100_000, 6)), ParallelGzip.getDefault()).read();
+        ByteSource truncated = ByteSource.wrap(compressed).slice(0, compressed.length / 2);
+        try {
+            ByteSources.gunzipping(truncated, ParallelGzip.getDefault()).read();
+            fail("should have thrown");
+        } catch (IOException expected) {
+            System.out.println("expected: " + expected);
+        }
+    }
+
+    @Test
+    public void close_cancelsPending() throws Exception {
+        System.out.println("close_cancelsPending");
+        byte[] content = createContent(1024 * 1024, 7);
+        try (InputStream in = ParallelGzip.getDefault().compressing(ByteSource.wrap(content).openStream())) {
+            assertTrue(in.read() >= 0);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.mike10004.nativehelper;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Whicher that lists each parent directory once into an index of filenames
+ * and answers queries from the index. A directory's index is rebuilt when
+ * the directory's modification time changes; the modification time is
+ * checked at most once per recheck interval, so within the interval a
+ * query costs hash lookups only. The result of the validity predicate is
+ * also cached per filename, so a change to a file that does not change its
+ * parent's modification time, such as a change of permissions, is not
+ * noticed until the file's directory is next modified.
+ *
+ * <p>Instances are thread-safe.</p>
+ * @see StandardWhicher.Builder#buildCaching(Duration)
+ */
+public class CachingWhicher extends StandardWhicher {
+
+    /**
+     * Window within which a directory modification time is too recent to be
+     * trusted, because a file system with coarse timestamps could record
+     * a subsequent change with the same time.
+     */
+    private static final long RACY_WINDOW_MILLIS = 2000;
+
+    private final long recheckIntervalNanos;
+    private final Ticker ticker;
+    private final boolean caseInsensitive;
+    private final ConcurrentMap<File, DirectoryIndex> indexes = new ConcurrentHashMap<>();
+
+    public CachingWhicher(Iterable<File> parents, Predicate<File> validPredicate, Function<String, Iterable<String>> transform, Duration recheckInterval) {
+        this(parents, validPredicate, transform, recheckInterval, Ticker.systemTicker(), Platforms.getPlatform().isWindows());
+    }
+
+    @VisibleForTesting
+    CachingWhicher(Iterable<File> parents, Predicate<File> validPredicate, Function<String, Iterable<String>> transform, Duration recheckInterval, Ticker ticker, boolean caseInsensitive) {
+        super(parents, validPredicate, transform);
+        checkArgument(!recheckInterval.isNegative(), "recheck interval must be nonnegative");
+        this.recheckIntervalNanos = recheckInterval.toNanos();
+        this.ticker = checkNotNull(ticker);
+        this.caseInsensitive = caseInsensitive;
+    }
+
+    @Override
+    public Optional<File> which(Iterable<String> filenames) {
+        Function<String, Iterable<String>> transform = getTransform();
+        for (File parent : getParents()) {
+            DirectoryIndex index = getIndex(parent);
+            for (String filename : filenames) {
+                for (String filenameVariation : transform.apply(filename)) {
+                    Optional<File> file = index.lookup(filenameVariation);
+                    if (file.isPresent()) {
+                        return file;
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Resolves each of a collection of filenames with {@link #which(String)},
+     * which consults the cached directory indexes.
+     * @param filenames the filenames to resolve
+     * @return a map of each filename to its result, in iteration order of the argument
+     */
+    @Override
+    public Map<String, Optional<File>> whichAll(Iterable<String> filenames) {
+        Map<String, Optional<File>> results = new LinkedHashMap<>();
+        for (String filename : filenames) {
+            results.computeIfAbsent(filename, this::which);
+        }
+        return results;
+    }
+
+    /**
+     * Discards all directory indexes.
+     */
+    public void invalidateAll() {
+        indexes.clear();
+    }
+
+    DirectoryIndex getIndex(File parent) {
+        long now = ticker.read();
+        DirectoryIndex index = indexes.get(parent);
+        if (index != null && !index.racy) {
+            if (now - index.checkedAtNanos < recheckIntervalNanos) {
+                return index;
+            }
+            if (parent.lastModified() == index.lastModified) {
+                index.checkedAtNanos = now;
+                return index;
+            }
+        }
+        DirectoryIndex fresh = new DirectoryIndex(parent, now);
+        indexes.put(parent, fresh);
+        return fresh;
+    }
+
+    private String normalize(String filename) {
+        return caseInsensitive ? Ascii.toLowerCase(filename) : filename;
+    }
+
+    final class DirectoryIndex {
+
+        private final File directory;
+        private final long lastModified;
+        private final boolean racy;
+        private final ImmutableMap<String, String> names;
+        private final ConcurrentMap<String, Optional<File>> results = new ConcurrentHashMap<>();
+        private volatile long checkedAtNanos;
+
+        DirectoryIndex(File directory, long nowNanos) {
+            this.directory = directory;
+            lastModified = directory.lastModified();
+            names = ImmutableMap.copyOf(listFilenames(directory, caseInsensitive));
+            racy = System.currentTimeMillis() - lastModified < RACY_WINDOW_MILLIS;
+            checkedAtNanos = nowNanos;
+        }
+
+        Optional<File> lookup(String filename) {
+            String actualName = names.get(normalize(filename));
+            if (actualName == null) {
+                return Optional.empty();
+            }
+            return results.computeIfAbsent(actualName, f -> {
+                File file = new File(directory, f);
+                return isValidResult(file) ? Optional.of(file) : Optional.empty();
+            });
+        }
+    }
+}
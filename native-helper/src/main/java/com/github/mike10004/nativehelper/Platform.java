@@ -1,5 +1,6 @@
 package com.github.mike10004.nativehelper;
 
+import com.github.mike10004.nativehelper.Platforms.OsType;
 import com.github.mike10004.nativehelper.Platforms.UnsupportedPlatformException;
 import java.io.File;
 
@@ -123,5 +124,25 @@ public interface Platform {
      * @return true if BSD
      */
     boolean isBSD();
+
+    /**
+     * Gets the operating system family of this platform. The default
+     * implementation derives the family from the other {@code isX()} methods.
+     * @return the operating system family
+     */
+    default OsType getOsType() {
+        if (isWindows()) {
+            return OsType.WINDOWS;
+        } else if (isLinux()) {
+            return OsType.LINUX;
+        } else if (isOSX()) {
+            return OsType.OSX;
+        } else if (isBSD()) {
+            return OsType.BSD;
+        } else if (isUnix()) {
+            return OsType.UNIX;
+        }
+        return OsType.UNKNOWN;
+    }
 }
 
@@ -0,0 +1,189 @@
+package com.github.mike10004.nativehelper;
+
+import com.github.mike10004.nativehelper.Platforms.OsType;
+import com.github.mike10004.nativehelper.Platforms.UnsupportedPlatformException;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.io.File;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable platform whose directories are resolved when it is created.
+ * Unlike the platforms returned by {@link Platforms#getPlatform(String)},
+ * a snapshot does not consult environment variables or system properties
+ * when queried, so it is suitable for frequent lookups. Changes to the
+ * environment made after the snapshot is created are not reflected.
+ *
+ * <p>If a directory cannot be resolved on the platform, querying it throws
+ * the exception that was thrown when the snapshot was created.</p>
+ *
+ * @see Platforms#getSnapshot()
+ */
+@Immutable
+public final class PlatformSnapshot implements Platform {
+
+    private final String platformName;
+    private final OsType osType;
+    private final boolean hiddenUserConfigSubdirs;
+    private final Resolution systemConfigDir;
+    private final Resolution commonProgramFilesDir;
+    private final Resolution programDataDir;
+    private final Resolution userConfigDir;
+
+    private PlatformSnapshot(Platform platform) {
+        platformName = platform.getClass().getSimpleName();
+        osType = platform.getOsType();
+        hiddenUserConfigSubdirs = platform instanceof Platforms.UnixLike;
+        systemConfigDir = Resolution.of(platform::getSystemConfigDir);
+        commonProgramFilesDir = Resolution.of(platform::getCommonProgramFilesDir);
+        programDataDir = Resolution.of(platform::getProgramDataDir);
+        userConfigDir = Resolution.of(platform::getUserConfigDir);
+    }
+
+    static PlatformSnapshot capture(Platform platform) {
+        checkNotNull(platform, "platform");
+        if (platform instanceof PlatformSnapshot) {
+            return (PlatformSnapshot) platform;
+        }
+        return new PlatformSnapshot(platform);
+    }
+
+    @Override
+    public File getSystemConfigDir() throws UnsupportedPlatformException {
+        return systemConfigDir.get();
+    }
+
+    @Override
+    public File getCommonProgramFilesDir() throws UnsupportedPlatformException {
+        return commonProgramFilesDir.get();
+    }
+
+    @Override
+    public File getProgramDataDir() throws UnsupportedPlatformException {
+        return programDataDir.get();
+    }
+
+    @Override
+    public File getUserConfigDir() throws UnsupportedPlatformException {
+        return userConfigDir.get();
+    }
+
+    @Override
+    public File getSystemConfigDir(String first, String... rest) throws UnsupportedPlatformException {
+        return join(getSystemConfigDir(), first, rest);
+    }
+
+    @Override
+    public File getProgramDataDir(String first, String... rest) throws UnsupportedPlatformException {
+        return join(getProgramDataDir(), first, rest);
+    }
+
+    /**
+     * Gets the pathname of a subdirectory of the user configuration files
+     * directory. On UNIX-like platforms, the first argument is prefixed
+     * with a dot, as with the platform this snapshot was created from.
+     * @param first a path-narrowing component
+     * @param rest further path-narrowing components
+     * @return pathname of the user configuration file directory
+     * @throws UnsupportedPlatformException if this platform is not supported
+     */
+    @Override
+    public File getUserConfigDir(String first, String... rest) throws UnsupportedPlatformException {
+        if (hiddenUserConfigSubdirs) {
+            checkArgument(!Strings.isNullOrEmpty(first));
+            first = '.' + first;
+        }
+        return join(getUserConfigDir(), first, rest);
+    }
+
+    @Override
+    public File getCommonProgramFilesDir(String first, String... rest) throws UnsupportedPlatformException {
+        return join(getCommonProgramFilesDir(), first, rest);
+    }
+
+    private static File join(File root, String first, String... rest) {
+        for (String c : Lists.asList(first, rest)) {
+            root = new File(root, c);
+        }
+        return root;
+    }
+
+    @Override
+    public OsType getOsType() {
+        return osType;
+    }
+
+    @Override
+    public boolean isWindows() {
+        return osType == OsType.WINDOWS;
+    }
+
+    @Override
+    public boolean isLinux() {
+        return osType == OsType.LINUX;
+    }
+
+    @Override
+    public boolean isUnix() {
+        return osType == OsType.UNIX;
+    }
+
+    @Override
+    public boolean isOSX() {
+        return osType == OsType.OSX;
+    }
+
+    @Override
+    public boolean isBSD() {
+        return osType == OsType.BSD;
+    }
+
+    @Override
+    public String toString() {
+        return "PlatformSnapshot{" +
+                "platform=" + platformName +
+                ", osType=" + osType +
+                '}';
+    }
+
+    private interface DirectorySupplier {
+        File get() throws UnsupportedPlatformException;
+    }
+
+    /**
+     * Outcome of resolving a directory: either the directory or the
+     * exception thrown while resolving it.
+     */
+    private static final class Resolution {
+
+        @Nullable
+        private final File directory;
+        @Nullable
+        private final RuntimeException failure;
+
+        private Resolution(@Nullable File directory, @Nullable RuntimeException failure) {
+            this.directory = directory;
+            this.failure = failure;
+        }
+
+        static Resolution of(DirectorySupplier supplier) {
+            try {
+                return new Resolution(supplier.get(), null);
+            } catch (RuntimeException e) {
+                return new Resolution(null, e);
+            }
+        }
+
+        File get() {
+            if (failure != null) {
+                throw failure;
+            }
+            return directory;
+        }
+    }
+}
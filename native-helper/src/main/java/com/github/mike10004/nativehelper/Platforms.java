@@ -31,19 +31,86 @@ public final class Platforms {
         return cache.getUnchecked(platformClass);
     }
     
+    /**
+     * Gets the platform of the running system. The platform is detected on
+     * the first call, and the same instance is returned on subsequent calls
+     * until {@link #redetect()} is invoked.
+     * @return the platform
+     */
     public static Platform getPlatform() {
-        Class<? extends Platform> platformClass = detectPlatformClass();
-        /*
-         * We can get this value with an unchecked call because detectPlatformClass()
-         * only returns classes we know are instantiable because they are all
-         * defined here. If future improvements to this class allow for 
-         * plugging in external Platform implementations, then it might be 
-         * wise to make this a checked call and add a throws declaration to
-         * the getPlatform() function.
-         */
-        return cache.getUnchecked(platformClass);
+        return detected().platform;
     }
-    
+
+    /**
+     * Gets an immutable snapshot of the platform of the running system, with
+     * its directories resolved at the time of detection. Use this instead of
+     * {@link #getPlatform()} where directories are queried frequently, because
+     * the platform returned by that method re-reads environment variables and
+     * system properties on each query.
+     * @return the platform snapshot
+     */
+    public static PlatformSnapshot getSnapshot() {
+        return detected().snapshot;
+    }
+
+    /**
+     * Detects the platform of the running system again, using the current
+     * value of the {@code os.name} system property, and replaces the
+     * platform and snapshot returned by {@link #getPlatform()} and
+     * {@link #getSnapshot()}.
+     * @return the new platform snapshot
+     */
+    public static PlatformSnapshot redetect() {
+        Detection current = new Detection(System.getProperty("os.name"));
+        detection = current;
+        return current.snapshot;
+    }
+
+    /**
+     * Creates an immutable snapshot of the platform for an operating system
+     * with the given name.
+     * @param osName the operating system name
+     * @return the platform snapshot
+     */
+    public static PlatformSnapshot snapshot(String osName) {
+        return PlatformSnapshot.capture(getPlatform(osName));
+    }
+
+    private static volatile Detection detection;
+
+    private static Detection detected() {
+        Detection current = detection;
+        if (current == null) {
+            synchronized (Platforms.class) {
+                current = detection;
+                if (current == null) {
+                    current = new Detection(OS);
+                    detection = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static final class Detection {
+
+        final Platform platform;
+        final PlatformSnapshot snapshot;
+
+        Detection(String osName) {
+            /*
+             * We can get this value with an unchecked call because getPlatformClass()
+             * only returns classes we know are instantiable because they are all
+             * defined here. If future improvements to this class allow for 
+             * plugging in external Platform implementations, then it might be 
+             * wise to make this a checked call and add a throws declaration to
+             * the getPlatform() function.
+             */
+            platform = cache.getUnchecked(getPlatformClass(osName));
+            snapshot = PlatformSnapshot.capture(platform);
+        }
+    }
+
     private static final LoadingCache<Class<? extends Platform>, Platform> cache 
             = CacheBuilder.newBuilder()
             .build(new CacheLoader<Class<? extends Platform>, Platform>() {
@@ -53,10 +120,6 @@ public final class Platforms {
         }
     });
     
-    private static Class<? extends Platform> detectPlatformClass() {
-        return getPlatformClass(OS);
-    }
-    
     public static Class<? extends Platform> getPlatformClass(String osName) {
         if (osName.endsWith("BSD")) {
             return Bsd.class;
@@ -88,12 +151,21 @@ public final class Platforms {
         return NullPlatform.class;
     }
 
-    enum OsType {
+    /**
+     * Enumeration of operating system families. Use {@link Platform#getOsType()}
+     * to switch on the family of a platform.
+     */
+    public enum OsType {
         WINDOWS,
         LINUX,
         UNIX,
         OSX,
-        BSD
+        BSD,
+
+        /**
+         * Operating system not recognized.
+         */
+        UNKNOWN
     }
     
     static abstract class AbstractPlatform implements Platform {
@@ -101,7 +173,12 @@ public final class Platforms {
         private final OsType osType;
 
         public AbstractPlatform(OsType osType) {
-            this.osType = osType;
+            this.osType = Preconditions.checkNotNull(osType);
+        }
+
+        @Override
+        public OsType getOsType() {
+            return osType;
         }
 
         /**
@@ -204,7 +281,7 @@ public final class Platforms {
     static class NullPlatform extends AbstractPlatform {
 
         public NullPlatform() {
-            super(null);
+            super(OsType.UNKNOWN);
         }
         
         @Override
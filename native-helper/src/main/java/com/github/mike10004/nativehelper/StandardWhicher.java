@@ -1,19 +1,26 @@
 package com.github.mike10004.nativehelper;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
 import com.google.common.base.CharMatcher;
 import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.io.Files;
 import java.io.File;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /**
@@ -57,7 +64,7 @@ public class StandardWhicher implements Whicher {
      */
     @Override
     public Optional<File> which(Iterable<String> filenames) {
-        for (File parent : ImmutableList.copyOf(parents)) {
+        for (File parent : parents) {
             for (String filename : filenames) {
                 Iterable<String> filenameVariations = transform.apply(filename);
                 for (String filenameVariation : filenameVariations) {
@@ -71,6 +78,72 @@ public class StandardWhicher implements Whicher {
         return Optional.empty();
     }
 
+    /**
+     * Resolves each of a collection of filenames as {@link #which(String)}
+     * would, but lists each parent directory only once, instead of checking
+     * each candidate pathname. The directory listings are obtained in
+     * parallel. A candidate is checked with {@link #isValidResult(File)}
+     * only if it is present in its directory's listing.
+     * @param filenames the filenames to resolve
+     * @return a map of each filename to its result, in iteration order of the argument
+     */
+    @Override
+    public Map<String, Optional<File>> whichAll(Iterable<String> filenames) {
+        ImmutableSet<String> uniqueFilenames = ImmutableSet.copyOf(filenames);
+        boolean caseInsensitive = Platforms.getPlatform().isWindows();
+        List<Map<String, String>> listings = parents.asList().parallelStream()
+                .map(parent -> listFilenames(parent, caseInsensitive))
+                .collect(Collectors.toList());
+        Map<String, Optional<File>> results = new LinkedHashMap<>();
+        for (String filename : uniqueFilenames) {
+            Optional<File> result = Optional.empty();
+            Iterable<String> filenameVariations = transform.apply(filename);
+            int i = 0;
+            parentLoop:
+            for (File parent : parents) {
+                Map<String, String> listing = listings.get(i++);
+                for (String filenameVariation : filenameVariations) {
+                    String key = caseInsensitive ? Ascii.toLowerCase(filenameVariation) : filenameVariation;
+                    if (listing.containsKey(key)) {
+                        File file = new File(parent, filenameVariation);
+                        if (isValidResult(file)) {
+                            result = Optional.of(file);
+                            break parentLoop;
+                        }
+                    }
+                }
+            }
+            results.put(filename, result);
+        }
+        return results;
+    }
+
+    /**
+     * Lists the filenames in a directory.
+     * @param directory the directory
+     * @param caseInsensitive true if keys of the returned map should be lowercase
+     * @return a map of keys to actual filenames; empty if the directory cannot be listed
+     */
+    static Map<String, String> listFilenames(File directory, boolean caseInsensitive) {
+        String[] filenames = directory.list();
+        if (filenames == null) {
+            return ImmutableMap.of();
+        }
+        Map<String, String> m = new HashMap<>(filenames.length * 2);
+        for (String filename : filenames) {
+            m.putIfAbsent(caseInsensitive ? Ascii.toLowerCase(filename) : filename, filename);
+        }
+        return m;
+    }
+
+    ImmutableSet<File> getParents() {
+        return parents;
+    }
+
+    Function<String, Iterable<String>> getTransform() {
+        return transform;
+    }
+
     static final class IdentityTransform implements Function<String, Iterable<String>> {
 
         @Override
@@ -255,6 +328,18 @@ public class StandardWhicher implements Whicher {
             return new StandardWhicher(parents, validPredicate, transform);
         }
 
+        /**
+         * Builds and returns a whicher instance that caches the listing of
+         * each directory to be searched.
+         * @param recheckInterval the minimum interval between checks of a
+         * directory's modification time
+         * @return the whicher
+         * @see CachingWhicher
+         */
+        public CachingWhicher buildCaching(Duration recheckInterval) {
+            return new CachingWhicher(parents, validPredicate, transform, recheckInterval);
+        }
+
         /**
          * Require that the found file be executable.
          * @return this instance
@@ -5,6 +5,8 @@ import com.google.common.collect.ImmutableList;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -34,6 +36,20 @@ public interface Whicher {
      */
     Optional<File> which(Iterable<String> filenames);
 
+    /**
+     * Returns the which'd value for each of a collection of filenames.
+     * Unlike {@link #which(Iterable)}, each filename is resolved separately.
+     * @param filenames the filenames to search for
+     * @return a map of each filename to its result, in iteration order of the argument
+     */
+    default Map<String, Optional<File>> whichAll(Iterable<String> filenames) {
+        Map<String, Optional<File>> results = new LinkedHashMap<>();
+        for (String filename : filenames) {
+            results.computeIfAbsent(filename, this::which);
+        }
+        return results;
+    }
+
     /**
      * Constructs and returns a GNU-style instance that searches the system
      * path for executable files, checking Windows extensions if the platform
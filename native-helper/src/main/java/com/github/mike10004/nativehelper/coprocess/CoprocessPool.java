@@ -0,0 +1,380 @@
+package com.github.mike10004.nativehelper.coprocess;
+
+import com.github.mike10004.nativehelper.Whicher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Pool of long-lived worker processes that serve requests over their
+ * standard input and output streams. Each worker runs the same command and
+ * handles one request at a time: the pool writes a request frame to the
+ * worker's standard input and reads a response frame from its standard
+ * output, as defined by a {@link Framing}. This replaces a process launch
+ * per request with a pipe round trip.
+ *
+ * <p>Requests are dispatched to idle workers; a new worker is started if
+ * none is idle and the pool has not reached its maximum size, and
+ * otherwise the request waits for a worker to become idle. A worker is
+ * retired after a configured number of requests, or if a request fails
+ * with an I/O error, and is replaced on demand.</p>
+ */
+@ThreadSafe
+public class CoprocessPool implements Closeable {
+
+    private static final Logger log = Logger.getLogger(CoprocessPool.class.getName());
+
+    private final ImmutableList<String> command;
+    @Nullable
+    private final File workingDirectory;
+    private final ImmutableMap<String, String> environment;
+    private final ProcessBuilder.Redirect errorRedirect;
+    private final Framing framing;
+    private final int maxWorkers;
+    private final int maxUsesPerWorker;
+    private final Semaphore permits;
+    private final BlockingDeque<Worker> idleWorkers = new LinkedBlockingDeque<>();
+    private final AtomicLong numStarted = new AtomicLong();
+    private final AtomicInteger numLive = new AtomicInteger();
+    private volatile boolean closed;
+
+    private CoprocessPool(Builder builder) {
+        command = ImmutableList.copyOf(builder.command);
+        workingDirectory = builder.workingDirectory;
+        environment = ImmutableMap.copyOf(builder.environment);
+        errorRedirect = builder.errorRedirect;
+        framing = builder.framing;
+        maxWorkers = builder.maxWorkers;
+        maxUsesPerWorker = builder.maxUsesPerWorker;
+        permits = new Semaphore(builder.maxWorkers, true);
+    }
+
+    /**
+     * Creates a builder of a pool whose workers run the given executable.
+     * @param executable the executable
+     * @return a new builder
+     */
+    public static Builder builder(File executable) {
+        return new Builder(executable.getAbsolutePath());
+    }
+
+    /**
+     * Creates a builder of a pool whose workers run an executable found by a whicher.
+     * @param whicher the whicher
+     * @param executableName the name of the executable
+     * @return a new builder
+     * @throws FileNotFoundException if the executable is not found
+     */
+    public static Builder builder(Whicher whicher, String executableName) throws FileNotFoundException {
+        File executable = whicher.which(executableName)
+                .orElseThrow(() -> new FileNotFoundException("executable not found: " + executableName));
+        return builder(executable);
+    }
+
+    /**
+     * Sends a request to a worker and waits for the response, waiting as
+     * long as necessary for a worker to become available.
+     * @param request the request
+     * @return the response
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted while waiting for a worker
+     */
+    public byte[] execute(byte[] request) throws IOException, InterruptedException {
+        checkState(!closed, "pool is closed");
+        permits.acquire();
+        return executeWithPermit(request);
+    }
+
+    /**
+     * Sends a request to a worker and waits for the response, waiting up to
+     * the given time for a worker to become available. The time spent
+     * waiting for the response is not limited.
+     * @param request the request
+     * @param timeout the maximum time to wait for a worker
+     * @param unit the timeout unit
+     * @return the response
+     * @throws IOException if the request fails
+     * @throws InterruptedException if interrupted while waiting for a worker
+     * @throws TimeoutException if no worker becomes available in time
+     */
+    public byte[] execute(byte[] request, long timeout, TimeUnit unit) throws IOException, InterruptedException, TimeoutException {
+        checkState(!closed, "pool is closed");
+        if (!permits.tryAcquire(timeout, unit)) {
+            throw new TimeoutException("no worker available within " + timeout + " " + unit);
+        }
+        return executeWithPermit(request);
+    }
+
+    private byte[] executeWithPermit(byte[] request) throws IOException {
+        checkNotNull(request, "request");
+        Worker worker = null;
+        boolean healthy = false;
+        try {
+            worker = takeWorker();
+            byte[] response = worker.exchange(request);
+            healthy = true;
+            return response;
+        } finally {
+            if (worker != null) {
+                release(worker, healthy);
+            }
+            permits.release();
+        }
+    }
+
+    private Worker takeWorker() throws IOException {
+        Worker worker = idleWorkers.pollFirst();
+        for (;;) {
+            if (worker != null) {
+                if (worker.process.isAlive()) {
+                    return worker;
+                }
+                worker.destroy();
+                worker = idleWorkers.pollFirst();
+                continue;
+            } else if (reserveWorkerSlot()) {
+                return startWorker();
+            }
+            // all slots are taken by workers being started or released by other threads
+            try {
+                worker = idleWorkers.pollFirst(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for worker");
+            }
+        }
+    }
+
+    private void release(Worker worker, boolean healthy) {
+        if (!healthy || closed || worker.numUses >= maxUsesPerWorker || !worker.process.isAlive()) {
+            worker.destroy();
+        } else {
+            idleWorkers.offerFirst(worker);
+            if (closed && idleWorkers.remove(worker)) {
+                worker.destroy();
+            }
+        }
+    }
+
+    /**
+     * Starts a worker in a slot already counted in {@link #numLive}.
+     */
+    private Worker startWorker() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command)
+                .redirectError(errorRedirect);
+        if (workingDirectory != null) {
+            pb.directory(workingDirectory);
+        }
+        pb.environment().putAll(environment);
+        Process process;
+        try {
+            process = pb.start();
+        } catch (IOException | RuntimeException e) {
+            numLive.decrementAndGet();
+            throw e;
+        }
+        numStarted.incrementAndGet();
+        return new Worker(process);
+    }
+
+    /**
+     * Reserves a slot for a new worker if the number of live workers is
+     * below the maximum.
+     * @return true if a slot was reserved
+     */
+    private boolean reserveWorkerSlot() {
+        for (;;) {
+            int live = numLive.get();
+            if (live >= maxWorkers) {
+                return false;
+            }
+            if (numLive.compareAndSet(live, live + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Starts workers until the given number of workers are idle or the pool
+     * reaches its maximum size.
+     * @param numWorkers the number of workers to have ready
+     * @throws IOException if a worker fails to start
+     */
+    public void prestart(int numWorkers) throws IOException {
+        checkState(!closed, "pool is closed");
+        List<Worker> started = new ArrayList<>();
+        try {
+            while (idleWorkers.size() + started.size() < numWorkers && reserveWorkerSlot()) {
+                started.add(startWorker());
+            }
+        } finally {
+            for (Worker worker : started) {
+                release(worker, true);
+            }
+        }
+    }
+
+    /**
+     * Gets the total number of worker processes started by this pool.
+     * @return the number of workers started
+     */
+    public long getNumStarted() {
+        return numStarted.get();
+    }
+
+    /**
+     * Gets the number of workers that are running, whether idle or busy.
+     * @return the number of live workers
+     */
+    public int getNumLive() {
+        return numLive.get();
+    }
+
+    /**
+     * Gets the number of idle workers.
+     * @return the number of idle workers
+     */
+    public int getNumIdle() {
+        return idleWorkers.size();
+    }
+
+    /**
+     * Closes the pool. Idle workers are terminated immediately, and busy
+     * workers are terminated when their current request completes.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Worker worker;
+        while ((worker = idleWorkers.pollFirst()) != null) {
+            worker.destroy();
+        }
+    }
+
+    private final class Worker {
+
+        private final Process process;
+        private final OutputStream stdin;
+        private final InputStream stdout;
+        private int numUses;
+
+        Worker(Process process) {
+            this.process = process;
+            stdin = new BufferedOutputStream(process.getOutputStream());
+            stdout = new BufferedInputStream(process.getInputStream());
+        }
+
+        byte[] exchange(byte[] request) throws IOException {
+            numUses++;
+            framing.writeRequest(stdin, request);
+            stdin.flush();
+            return framing.readResponse(stdout);
+        }
+
+        void destroy() {
+            try {
+                stdin.close();
+            } catch (IOException e) {
+                log.log(Level.FINER, "closing worker input failed", e);
+            }
+            process.destroy();
+            numLive.decrementAndGet();
+        }
+    }
+
+    /**
+     * Builder of coprocess pools. By default, the pool has one worker per
+     * available processor, workers are never retired for age, frames are
+     * lines, and the standard error stream of each worker is inherited.
+     */
+    public static final class Builder {
+
+        private final List<String> command = new ArrayList<>();
+        private File workingDirectory;
+        private final Map<String, String> environment = new LinkedHashMap<>();
+        private ProcessBuilder.Redirect errorRedirect = ProcessBuilder.Redirect.INHERIT;
+        private Framing framing = Framing.lines();
+        private int maxWorkers = Runtime.getRuntime().availableProcessors();
+        private int maxUsesPerWorker = Integer.MAX_VALUE;
+
+        private Builder(String executablePath) {
+            command.add(executablePath);
+        }
+
+        public Builder args(String... args) {
+            for (String arg : args) {
+                command.add(checkNotNull(arg));
+            }
+            return this;
+        }
+
+        public Builder from(File workingDirectory) {
+            this.workingDirectory = checkNotNull(workingDirectory);
+            return this;
+        }
+
+        public Builder env(String name, String value) {
+            environment.put(checkNotNull(name), checkNotNull(value));
+            return this;
+        }
+
+        public Builder redirectError(ProcessBuilder.Redirect errorRedirect) {
+            this.errorRedirect = checkNotNull(errorRedirect);
+            return this;
+        }
+
+        public Builder framing(Framing framing) {
+            this.framing = checkNotNull(framing);
+            return this;
+        }
+
+        public Builder maxWorkers(int maxWorkers) {
+            checkArgument(maxWorkers > 0, "maxWorkers must be positive");
+            this.maxWorkers = maxWorkers;
+            return this;
+        }
+
+        /**
+         * Sets the number of requests after which a worker is retired.
+         * @param maxUsesPerWorker the number of requests
+         * @return this builder
+         */
+        public Builder maxUsesPerWorker(int maxUsesPerWorker) {
+            checkArgument(maxUsesPerWorker > 0, "maxUsesPerWorker must be positive");
+            this.maxUsesPerWorker = maxUsesPerWorker;
+            return this;
+        }
+
+        public CoprocessPool build() {
+            return new CoprocessPool(this);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.mike10004.nativehelper.coprocess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Interface for services that delimit requests and responses exchanged with
+ * a worker process over its standard input and output streams.
+ */
+public interface Framing {
+
+    /**
+     * Writes a request frame. Implementations need not flush the stream.
+     * @param out the worker's standard input stream
+     * @param request the request
+     * @throws IOException on I/O error
+     */
+    void writeRequest(OutputStream out, byte[] request) throws IOException;
+
+    /**
+     * Reads a response frame.
+     * @param in the worker's standard output stream
+     * @return the response
+     * @throws IOException on I/O error or if the stream ends before the frame is complete
+     */
+    byte[] readResponse(InputStream in) throws IOException;
+
+    /**
+     * Gets a framing in which each frame is preceded by its length as a
+     * 4-byte big-endian integer.
+     * @param maxFrameLength the maximum length of a response frame
+     * @return the framing
+     */
+    static Framing lengthPrefixed(int maxFrameLength) {
+        checkArgument(maxFrameLength >= 0, "max frame length must be nonnegative");
+        return new Framing() {
+            @Override
+            public void writeRequest(OutputStream out, byte[] request) throws IOException {
+                DataOutputStream dout = new DataOutputStream(out);
+                dout.writeInt(request.length);
+                dout.write(request);
+            }
+
+            @Override
+            public byte[] readResponse(InputStream in) throws IOException {
+                DataInputStream din = new DataInputStream(in);
+                int length = din.readInt();
+                if (length < 0 || length > maxFrameLength) {
+                    throw new IOException("invalid frame length " + length);
+                }
+                byte[] response = new byte[length];
+                din.readFully(response);
+                return response;
+            }
+        };
+    }
+
+    /**
+     * Gets a framing in which each frame is terminated by a newline. The
+     * newline is not part of the request or response. Requests must not
+     * contain a newline.
+     * @return the framing
+     */
+    static Framing lines() {
+        return new Framing() {
+            @Override
+            public void writeRequest(OutputStream out, byte[] request) throws IOException {
+                for (byte b : request) {
+                    checkArgument(b != '\n', "request contains newline");
+                }
+                out.write(request);
+                out.write('\n');
+            }
+
+            @Override
+            public byte[] readResponse(InputStream in) throws IOException {
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) != '\n') {
+                    if (b == -1) {
+                        throw new EOFException("stream ended before end of line");
+                    }
+                    response.write(b);
+                }
+                return response.toByteArray();
+            }
+        };
+    }
+}
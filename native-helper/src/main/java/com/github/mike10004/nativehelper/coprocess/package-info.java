@@ -0,0 +1,4 @@
+/**
+ * Classes and interfaces relating to pools of long-lived worker processes.
+ */
+package com.github.mike10004.nativehelper.coprocess;
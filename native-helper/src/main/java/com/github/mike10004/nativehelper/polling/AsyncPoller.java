@@ -0,0 +1,349 @@
+package com.github.mike10004.nativehelper.polling;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Class that facilitates polling for an arbitrary condition without blocking
+ * a thread between poll attempts. Polling is the act of repeatedly querying
+ * the state at intervals defined by a {@link PollSchedule}. Instead of
+ * sleeping, the poller schedules each subsequent attempt on a
+ * {@link PollScheduler}, so many concurrent polls can share a few threads.
+ *
+ * <p>Polling stops when this poller's {@link #check(int) evaluation function}
+ * answers with a reason to stop, when the schedule is exhausted, or when the
+ * next attempt would be made after the poll's deadline. Reasons to stop
+ * include {@link PollAction#RESOLVE resolution}, meaning the poller is
+ * satisfied with the result, or {@link PollAction#ABORT abortion}, meaning
+ * polling must stop early without a resolution.</p>
+ *
+ * <p>An instance may be used to run any number of concurrent polls, provided
+ * its check function is thread-safe. Cancelling the future returned by
+ * {@link #poll(PollSchedule)} cancels the pending attempt.</p>
+ *
+ * @param <T> type of content returned upon resolution
+ */
+public abstract class AsyncPoller<T> {
+
+    private final PollScheduler scheduler;
+    private final Executor checkExecutor;
+
+    /**
+     * Creates a new poller whose checks are executed on the scheduler's threads.
+     * @param scheduler the scheduler
+     */
+    public AsyncPoller(PollScheduler scheduler) {
+        this(scheduler, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Creates a new poller whose checks are executed by the given executor.
+     * Use this if checks may block.
+     * @param scheduler the scheduler
+     * @param checkExecutor the executor of checks
+     */
+    public AsyncPoller(PollScheduler scheduler, Executor checkExecutor) {
+        this.scheduler = checkNotNull(scheduler);
+        this.checkExecutor = checkNotNull(checkExecutor);
+    }
+
+    /**
+     * Starts polling without a deadline. The first attempt is made immediately.
+     * @param schedule the schedule
+     * @return a future that is completed when polling stops
+     */
+    public CompletableFuture<PollOutcome<T>> poll(PollSchedule schedule) {
+        return poll(schedule, null);
+    }
+
+    /**
+     * Starts polling. The first attempt is made immediately.
+     * @param schedule the schedule
+     * @param deadline maximum duration of the poll; polling stops with
+     * {@link StopReason#TIMEOUT} instead of scheduling an attempt after the deadline
+     * @return a future that is completed when polling stops
+     */
+    public CompletableFuture<PollOutcome<T>> poll(PollSchedule schedule, @Nullable Duration deadline) {
+        checkArgument(deadline == null || !deadline.isNegative(), "deadline must be nonnegative");
+        Poll poll = new Poll(checkNotNull(schedule), deadline == null ? Long.MAX_VALUE : deadline.toNanos());
+        poll.submit();
+        return poll.future;
+    }
+
+    private final class Poll implements Runnable {
+
+        private final CompletableFuture<PollOutcome<T>> future = new CompletableFuture<>();
+        private final PollSchedule schedule;
+        private final long startNanos;
+        private final long deadlineNanos;
+        private int numAttempts;
+        @Nullable
+        private T lastContent;
+        @Nullable
+        private volatile PollScheduler.ScheduledTask pending;
+
+        Poll(PollSchedule schedule, long deadlineNanos) {
+            this.schedule = schedule;
+            this.deadlineNanos = deadlineNanos;
+            startNanos = System.nanoTime();
+            future.whenComplete((outcome, exception) -> {
+                PollScheduler.ScheduledTask task = pending;
+                if (task != null && future.isCancelled()) {
+                    task.cancel();
+                }
+            });
+        }
+
+        void submit() {
+            try {
+                checkExecutor.execute(this);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                long delayMs = schedule.nextDelayMillis(numAttempts);
+                if (delayMs < 0) {
+                    finish(StopReason.TIMEOUT, lastContent);
+                    return;
+                }
+                checkState(delayMs > 0, "schedule must return positive values or STOP; got %s", delayMs);
+                PollAnswer<T> answer = checkNotNull(check(numAttempts), "check() must return non-null with non-null action");
+                numAttempts++;
+                lastContent = answer.content;
+                switch (answer.action) {
+                    case RESOLVE:
+                        finish(StopReason.RESOLVED, answer.content);
+                        return;
+                    case ABORT:
+                        finish(StopReason.ABORTED, answer.content);
+                        return;
+                    case CONTINUE:
+                        break;
+                    default:
+                        throw new IllegalStateException("bug: unhandled enum " + answer.action);
+                }
+                long elapsed = System.nanoTime() - startNanos;
+                if (elapsed + TimeUnit.MILLISECONDS.toNanos(delayMs) > deadlineNanos) {
+                    finish(StopReason.TIMEOUT, lastContent);
+                    return;
+                }
+                pending = scheduler.schedule(this::submit, delayMs, TimeUnit.MILLISECONDS);
+                if (future.isCancelled()) {
+                    pending.cancel();
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void finish(StopReason reason, @Nullable T content) {
+            Duration duration = Duration.ofNanos(System.nanoTime() - startNanos);
+            future.complete(new PollOutcome<>(reason, content, duration, numAttempts));
+        }
+    }
+
+    protected static <E> PollAnswer<E> resolve(@Nullable E value) {
+        return new PollAnswer<>(PollAction.RESOLVE, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <E> PollAnswer<E> continuePolling() {
+        return (PollAnswer<E>) PollAnswer.CONTINUE_WITH_NULL_VALUE;
+    }
+
+    protected static <E> PollAnswer<E> abortPolling(@Nullable E value) {
+        return new PollAnswer<>(PollAction.ABORT, value);
+    }
+
+    protected static <E> PollAnswer<E> abortPolling() {
+        return abortPolling(null);
+    }
+
+    /**
+     * Checks whether the state being questioned has been resolved. This
+     * method must return an answer constructed with the
+     * {@link #continuePolling()}, {@link #abortPolling()}, or
+     * {@link #resolve(Object)} methods. It is invoked by the check executor,
+     * and for a given poll, invocations never overlap.
+     * @param pollAttemptsSoFar the number of poll attempts prior to this poll attempt
+     * @return a poll answer
+     */
+    protected abstract PollAnswer<T> check(int pollAttemptsSoFar);
+
+    /**
+     * Creates a simple poller that evaluates a condition on each poll.
+     * @param scheduler the scheduler
+     * @param condition the condition to evaluate; poll will be resolved if it
+     *                  returns true, and if it returns false, the poller will
+     *                  keep polling
+     * @return the poller
+     */
+    public static AsyncPoller<Void> checking(PollScheduler scheduler, Supplier<Boolean> condition) {
+        checkNotNull(condition);
+        return new AsyncPoller<Void>(scheduler) {
+            @Override
+            protected PollAnswer<Void> check(int pollAttemptsSoFar) {
+                return condition.get() ? resolve(null) : continuePolling();
+            }
+        };
+    }
+
+    /**
+     * Class that represents the outcome of a poll. To clarify: a poll outcome
+     * refers to the end result after many poll attempts, and a
+     * {@link PollAnswer poll answer} is the answer to any individual poll attempt.
+     * @param <E> type of the resolved content
+     */
+    public static final class PollOutcome<E> {
+
+        /**
+         * Reason polling stopped.
+         */
+        public final StopReason reason;
+
+        /**
+         * An object that represents the resolved state of the poll.
+         */
+        public final @Nullable E content;
+
+        /**
+         * Gets the polling duration. This may not be exact.
+         */
+        public final Duration duration;
+
+        private final int numAttempts;
+
+        PollOutcome(StopReason reason, @Nullable E content, Duration duration, int numAttempts) {
+            this.reason = checkNotNull(reason);
+            this.content = content;
+            this.duration = checkNotNull(duration);
+            this.numAttempts = numAttempts;
+        }
+
+        /**
+         * Gets the number of times the poll was attempted. This is the number of
+         * times the {@link #check(int) check()} function is invoked.
+         * @return count of attempts
+         */
+        public int getNumAttempts() {
+            return numAttempts;
+        }
+
+        @Override
+        public String toString() {
+            return "PollOutcome{" +
+                    "reason=" + reason +
+                    ", content=" + content +
+                    ", duration=" + duration +
+                    ", attempts=" + numAttempts +
+                    '}';
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PollOutcome<?> that = (PollOutcome<?>) o;
+            return numAttempts == that.numAttempts
+                    && reason == that.reason
+                    && Objects.equals(content, that.content)
+                    && duration.equals(that.duration);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(reason, content, duration, numAttempts);
+        }
+    }
+
+    /**
+     * Enumeration of reasons that polling stopped.
+     */
+    public enum StopReason {
+
+        /**
+         * State was resolved to the poller's satisfaction.
+         */
+        RESOLVED,
+
+        /**
+         * State was not resolved to the poller's satisfaction,
+         * but polling must cease anyway.
+         */
+        ABORTED,
+
+        /**
+         * The schedule was exhausted or the deadline was reached
+         * prior to resolution or abortion of polling.
+         */
+        TIMEOUT
+    }
+
+    /**
+     * Class that represents an answer in response to a poll request.
+     * Instances of this class are constructed with the poller's
+     * {@link AsyncPoller#continuePolling() continuePolling()},
+     * {@link AsyncPoller#abortPolling() abortPolling()}, and
+     * {@link AsyncPoller#resolve(Object) resolve()} methods.
+     * @param <E> the type of content in the resolution
+     */
+    public static final class PollAnswer<E> {
+
+        private static final PollAnswer<?> CONTINUE_WITH_NULL_VALUE = new PollAnswer<>(PollAction.CONTINUE, null);
+
+        /**
+         * Action the poller should take after receiving this answer.
+         */
+        public final PollAction action;
+
+        /**
+         * Content of the answer.
+         */
+        public final @Nullable E content;
+
+        private PollAnswer(PollAction action, @Nullable E content) {
+            this.action = checkNotNull(action);
+            this.content = content;
+        }
+    }
+
+    /**
+     * Enumeration of actions a poller's check function can return.
+     */
+    public enum PollAction {
+
+        /**
+         * Stop polling because the state in question has been resolved.
+         */
+        RESOLVE,
+
+        /**
+         * Stop polling without a resolution.
+         */
+        ABORT,
+
+        /**
+         * Keep polling.
+         */
+        CONTINUE
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.mike10004.nativehelper.polling;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Poll scheduler that delegates to a scheduled executor service.
+ */
+public class ExecutorPollScheduler implements PollScheduler {
+
+    private final ScheduledExecutorService executorService;
+
+    public ExecutorPollScheduler(ScheduledExecutorService executorService) {
+        this.executorService = checkNotNull(executorService);
+    }
+
+    /**
+     * Creates a scheduler backed by a new executor with the given number of
+     * daemon threads. Cancelled tasks are removed from the executor's queue
+     * immediately.
+     * @param numThreads the number of threads
+     * @return the scheduler
+     */
+    public static ExecutorPollScheduler create(int numThreads) {
+        checkArgument(numThreads > 0, "numThreads must be positive");
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(numThreads, new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("poll-scheduler-%d")
+                .build());
+        executor.setRemoveOnCancelPolicy(true);
+        return new ExecutorPollScheduler(executor);
+    }
+
+    @Override
+    public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        ScheduledFuture<?> future = executorService.schedule(task, delay, unit);
+        return () -> future.cancel(false);
+    }
+
+    public ScheduledExecutorService getExecutorService() {
+        return executorService;
+    }
+}
@@ -0,0 +1,359 @@
+package com.github.mike10004.nativehelper.polling;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Poll scheduler backed by a hashed timing wheel. Scheduling and cancelling
+ * a task cost O(1): a new task is appended to a lock-free queue, and a
+ * cancelled task is marked and queued for removal. A single timer thread
+ * advances the wheel once per tick, moves new tasks into the wheel's
+ * buckets, and dispatches the tasks that are due to a task executor in
+ * batches.
+ *
+ * <p>Tasks are run no earlier than their delay, rounded up to the tick
+ * duration, and may run up to one tick late, so the tick duration should
+ * be chosen with the coarsest acceptable resolution. This scheduler is
+ * suitable for large numbers of pending polls whose timing need not be
+ * precise; an {@link ExecutorPollScheduler} is preferable for small numbers
+ * of tasks that must run on time.</p>
+ */
+public class HashedWheelPollScheduler implements PollScheduler, Closeable {
+
+    private static final Logger log = Logger.getLogger(HashedWheelPollScheduler.class.getName());
+
+    /**
+     * Maximum number of new tasks moved into the wheel on each tick, so
+     * that a burst of scheduling does not delay the expiry of due tasks.
+     */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor taskExecutor;
+    private final int batchSize;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong numPending = new AtomicLong();
+    private final long startNanos;
+    private final Thread timerThread;
+    private volatile boolean stopped;
+    private long tick;
+
+    private HashedWheelPollScheduler(Builder builder) {
+        tickNanos = builder.tickNanos;
+        int numBuckets = Integer.highestOneBit(builder.ticksPerWheel - 1) << 1;
+        wheel = new Bucket[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = numBuckets - 1;
+        taskExecutor = builder.taskExecutor;
+        batchSize = builder.batchSize;
+        startNanos = System.nanoTime();
+        timerThread = new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("poll-wheel-%d")
+                .build()
+                .newThread(this::runTimer);
+        timerThread.start();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+        checkNotNull(task, "task");
+        checkState(!stopped, "scheduler is closed");
+        long deadline = System.nanoTime() - startNanos + Math.max(0, unit.toNanos(delay));
+        Timeout timeout = new Timeout(task, deadline);
+        numPending.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Gets the number of tasks that have been scheduled and have neither run
+     * nor been cancelled.
+     * @return the number of pending tasks
+     */
+    public long getNumPending() {
+        return numPending.get();
+    }
+
+    /**
+     * Stops the timer thread. Pending tasks are discarded.
+     */
+    @Override
+    public void close() {
+        stopped = true;
+        timerThread.interrupt();
+        if (Thread.currentThread() != timerThread) {
+            try {
+                timerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runTimer() {
+        List<Runnable> due = new ArrayList<>();
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            removeCancelled();
+            transferNewTimeouts();
+            wheel[(int) (tick & mask)].expire(due);
+            tick++;
+            dispatch(due);
+            due.clear();
+        }
+    }
+
+    /**
+     * Waits until the end of the current tick.
+     * @return false if the scheduler was closed while waiting
+     */
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        for (;;) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferNewTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.state != Timeout.ST_INIT) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void dispatch(List<Runnable> due) {
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Runnable> batch = new ArrayList<>(due.subList(from, Math.min(due.size(), from + batchSize)));
+            try {
+                taskExecutor.execute(() -> runAll(batch));
+            } catch (RejectedExecutionException e) {
+                log.log(Level.WARNING, "task executor rejected batch of " + batch.size() + " tasks", e);
+            }
+        }
+    }
+
+    private static void runAll(List<Runnable> batch) {
+        for (Runnable task : batch) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "scheduled task threw exception", e);
+            }
+        }
+    }
+
+    private final class Timeout implements ScheduledTask {
+
+        static final int ST_INIT = 0, ST_CANCELLED = 1, ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        volatile int state = ST_INIT;
+        long remainingRounds;
+        Timeout next, prev;
+        Bucket bucket;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            numPending.decrementAndGet();
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        boolean expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return false;
+            }
+            numPending.decrementAndGet();
+            return true;
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    /**
+     * Doubly-linked list of timeouts. Only accessed by the timer thread.
+     */
+    private static final class Bucket {
+
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(List<Runnable> due) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.expire()) {
+                        due.add(timeout.task);
+                    }
+                } else if (timeout.state == Timeout.ST_CANCELLED) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * Builder of timing wheel schedulers. By default, the tick duration is
+     * 10 milliseconds, the wheel has 512 buckets, and due tasks are run on
+     * the timer thread.
+     */
+    public static final class Builder {
+
+        private long tickNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int ticksPerWheel = 512;
+        private Executor taskExecutor = MoreExecutors.directExecutor();
+        private int batchSize = 256;
+
+        private Builder() {
+        }
+
+        public Builder tickDuration(long duration, TimeUnit unit) {
+            long nanos = unit.toNanos(duration);
+            checkArgument(nanos >= TimeUnit.MILLISECONDS.toNanos(1), "tick duration must be at least 1 millisecond");
+            tickNanos = nanos;
+            return this;
+        }
+
+        /**
+         * Sets the number of buckets in the wheel. The number is rounded up
+         * to a power of two.
+         * @param val the number of buckets
+         * @return this builder
+         */
+        public Builder ticksPerWheel(int val) {
+            checkArgument(val > 1 && val <= (1 << 30), "ticks per wheel must be in (1, 2^30]");
+            ticksPerWheel = val;
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs due tasks. Tasks that may block
+         * should be run by a pool, so that they do not delay the timer.
+         * @param val the executor
+         * @return this builder
+         */
+        public Builder taskExecutor(Executor val) {
+            taskExecutor = checkNotNull(val);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of due tasks submitted to the task
+         * executor as a single unit.
+         * @param val the batch size
+         * @return this builder
+         */
+        public Builder batchSize(int val) {
+            checkArgument(val > 0, "batch size must be positive");
+            batchSize = val;
+            return this;
+        }
+
+        public HashedWheelPollScheduler build() {
+            return new HashedWheelPollScheduler(this);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.mike10004.nativehelper.polling;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Interface for services that define the intervals between poll attempts.
+ * Implementations must be stateless with respect to a single poll, because
+ * an instance may be shared by many concurrent polls; the state of a poll
+ * is passed as the number of attempts so far.
+ */
+public interface PollSchedule {
+
+    /**
+     * Value returned by {@link #nextDelayMillis(int)} to indicate that no
+     * more attempts are to be made.
+     */
+    long STOP = -1;
+
+    /**
+     * Gets the interval to wait after the next poll attempt, if that attempt
+     * does not stop the poll.
+     * @param pollAttemptsSoFar the number of poll attempts prior to the next attempt
+     * @return the interval in milliseconds, or {@link #STOP} if the next attempt
+     * should not be made
+     */
+    long nextDelayMillis(int pollAttemptsSoFar);
+
+    /**
+     * Creates a schedule with a fixed interval between attempts.
+     * @param interval the interval
+     * @param maxNumPolls the maximum number of poll attempts
+     * @return the schedule
+     */
+    static PollSchedule fixed(Duration interval, int maxNumPolls) {
+        long intervalMs = interval.toMillis();
+        checkArgument(intervalMs > 0, "interval must be > 0, not %s", interval);
+        return attempts -> attempts < maxNumPolls ? intervalMs : STOP;
+    }
+
+    /**
+     * Creates a schedule whose interval grows exponentially from an initial
+     * interval up to a maximum interval.
+     * @param initial the interval after the first attempt
+     * @param multiplier the factor by which the interval grows after each attempt
+     * @param max the maximum interval
+     * @param maxNumPolls the maximum number of poll attempts
+     * @return the schedule
+     */
+    static PollSchedule exponential(Duration initial, double multiplier, Duration max, int maxNumPolls) {
+        long initialMs = initial.toMillis(), maxMs = max.toMillis();
+        checkArgument(initialMs > 0, "initial interval must be > 0, not %s", initial);
+        checkArgument(maxMs >= initialMs, "max interval must be >= initial interval");
+        checkArgument(multiplier >= 1, "multiplier must be >= 1, not %s", multiplier);
+        return attempts -> {
+            if (attempts >= maxNumPolls) {
+                return STOP;
+            }
+            double interval = initialMs * Math.pow(multiplier, attempts);
+            return interval >= maxMs ? maxMs : Math.max(1L, (long) interval);
+        };
+    }
+
+    /**
+     * Creates a schedule that randomizes the intervals of this schedule.
+     * Each interval is reduced by a random amount up to the given fraction
+     * of the interval, so that polls started at the same time spread out.
+     * @param fraction the maximum fraction of an interval to subtract, between 0 and 1
+     * @return the schedule
+     */
+    default PollSchedule withJitter(double fraction) {
+        checkArgument(fraction >= 0 && fraction <= 1, "fraction must be in [0, 1], not %s", fraction);
+        PollSchedule delegate = this;
+        return attempts -> {
+            long interval = delegate.nextDelayMillis(attempts);
+            if (interval <= 0) {
+                return interval;
+            }
+            long jitter = (long) (ThreadLocalRandom.current().nextDouble() * fraction * interval);
+            return Math.max(1L, interval - jitter);
+        };
+    }
+
+    /**
+     * Creates a schedule that follows this schedule for at most the given
+     * number of poll attempts.
+     * @param maxNumPolls the maximum number of poll attempts
+     * @return the schedule
+     */
+    default PollSchedule limit(int maxNumPolls) {
+        PollSchedule delegate = checkNotNull(this);
+        return attempts -> attempts < maxNumPolls ? delegate.nextDelayMillis(attempts) : STOP;
+    }
+}
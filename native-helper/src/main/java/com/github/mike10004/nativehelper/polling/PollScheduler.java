@@ -0,0 +1,34 @@
+package com.github.mike10004.nativehelper.polling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interface for services that run tasks after a delay on behalf of
+ * {@link AsyncPoller}s. Many polls share one scheduler, so tasks must
+ * be short; a poller whose checks may block should run them on a separate
+ * executor.
+ * @see ExecutorPollScheduler
+ */
+public interface PollScheduler {
+
+    /**
+     * Schedules a task.
+     * @param task the task
+     * @param delay the delay
+     * @param unit the delay unit
+     * @return a handle that can be used to cancel the task
+     */
+    ScheduledTask schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * Interface representing a scheduled task.
+     */
+    interface ScheduledTask {
+
+        /**
+         * Cancels the task if it has not run yet.
+         * @return true if the task was cancelled
+         */
+        boolean cancel();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Classes and interfaces relating to non-blocking polling for a condition.
+ */
+package com.github.mike10004.nativehelper.polling;
@@ -0,0 +1,90 @@
+package com.github.mike10004.nativehelper;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class CachingWhicherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static class ManualTicker extends Ticker {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            nanos.addAndGet(unit.toNanos(duration));
+        }
+    }
+
+    @Test
+    public void which() throws Exception {
+        System.out.println("which");
+        File dir = temporaryFolder.newFolder();
+        Files.touch(new File(dir, "foo"));
+        long oldTime = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(10);
+        assertTrue(dir.setLastModified(oldTime));
+        ManualTicker ticker = new ManualTicker();
+        CachingWhicher whicher = new CachingWhicher(ImmutableList.of(dir), File::isFile, new StandardWhicher.IdentityTransform(), Duration.ofSeconds(1), ticker, false);
+        assertEquals("foo", new File(dir, "foo"), whicher.which("foo").orElse(null));
+        assertFalse("bar", whicher.which("bar").isPresent());
+
+        Files.touch(new File(dir, "bar"));
+        assertTrue(dir.setLastModified(oldTime + 1000));
+        assertFalse("bar within recheck interval", whicher.which("bar").isPresent());
+        ticker.advance(2, TimeUnit.SECONDS);
+        assertEquals("bar after recheck interval", new File(dir, "bar"), whicher.which("bar").orElse(null));
+
+        Files.touch(new File(dir, "baz"));
+        assertTrue(dir.setLastModified(oldTime + 1000));
+        ticker.advance(2, TimeUnit.SECONDS);
+        assertFalse("baz with unchanged modification time", whicher.which("baz").isPresent());
+        whicher.invalidateAll();
+        assertTrue("baz after invalidation", whicher.which("baz").isPresent());
+    }
+
+    @Test
+    public void which_racyDirectory() throws Exception {
+        System.out.println("which_racyDirectory");
+        File dir = temporaryFolder.newFolder();
+        CachingWhicher whicher = new CachingWhicher(ImmutableList.of(dir), File::isFile, new StandardWhicher.IdentityTransform(), Duration.ofHours(1), new ManualTicker(), false);
+        assertFalse(whicher.which("foo").isPresent());
+        Files.touch(new File(dir, "foo"));
+        assertTrue("recently modified directory is relisted", whicher.which("foo").isPresent());
+    }
+
+    @Test
+    public void which_windowsSuffixes() throws Exception {
+        System.out.println("which_windowsSuffixes");
+        File dir = temporaryFolder.newFolder();
+        Files.touch(new File(dir, "Tool.EXE"));
+        CachingWhicher whicher = new CachingWhicher(ImmutableList.of(dir), File::isFile, new StandardWhicher.WindowsTransform(), Duration.ZERO, new ManualTicker(), true);
+        File result = whicher.which("tool").orElse(null);
+        System.out.println(result);
+        assertNotNull(result);
+    }
+
+    @Test
+    public void which_missingDirectory() {
+        System.out.println("which_missingDirectory");
+        File dir = new File(temporaryFolder.getRoot(), "nonexistent");
+        Whicher whicher = Whicher.builder(dir).buildCaching(Duration.ofSeconds(1));
+        assertFalse(whicher.which("foo").isPresent());
+    }
+}
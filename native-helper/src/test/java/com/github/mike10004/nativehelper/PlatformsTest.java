@@ -1,6 +1,8 @@
 package com.github.mike10004.nativehelper;
 
 import com.github.mike10004.nativehelper.Platforms.NullPlatform;
+import com.github.mike10004.nativehelper.Platforms.OsType;
+import com.github.mike10004.nativehelper.Platforms.UnsupportedPlatformException;
 import org.junit.Test;
 
 import java.io.File;
@@ -9,6 +11,10 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class PlatformsTest {
     
@@ -68,4 +74,55 @@ public class PlatformsTest {
             
         }
     }
+
+    @Test
+    public void getPlatform_detectedOnce() {
+        System.out.println("getPlatform_detectedOnce");
+        assertSame(Platforms.getPlatform(), Platforms.getPlatform());
+        PlatformSnapshot snapshot = Platforms.getSnapshot();
+        assertSame(snapshot, Platforms.getSnapshot());
+        assertEquals(Platforms.getPlatform().getOsType(), snapshot.getOsType());
+        PlatformSnapshot redetected = Platforms.redetect();
+        assertNotSame(snapshot, redetected);
+        assertSame(redetected, Platforms.getSnapshot());
+        assertEquals(snapshot.getOsType(), redetected.getOsType());
+    }
+
+    @Test
+    public void snapshot_linux() {
+        System.out.println("snapshot_linux");
+        Platform live = Platforms.getPlatform("Linux");
+        PlatformSnapshot snapshot = Platforms.snapshot("Linux");
+        System.out.println(snapshot);
+        assertEquals(OsType.LINUX, snapshot.getOsType());
+        assertTrue(snapshot.isLinux());
+        assertEquals(live.getSystemConfigDir(), snapshot.getSystemConfigDir());
+        assertEquals(live.getCommonProgramFilesDir("a", "b"), snapshot.getCommonProgramFilesDir("a", "b"));
+        assertEquals(live.getProgramDataDir("a"), snapshot.getProgramDataDir("a"));
+        assertEquals(live.getUserConfigDir("hello", "world"), snapshot.getUserConfigDir("hello", "world"));
+        String userHome = System.getProperty("user.home");
+        try {
+            System.setProperty("user.home", "/somewhere/else");
+            assertEquals("snapshot unaffected by property change", new File(userHome, ".hello"), snapshot.getUserConfigDir("hello"));
+        } finally {
+            System.setProperty("user.home", userHome);
+        }
+    }
+
+    @Test
+    public void getOsType() {
+        System.out.println("getOsType");
+        assertEquals(OsType.BSD, Platforms.getPlatform("FreeBSD").getOsType());
+        assertEquals(OsType.OSX, Platforms.getPlatform("Mac OS X").getOsType());
+        assertEquals(OsType.WINDOWS, Platforms.getPlatform("Windows 7").getOsType());
+        assertEquals(OsType.WINDOWS, Platforms.snapshot("Windows 7").getOsType());
+        assertEquals(OsType.UNKNOWN, Platforms.getPlatform("Plan 9").getOsType());
+        PlatformSnapshot unknown = Platforms.snapshot("Plan 9");
+        assertEquals(OsType.UNKNOWN, unknown.getOsType());
+        try {
+            unknown.getUserConfigDir("foo");
+            fail("should have thrown");
+        } catch (UnsupportedPlatformException expected) {
+        }
+    }
 }
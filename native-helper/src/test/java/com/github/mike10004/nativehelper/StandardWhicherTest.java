@@ -0,0 +1,44 @@
+package com.github.mike10004.nativehelper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class StandardWhicherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void whichAll() throws Exception {
+        System.out.println("whichAll");
+        File dir1 = temporaryFolder.newFolder(), dir2 = temporaryFolder.newFolder();
+        Files.touch(new File(dir1, "foo"));
+        Files.touch(new File(dir2, "foo"));
+        Files.touch(new File(dir2, "bar.bat"));
+        assertTrue(new File(dir1, "bar").mkdir());
+        ImmutableList<String> names = ImmutableList.of("foo", "bar", "baz", "foo");
+        for (Whicher whicher : ImmutableList.of(
+                Whicher.builder(dir1).in(dir2).in(new File(dir1, "nonexistent")).windowsSuffixes().build(),
+                Whicher.builder(dir1).in(dir2).windowsSuffixes().buildCaching(Duration.ofSeconds(1)))) {
+            Map<String, Optional<File>> results = whicher.whichAll(names);
+            System.out.format("%s: %s%n", whicher.getClass().getSimpleName(), results);
+            assertEquals("keys", ImmutableList.of("foo", "bar", "baz"), ImmutableList.copyOf(results.keySet()));
+            assertEquals("foo", Optional.of(new File(dir1, "foo")), results.get("foo"));
+            assertEquals("bar", Optional.of(new File(dir2, "bar.bat")), results.get("bar"));
+            assertEquals("baz", Optional.empty(), results.get("baz"));
+            for (String name : results.keySet()) {
+                assertEquals("consistent with which() for " + name, whicher.which(name), results.get(name));
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.mike10004.nativehelper.coprocess;
+
+import com.github.mike10004.nativehelper.Whicher;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CoprocessPoolTest {
+
+    private File catExecutable;
+
+    @Before
+    public void findCat() {
+        Optional<File> cat = Whicher.gnu().which("cat");
+        Assume.assumeTrue("cat not available", cat.isPresent());
+        catExecutable = cat.get();
+    }
+
+    private static String exchange(CoprocessPool pool, String request) throws Exception {
+        return new String(pool.execute(request.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void execute_lines() throws Exception {
+        System.out.println("execute_lines");
+        try (CoprocessPool pool = CoprocessPool.builder(catExecutable).maxWorkers(1).build()) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("request " + i, exchange(pool, "request " + i));
+            }
+            assertEquals("workers started", 1, pool.getNumStarted());
+            assertEquals("idle", 1, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    public void execute_lengthPrefixed() throws Exception {
+        System.out.println("execute_lengthPrefixed");
+        try (CoprocessPool pool = CoprocessPool.builder(catExecutable)
+                .framing(Framing.lengthPrefixed(1024 * 1024))
+                .maxWorkers(1)
+                .build()) {
+            assertEquals("multi\nline\nrequest", exchange(pool, "multi\nline\nrequest"));
+            assertEquals("", exchange(pool, ""));
+            byte[] big = new byte[100 * 1024];
+            for (int i = 0; i < big.length; i++) {
+                big[i] = (byte) i;
+            }
+            assertArrayEquals(big, pool.execute(big));
+        }
+    }
+
+    @Test
+    public void execute_recycleAfterMaxUses() throws Exception {
+        System.out.println("execute_recycleAfterMaxUses");
+        try (CoprocessPool pool = CoprocessPool.builder(catExecutable).maxWorkers(1).maxUsesPerWorker(3).build()) {
+            for (int i = 0; i < 7; i++) {
+                assertEquals("x" + i, exchange(pool, "x" + i));
+            }
+            assertEquals("workers started", 3, pool.getNumStarted());
+            assertEquals("live", 1, pool.getNumLive());
+        }
+    }
+
+    @Test
+    public void execute_workerDies() throws Exception {
+        System.out.println("execute_workerDies");
+        File trueExecutable = Whicher.gnu().which("true").orElse(null);
+        Assume.assumeTrue("true not available", trueExecutable != null);
+        try (CoprocessPool pool = CoprocessPool.builder(trueExecutable).maxWorkers(1).build()) {
+            try {
+                exchange(pool, "hello");
+                fail("should have thrown");
+            } catch (IOException expected) {
+                System.out.format("expected: %s%n", expected);
+            }
+            assertEquals("idle", 0, pool.getNumIdle());
+        }
+    }
+
+    @Test
+    public void execute_concurrent() throws Exception {
+        System.out.println("execute_concurrent");
+        int numRequests = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (CoprocessPool pool = CoprocessPool.builder(catExecutable).maxWorkers(2).maxUsesPerWorker(25).build()) {
+            pool.prestart(2);
+            assertEquals("idle after prestart", 2, pool.getNumIdle());
+            List<Future<String>> futures = new ArrayList<>(numRequests);
+            for (int i = 0; i < numRequests; i++) {
+                String request = "request " + i;
+                futures.add(executor.submit(() -> exchange(pool, request)));
+            }
+            for (int i = 0; i < numRequests; i++) {
+                assertEquals("request " + i, futures.get(i).get(30, TimeUnit.SECONDS));
+            }
+            System.out.format("%d workers started%n", pool.getNumStarted());
+            assertTrue("workers started " + pool.getNumStarted(), pool.getNumStarted() >= numRequests / 25);
+            assertTrue("idle " + pool.getNumIdle(), pool.getNumIdle() <= 2);
+            assertTrue("live " + pool.getNumLive(), pool.getNumLive() <= 2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void prestart_limitedToMaxWorkers() throws Exception {
+        System.out.println("prestart_limitedToMaxWorkers");
+        try (CoprocessPool pool = CoprocessPool.builder(catExecutable).maxWorkers(2).build()) {
+            pool.prestart(6);
+            System.out.format("started=%d idle=%d%n", pool.getNumStarted(), pool.getNumIdle());
+            assertEquals("workers started", 2, pool.getNumStarted());
+            assertEquals("idle", 2, pool.getNumIdle());
+            assertEquals("live", 2, pool.getNumLive());
+            assertEquals("hello", exchange(pool, "hello"));
+            pool.prestart(6);
+            assertEquals("workers started after use", 2, pool.getNumStarted());
+        }
+    }
+}
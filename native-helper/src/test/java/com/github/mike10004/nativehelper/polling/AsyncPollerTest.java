@@ -0,0 +1,146 @@
+package com.github.mike10004.nativehelper.polling;
+
+import com.github.mike10004.nativehelper.polling.AsyncPoller.PollOutcome;
+import com.github.mike10004.nativehelper.polling.AsyncPoller.StopReason;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncPollerTest {
+
+    private ExecutorPollScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = ExecutorPollScheduler.create(1);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.getExecutorService().shutdownNow();
+    }
+
+    private AsyncPoller<String> resolvingAfter(int numContinues) {
+        return new AsyncPoller<String>(scheduler) {
+            @Override
+            protected PollAnswer<String> check(int pollAttemptsSoFar) {
+                return pollAttemptsSoFar < numContinues ? continuePolling() : resolve("done");
+            }
+        };
+    }
+
+    @Test
+    public void poll_resolve() throws Exception {
+        System.out.println("poll_resolve");
+        PollOutcome<String> outcome = resolvingAfter(2).poll(PollSchedule.fixed(Duration.ofMillis(10), 100)).get(5, TimeUnit.SECONDS);
+        System.out.println(outcome);
+        assertEquals(StopReason.RESOLVED, outcome.reason);
+        assertEquals("done", outcome.content);
+        assertEquals(3, outcome.getNumAttempts());
+    }
+
+    @Test
+    public void poll_abort() throws Exception {
+        System.out.println("poll_abort");
+        AsyncPoller<String> poller = new AsyncPoller<String>(scheduler) {
+            @Override
+            protected PollAnswer<String> check(int pollAttemptsSoFar) {
+                return abortPolling("why");
+            }
+        };
+        PollOutcome<String> outcome = poller.poll(PollSchedule.fixed(Duration.ofMillis(10), 100)).get(5, TimeUnit.SECONDS);
+        assertEquals(StopReason.ABORTED, outcome.reason);
+        assertEquals("why", outcome.content);
+        assertEquals(1, outcome.getNumAttempts());
+    }
+
+    @Test
+    public void poll_scheduleExhausted() throws Exception {
+        System.out.println("poll_scheduleExhausted");
+        PollOutcome<String> outcome = resolvingAfter(Integer.MAX_VALUE).poll(PollSchedule.fixed(Duration.ofMillis(5), 3)).get(5, TimeUnit.SECONDS);
+        System.out.println(outcome);
+        assertEquals(StopReason.TIMEOUT, outcome.reason);
+        assertEquals(3, outcome.getNumAttempts());
+    }
+
+    @Test
+    public void poll_deadline() throws Exception {
+        System.out.println("poll_deadline");
+        PollOutcome<String> outcome = resolvingAfter(Integer.MAX_VALUE)
+                .poll(PollSchedule.fixed(Duration.ofMillis(50), 1000), Duration.ofMillis(120))
+                .get(5, TimeUnit.SECONDS);
+        System.out.println(outcome);
+        assertEquals(StopReason.TIMEOUT, outcome.reason);
+        assertTrue("attempts " + outcome.getNumAttempts(), outcome.getNumAttempts() >= 1 && outcome.getNumAttempts() <= 3);
+        assertTrue("duration " + outcome.duration, outcome.duration.toMillis() < 1000);
+    }
+
+    @Test
+    public void poll_cancel() throws Exception {
+        System.out.println("poll_cancel");
+        AtomicInteger checks = new AtomicInteger();
+        AsyncPoller<Void> poller = AsyncPoller.checking(scheduler, () -> {
+            checks.incrementAndGet();
+            return false;
+        });
+        CompletableFuture<PollOutcome<Void>> future = poller.poll(PollSchedule.fixed(Duration.ofMillis(20), 1000));
+        Thread.sleep(50);
+        assertTrue(future.cancel(true));
+        int checksAtCancel = checks.get();
+        Thread.sleep(100);
+        assertTrue("checks after cancel", checks.get() <= checksAtCancel + 1);
+    }
+
+    @Test
+    public void poll_manyConcurrent() throws Exception {
+        System.out.println("poll_manyConcurrent");
+        int numPolls = 2000;
+        PollSchedule schedule = PollSchedule.exponential(Duration.ofMillis(5), 2, Duration.ofMillis(40), 10).withJitter(0.5);
+        List<CompletableFuture<PollOutcome<String>>> futures = new ArrayList<>(numPolls);
+        for (int i = 0; i < numPolls; i++) {
+            futures.add(resolvingAfter(i % 4).poll(schedule));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        for (int i = 0; i < numPolls; i++) {
+            PollOutcome<String> outcome = futures.get(i).get();
+            assertEquals(StopReason.RESOLVED, outcome.reason);
+            assertEquals(i % 4 + 1, outcome.getNumAttempts());
+        }
+    }
+
+    @Test
+    public void poll_checkThrows() throws Exception {
+        System.out.println("poll_checkThrows");
+        AsyncPoller<Void> poller = AsyncPoller.checking(scheduler, () -> {
+            throw new IllegalStateException("oops");
+        });
+        CompletableFuture<PollOutcome<Void>> future = poller.poll(PollSchedule.fixed(Duration.ofMillis(5), 3));
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void exponential() {
+        System.out.println("exponential");
+        PollSchedule schedule = PollSchedule.exponential(Duration.ofMillis(10), 2, Duration.ofMillis(50), 5);
+        long[] expected = {10, 20, 40, 50, 50, PollSchedule.STOP};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("attempt " + i, expected[i], schedule.nextDelayMillis(i));
+        }
+        PollSchedule jittered = schedule.withJitter(0.5);
+        for (int i = 0; i < 100; i++) {
+            long delay = jittered.nextDelayMillis(1);
+            assertTrue("jittered " + delay, delay >= 10 && delay <= 20);
+        }
+        assertEquals(PollSchedule.STOP, jittered.nextDelayMillis(5));
+        assertEquals(PollSchedule.STOP, schedule.limit(2).nextDelayMillis(2));
+    }
+}
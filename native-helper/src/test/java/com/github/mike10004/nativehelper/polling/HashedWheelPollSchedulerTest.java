@@ -0,0 +1,92 @@
+package com.github.mike10004.nativehelper.polling;
+
+import com.github.mike10004.nativehelper.polling.AsyncPoller.PollOutcome;
+import com.github.mike10004.nativehelper.polling.AsyncPoller.StopReason;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelPollSchedulerTest {
+
+    private HashedWheelPollScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = HashedWheelPollScheduler.builder()
+                .tickDuration(1, TimeUnit.MILLISECONDS)
+                .ticksPerWheel(8)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    public void schedule_notEarly() throws Exception {
+        System.out.println("schedule_notEarly");
+        long[] delaysMs = {0, 1, 3, 7, 8, 9, 25, 60};
+        CountDownLatch latch = new CountDownLatch(delaysMs.length);
+        AtomicInteger early = new AtomicInteger();
+        for (long delayMs : delaysMs) {
+            long start = System.nanoTime();
+            scheduler.schedule(() -> {
+                if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delayMs)) {
+                    early.incrementAndGet();
+                }
+                latch.countDown();
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+        assertTrue("all tasks run", latch.await(5, TimeUnit.SECONDS));
+        assertEquals("tasks run early", 0, early.get());
+        assertEquals("pending", 0L, scheduler.getNumPending());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        System.out.println("cancel");
+        AtomicBoolean ran = new AtomicBoolean();
+        PollScheduler.ScheduledTask task = scheduler.schedule(() -> ran.set(true), 20, TimeUnit.MILLISECONDS);
+        assertEquals("pending", 1L, scheduler.getNumPending());
+        assertTrue("cancelled", task.cancel());
+        assertFalse("cancelled twice", task.cancel());
+        assertEquals("pending after cancel", 0L, scheduler.getNumPending());
+        Thread.sleep(60);
+        assertFalse("ran", ran.get());
+    }
+
+    @Test
+    public void manyPolls() throws Exception {
+        System.out.println("manyPolls");
+        int numPolls = 10_000;
+        PollSchedule schedule = PollSchedule.fixed(Duration.ofMillis(5), 10).withJitter(0.5);
+        List<CompletableFuture<PollOutcome<Void>>> futures = new ArrayList<>(numPolls);
+        for (int i = 0; i < numPolls; i++) {
+            int numContinues = i % 3;
+            futures.add(new AsyncPoller<Void>(scheduler) {
+                @Override
+                protected PollAnswer<Void> check(int pollAttemptsSoFar) {
+                    return pollAttemptsSoFar < numContinues ? continuePolling() : resolve(null);
+                }
+            }.poll(schedule));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        for (int i = 0; i < numPolls; i++) {
+            PollOutcome<Void> outcome = futures.get(i).get();
+            assertEquals(StopReason.RESOLVED, outcome.reason);
+            assertEquals(i % 3 + 1, outcome.getNumAttempts());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.mike10004.nativehelper.polling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Program that compares the cost of scheduling and cancelling tasks on an
+ * {@link ExecutorPollScheduler} and a {@link HashedWheelPollScheduler} with
+ * many pending tasks. Run it with the numbers of pending tasks as arguments;
+ * the defaults are 10,000, 100,000 and 1,000,000. Use a large heap for
+ * the largest sizes.
+ */
+public class PollSchedulerBenchmark {
+
+    private static final long MAX_DELAY_MS = 60_000;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = {10_000, 100_000, 1_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        System.out.format("%-10s %10s %14s %14s %14s%n", "scheduler", "pending", "schedule ns/op", "cancel ns/op", "fire ms");
+        for (int size : sizes) {
+            for (int trial = 0; trial < 2; trial++) {
+                boolean print = trial > 0; // first trial is warmup
+                run("executor", size, print, () -> ExecutorPollScheduler.create(1));
+                run("wheel", size, print, () -> HashedWheelPollScheduler.builder().tickDuration(10, TimeUnit.MILLISECONDS).build());
+            }
+        }
+    }
+
+    private static void run(String name, int size, boolean print, Supplier<PollScheduler> factory) throws InterruptedException {
+        PollScheduler scheduler = factory.get();
+        try {
+            Runnable noop = () -> {};
+            List<PollScheduler.ScheduledTask> tasks = new ArrayList<>(size);
+            long start = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                long delay = 1000 + ThreadLocalRandom.current().nextLong(MAX_DELAY_MS);
+                tasks.add(scheduler.schedule(noop, delay, TimeUnit.MILLISECONDS));
+            }
+            long scheduleNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (PollScheduler.ScheduledTask task : tasks) {
+                task.cancel();
+            }
+            long cancelNanos = System.nanoTime() - start;
+            tasks.clear();
+            int numFire = Math.min(size, 100_000);
+            CountDownLatch latch = new CountDownLatch(numFire);
+            start = System.nanoTime();
+            for (int i = 0; i < numFire; i++) {
+                scheduler.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+            }
+            latch.await(60, TimeUnit.SECONDS);
+            long fireMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (print) {
+                System.out.format("%-10s %10d %14d %14d %14d%n", name, size, scheduleNanos / size, cancelNanos / size, fireMillis);
+            }
+        } finally {
+            if (scheduler instanceof HashedWheelPollScheduler) {
+                ((HashedWheelPollScheduler) scheduler).close();
+            } else {
+                ((ExecutorPollScheduler) scheduler).getExecutorService().shutdownNow();
+            }
+        }
+    }
+}
@@ -10,24 +10,57 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.junit.rules.ExternalResource;
 
 /**
  * Connection source that creates a new unique schema on initialization and 
- * drops the schema on close.
+ * drops the schema on close. Alternatively, if constructed with a
+ * {@link MysqlSchemaPool}, the rule leases a schema from the pool before
+ * each test and returns it afterwards.
  */
 public class MysqlConnectionSourceRule extends ExternalResource {
 
     private final ConnectionParams persistentParams;
     private MysqlConnectionSource connectionSource;
     private final Function<ConnectionParams, MysqlConnectionSource> connectionSourceCreator;
-    
+    @Nullable
+    private final MysqlSchemaPool schemaPool;
+    private MysqlSchemaPool.Lease lease;
+
     public MysqlConnectionSourceRule(ConnectionParams persistentParams, Function<ConnectionParams, MysqlConnectionSource> connectionSourceCreator) {
+        this(persistentParams, connectionSourceCreator, null);
+    }
+
+    /**
+     * Constructs a rule that leases schemas from a pool.
+     * @param persistentParams the connection parameters, minus the schema
+     * @param connectionSourceCreator the connection source creator
+     * @param schemaPool the schema pool, or null to create and drop a unique schema for each test
+     */
+    public MysqlConnectionSourceRule(ConnectionParams persistentParams, Function<ConnectionParams, MysqlConnectionSource> connectionSourceCreator, @Nullable MysqlSchemaPool schemaPool) {
         super();
         this.connectionSourceCreator = checkNotNull(connectionSourceCreator, "connectionSourceCreator");
         this.persistentParams = checkNotNull(persistentParams, "persistentParams");
+        this.schemaPool = schemaPool;
     }
 
+    /**
+     * Constructs a rule that leases schemas from a pool, using the default
+     * connection source creator.
+     * @param persistentParams the connection parameters, minus the schema
+     * @param schemaPool the schema pool
+     */
+    public MysqlConnectionSourceRule(ConnectionParams persistentParams, MysqlSchemaPool schemaPool) {
+        this(persistentParams, newDefaultConnectionSourceCreator(), checkNotNull(schemaPool, "schemaPool"));
+    }
+
+    /**
+     * Maximum time to wait for a schema from the pool.
+     */
+    private static final long LEASE_TIMEOUT_SECONDS = 60;
+
     public MysqlConnectionSourceRule(int port, Function<ConnectionParams, MysqlConnectionSource> connectionSourceCreator) {
         this(newDefaultIntegrationTestConnectionParams(port), connectionSourceCreator);
     }
@@ -101,6 +134,12 @@ public class MysqlConnectionSourceRule extends ExternalResource {
 
     @Override
     protected void after() {
+        MysqlSchemaPool.Lease currentLease = lease;
+        if (currentLease != null) {
+            lease = null;
+            currentLease.close();
+            return;
+        }
         try {
             dropSchemaIfExists();
         } catch (SQLException ex) {
@@ -110,6 +149,11 @@ public class MysqlConnectionSourceRule extends ExternalResource {
 
     @Override
     protected void before() throws Throwable {
+        if (schemaPool != null) {
+            lease = schemaPool.lease(LEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            connectionSource = connectionSourceCreator.apply(newConnectionParams(lease.getSchema()));
+            return;
+        }
         ConnectionParams currentParams = newConnectionParams(newUniqueSchemaName());
         connectionSource = connectionSourceCreator.apply(currentParams);
         createSchema(currentParams);
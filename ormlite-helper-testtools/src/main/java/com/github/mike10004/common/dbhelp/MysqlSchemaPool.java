@@ -0,0 +1,256 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.CharMatcher;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Pool of reusable MySQL schemas for tests. Instead of creating and dropping
+ * a schema for each test, a test leases a schema from the pool, and the
+ * schema is reset when it is next leased. Schemas are named with a common
+ * prefix and a number, and are created on first use.
+ *
+ * <p>Leases are guarded by MySQL named locks, held on a dedicated
+ * connection for the duration of the lease, so that test forks running in
+ * separate processes can share a pool with the same prefix safely. If a
+ * process dies, the server releases its locks when the connection drops,
+ * and the schema is reset by the next lease.</p>
+ * @see MysqlConnectionSourceRule#MysqlConnectionSourceRule(ConnectionParams, java.util.function.Function, MysqlSchemaPool)
+ */
+@ThreadSafe
+public class MysqlSchemaPool {
+
+    /**
+     * Enumeration of ways to reset a schema when it is leased.
+     */
+    public enum ResetMode {
+
+        /**
+         * Truncate every table, keeping the tables. Use this when tests create
+         * their tables only if they do not exist.
+         */
+        TRUNCATE,
+
+        /**
+         * Drop every table, keeping the schema.
+         */
+        DROP_TABLES
+    }
+
+    private static final long RETRY_INTERVAL_MILLIS = 50;
+
+    private static final CharMatcher allowedPrefixChars = CharMatcher.inRange('a', 'z')
+            .or(CharMatcher.inRange('A', 'Z')).or(CharMatcher.inRange('0', '9')).or(CharMatcher.is('_'));
+
+    private final ConnectionParams adminParams;
+    private final String prefix;
+    private final int maxSize;
+    private final ResetMode resetMode;
+
+    /**
+     * Constructs an instance.
+     * @param adminParams parameters for connecting to the server as a user that may create schemas; the schema field is ignored
+     * @param prefix schema name prefix, consisting of letters, digits, and underscores
+     * @param maxSize maximum number of schemas in the pool
+     * @param resetMode how to reset a schema when it is leased
+     */
+    public MysqlSchemaPool(ConnectionParams adminParams, String prefix, int maxSize, ResetMode resetMode) {
+        this.adminParams = checkNotNull(adminParams, "adminParams").copy();
+        this.prefix = checkNotNull(prefix, "prefix");
+        checkArgument(!prefix.isEmpty() && allowedPrefixChars.matchesAllOf(prefix), "prefix must consist of letters, digits, and underscores");
+        checkArgument(prefix.length() <= 48, "prefix too long");
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        this.maxSize = maxSize;
+        this.resetMode = checkNotNull(resetMode, "resetMode");
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    protected String getSchemaName(int index) {
+        return prefix + "_" + index;
+    }
+
+    protected Connection openServerConnection() throws SQLException {
+        return DriverManager.getConnection("jdbc:mysql://" + adminParams.host + "/", adminParams.username, adminParams.password);
+    }
+
+    /**
+     * Leases a schema, waiting up to a given time for one to become available.
+     * @param timeout the maximum time to wait
+     * @param unit the timeout unit
+     * @return the lease; close it to return the schema to the pool
+     * @throws SQLException if no schema becomes available within the timeout or on database error
+     */
+    public Lease lease(long timeout, TimeUnit unit) throws SQLException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Connection lockConnection = openServerConnection();
+            try {
+                for (int i = 0; i < maxSize; i++) {
+                    String schema = getSchemaName(i);
+                    if (tryLock(lockConnection, schema)) {
+                        Lease lease = new Lease(schema, lockConnection);
+                        try {
+                            prepareSchema(lockConnection, schema);
+                        } catch (SQLException | RuntimeException e) {
+                            lease.close();
+                            throw e;
+                        }
+                        return lease;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                closeQuietly(lockConnection);
+                throw e;
+            }
+            closeQuietly(lockConnection);
+            if (System.nanoTime() - deadline >= 0) {
+                throw new SQLException("no schema available in pool " + prefix + " within " + timeout + " " + unit);
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("interrupted while waiting for schema", e);
+            }
+        }
+    }
+
+    private static boolean tryLock(Connection conn, String schema) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+            stmt.setString(1, lockName(schema));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static String lockName(String schema) {
+        return "schema-pool:" + schema;
+    }
+
+    private void prepareSchema(Connection conn, String schema) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT TABLE_NAME FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'")) {
+            stmt.setString(1, schema);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA IF NOT EXISTS `" + schema + "`");
+            if (tables.isEmpty()) {
+                return;
+            }
+            stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            try {
+                for (String table : tables) {
+                    String qualifiedName = "`" + schema + "`.`" + table.replace("`", "``") + "`";
+                    if (resetMode == ResetMode.TRUNCATE) {
+                        stmt.execute("TRUNCATE TABLE " + qualifiedName);
+                    } else {
+                        stmt.execute("DROP TABLE " + qualifiedName);
+                    }
+                }
+            } finally {
+                stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
+            }
+        }
+    }
+
+    /**
+     * Drops all schemas in the pool that are not currently leased.
+     * @throws SQLException on database error
+     */
+    public void dropAll() throws SQLException {
+        try (Connection conn = openServerConnection();
+             Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < maxSize; i++) {
+                String schema = getSchemaName(i);
+                if (tryLock(conn, schema)) {
+                    try {
+                        stmt.execute("DROP SCHEMA IF EXISTS `" + schema + "`");
+                    } finally {
+                        releaseLock(conn, schema);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn, String schema) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, lockName(schema));
+            stmt.executeQuery().close();
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignore) {
+        }
+    }
+
+    /**
+     * Lease of a schema from a pool.
+     */
+    public final class Lease implements Closeable {
+
+        private final String schema;
+        private final Connection lockConnection;
+        private boolean closed;
+
+        private Lease(String schema, Connection lockConnection) {
+            this.schema = schema;
+            this.lockConnection = lockConnection;
+        }
+
+        public String getSchema() {
+            return schema;
+        }
+
+        /**
+         * Creates connection parameters for the leased schema.
+         * @return a new connection parameters instance
+         */
+        public ConnectionParams getConnectionParams() {
+            ConnectionParams cp = adminParams.copy();
+            cp.schema = schema;
+            return cp;
+        }
+
+        /**
+         * Returns the schema to the pool. The schema's content is left in
+         * place until the schema is next leased.
+         */
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                closeQuietly(lockConnection); // releases the named lock
+            }
+        }
+    }
+}
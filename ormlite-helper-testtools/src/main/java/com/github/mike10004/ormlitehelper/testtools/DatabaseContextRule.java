@@ -43,7 +43,8 @@ public abstract class DatabaseContextRule extends ExternalResource {
     }
 
     /**
-     * Gets the connection source created
+     * Gets the connection source created. If any of the bookend operations
+     * is a {@link ConnectionSourceDecorator}, this is the decorated source.
      * @return the connection source
      */
     public ConnectionSource getConnectionSource() {
@@ -88,7 +89,11 @@ public abstract class DatabaseContextRule extends ExternalResource {
 
     @Override
     protected void before() throws Exception {
-        connectionSource = createConnectionSource();
+        ConnectionSource connectionSource = createConnectionSource();
+        for (ConnectionSourceDecorator decorator : Iterables.filter(bookendOperations, ConnectionSourceDecorator.class)) {
+            connectionSource = decorator.decorate(connectionSource);
+        }
+        this.connectionSource = connectionSource;
         databaseContext = createDatabaseContext(connectionSource);
         for (SetupOperation action : Iterables.filter(bookendOperations, SetupOperation.class)) {
             action.perform(databaseContext);
@@ -96,6 +101,16 @@ public abstract class DatabaseContextRule extends ExternalResource {
 
     }
 
+    /**
+     * Interface for bookend operations that need to observe the statements
+     * executed during the test. Before the database context is created, the
+     * connection source is passed to each bookend operation that implements
+     * this interface, and the context is created with the decorated source.
+     */
+    public interface ConnectionSourceDecorator {
+        ConnectionSource decorate(ConnectionSource connectionSource);
+    }
+
     /**
      * Interface representing an operation to be performed
      * either before or after the test. These operations are
@@ -3,26 +3,43 @@ package com.github.mike10004.ormlitehelper.testtools;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import com.google.common.io.CharSource;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.io.FilenameUtils;
+import org.h2.util.ScriptReader;
 
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -141,12 +158,14 @@ public class H2 {
             Preconditions.checkNotNull(outputH2SqlFile);
             Preconditions.checkNotNull(url);
             org.h2.Driver.load();
-            String outputPathname = outputH2SqlFile.getAbsolutePath();
-            outputPathname = FilenameUtils.normalize(outputPathname, true); // use unix separators
-            Preconditions.checkArgument(CharMatcher.anyOf("'\"`").matchesNoneOf(outputPathname),
-                    "output path must not contain quotation characters");
+            String statementStr = buildScriptStatement(dumpOptions, outputH2SqlFile, tables);
+            executeScriptStatement(url, username, password, statementStr, isVerbose());
+        }
+
+        private String buildScriptStatement(Set<DumpOption> options, File outputH2SqlFile, Iterable<String> tables) {
+            String outputPathname = toScriptPathname(outputH2SqlFile);
             StringBuilder statementBuilder = new StringBuilder("SCRIPT ");
-            Iterable<DumpOption> sortedDumpOptions = Ordering.<DumpOption>natural().immutableSortedCopy(dumpOptions);
+            Iterable<DumpOption> sortedDumpOptions = Ordering.<DumpOption>natural().immutableSortedCopy(options);
             Joiner.on(' ').appendTo(statementBuilder, Iterables.transform(sortedDumpOptions, DumpOption.toClauseFunction()::apply));
             statementBuilder.append(" TO '").append(outputPathname).append("' ");
             if (compression != Compression.NONE) {
@@ -154,12 +173,15 @@ public class H2 {
                         .append(compression.name()).append(' ');
             }
             statementBuilder.append(" CHARSET '").append(charset.name()).append("' ");
-            if (!tables.isEmpty()) {
+            if (!Iterables.isEmpty(tables)) {
                 statementBuilder.append(" TABLE ");
                 Joiner.on(", ").appendTo(statementBuilder, tables);
             }
-            String statementStr = statementBuilder.toString();
-            if (isVerbose()) {
+            return statementBuilder.toString();
+        }
+
+        private static void executeScriptStatement(String url, @Nullable String username, @Nullable String password, String statementStr, boolean verbose) throws SQLException {
+            if (verbose) {
                 System.out.println(statementStr);
             }
             try (Connection conn = DriverManager.getConnection(url, username, password);
@@ -168,6 +190,243 @@ public class H2 {
                 rs.close();
             }
         }
+
+        private static String toScriptPathname(File file) {
+            String pathname = file.getAbsolutePath();
+            pathname = FilenameUtils.normalize(pathname, true); // use unix separators
+            Preconditions.checkArgument(CharMatcher.anyOf("'\"`").matchesNoneOf(pathname),
+                    "output path must not contain quotation characters");
+            return pathname;
+        }
+
+        /**
+         * Name of the schema file written by {@link #dumpParallel(String, String, String, File, int)}.
+         */
+        public static final String PARALLEL_SCHEMA_FILENAME = "schema.h2.sql";
+
+        /**
+         * Name of the manifest file written by {@link #dumpParallel(String, String, String, File, int)}.
+         */
+        public static final String PARALLEL_MANIFEST_FILENAME = "dump.properties";
+
+        /**
+         * Dumps the database at a given JDBC URL to a directory, using a pool
+         * of worker threads. A schema-only script is written to
+         * {@link #PARALLEL_SCHEMA_FILENAME}, and each table's data is written
+         * to its own script file by a separate worker. The tables dumped are
+         * those specified by {@link #setTables(String, String...)}, or all
+         * tables if none are specified. The {@link DumpOption#NODATA} and
+         * {@link DumpOption#DROP} options apply to the schema file only.
+         * The output is restored with {@link #restoreParallel(String, String, String, File, int)}.
+         *
+         * <p><b>The dump is not a consistent snapshot.</b> The schema and each
+         * table are dumped by separate statements on separate connections,
+         * so changes committed while the dump is in progress may appear in
+         * some files and not others. The source database must be quiescent,
+         * with no concurrent writers, for the duration of the dump; otherwise
+         * use {@link #dump(String, String, String, File)}, which dumps in a
+         * single statement.</p>
+         * @param url the JDBC URL
+         * @param username the username to use, or null for none
+         * @param password the password to use, or null for none
+         * @param outputDir the directory to write files to
+         * @param threads the number of worker threads
+         * @throws IOException on I/O error
+         * @throws SQLException on database error
+         */
+        public synchronized void dumpParallel(String url, @Nullable String username, @Nullable String password, File outputDir, int threads) throws IOException, SQLException {
+            Preconditions.checkNotNull(url);
+            Preconditions.checkNotNull(outputDir);
+            Preconditions.checkArgument(threads > 0, "threads must be positive");
+            org.h2.Driver.load();
+            java.nio.file.Files.createDirectories(outputDir.toPath());
+            List<String> tableNames = tables.isEmpty() ? listTables(url, username, password) : ImmutableList.copyOf(tables);
+            EnumSet<DumpOption> schemaOptions = EnumSet.copyOf(dumpOptions);
+            schemaOptions.add(DumpOption.NODATA);
+            boolean verbose = isVerbose();
+            executeScriptStatement(url, username, password, buildScriptStatement(schemaOptions, new File(outputDir, PARALLEL_SCHEMA_FILENAME), tables), verbose);
+            EnumSet<DumpOption> dataOptions = EnumSet.copyOf(dumpOptions);
+            dataOptions.removeAll(EnumSet.of(DumpOption.NODATA, DumpOption.DROP));
+            Properties manifest = new Properties();
+            manifest.setProperty("compression", compression.name());
+            manifest.setProperty("charset", charset.name());
+            manifest.setProperty("table.count", String.valueOf(tableNames.size()));
+            List<Callable<Void>> tasks = new ArrayList<>(tableNames.size());
+            for (int i = 0; i < tableNames.size(); i++) {
+                String tableName = tableNames.get(i);
+                String filename = String.format("data-%d.h2.sql", i);
+                manifest.setProperty("table." + i + ".name", tableName);
+                manifest.setProperty("table." + i + ".file", filename);
+                String statementStr = buildScriptStatement(dataOptions, new File(outputDir, filename), ImmutableList.of(tableName));
+                tasks.add(() -> {
+                    executeScriptStatement(url, username, password, statementStr, verbose);
+                    return null;
+                });
+            }
+            invokeAll(tasks, threads, "h2-dumper-%d");
+            try (Writer writer = java.nio.file.Files.newBufferedWriter(new File(outputDir, PARALLEL_MANIFEST_FILENAME).toPath(), StandardCharsets.UTF_8)) {
+                manifest.store(writer, null);
+            }
+        }
+
+        private static List<String> listTables(String url, @Nullable String username, @Nullable String password) throws SQLException {
+            List<String> tableNames = new ArrayList<>();
+            try (Connection conn = DriverManager.getConnection(url, username, password);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.TABLES"
+                         + " WHERE TABLE_TYPE = 'TABLE' AND TABLE_SCHEMA <> 'INFORMATION_SCHEMA' ORDER BY TABLE_SCHEMA, TABLE_NAME")) {
+                while (rs.next()) {
+                    tableNames.add(quoteIdentifier(rs.getString(1)) + "." + quoteIdentifier(rs.getString(2)));
+                }
+            }
+            return tableNames;
+        }
+
+        private static String quoteIdentifier(String identifier) {
+            return '"' + identifier.replace("\"", "\"\"") + '"';
+        }
+
+        /**
+         * Restores a database from a directory written by
+         * {@link #dumpParallel(String, String, String, File, int)}. The schema
+         * script is run first, and then the data files are loaded concurrently
+         * by a pool of worker threads, each on its own connection. Referential
+         * integrity checking is disabled while data files are loaded. Tables
+         * with large object columns are loaded one at a time after the others,
+         * because H2 scripts stage large objects in a shared temporary table.
+         * @param url the JDBC URL of the database to restore into
+         * @param username the username to use, or null for none
+         * @param password the password to use, or null for none
+         * @param dumpDir the directory containing the dump
+         * @param threads the number of worker threads
+         * @throws IOException on I/O error
+         * @throws SQLException on database error
+         */
+        public static void restoreParallel(String url, @Nullable String username, @Nullable String password, File dumpDir, int threads) throws IOException, SQLException {
+            Preconditions.checkNotNull(url);
+            Preconditions.checkNotNull(dumpDir);
+            Preconditions.checkArgument(threads > 0, "threads must be positive");
+            org.h2.Driver.load();
+            Properties manifest = new Properties();
+            try (Reader reader = java.nio.file.Files.newBufferedReader(new File(dumpDir, PARALLEL_MANIFEST_FILENAME).toPath(), StandardCharsets.UTF_8)) {
+                manifest.load(reader);
+            }
+            Compression compression = Compression.valueOf(manifest.getProperty("compression"));
+            Charset charset = Charset.forName(manifest.getProperty("charset"));
+            int tableCount = Integer.parseInt(manifest.getProperty("table.count"));
+            try (Connection conn = DriverManager.getConnection(url, username, password);
+                 Statement stmt = conn.createStatement()) {
+                StringBuilder runscript = new StringBuilder("RUNSCRIPT FROM '")
+                        .append(toScriptPathname(new File(dumpDir, PARALLEL_SCHEMA_FILENAME))).append("' ");
+                if (compression != Compression.NONE) {
+                    runscript.append(" COMPRESSION ").append(compression.name()).append(' ');
+                }
+                runscript.append(" CHARSET '").append(charset.name()).append("'");
+                stmt.execute(runscript.toString());
+                Set<String> lobTables = listLobTables(conn);
+                List<Callable<Void>> parallelTasks = new ArrayList<>(), serialTasks = new ArrayList<>();
+                for (int i = 0; i < tableCount; i++) {
+                    String tableName = manifest.getProperty("table." + i + ".name");
+                    File dataFile = new File(dumpDir, manifest.getProperty("table." + i + ".file"));
+                    Callable<Void> task = () -> {
+                        loadDataFile(url, username, password, dataFile, compression, charset);
+                        return null;
+                    };
+                    if (lobTables.contains(normalizeTableName(tableName))) {
+                        serialTasks.add(task);
+                    } else {
+                        parallelTasks.add(task);
+                    }
+                }
+                stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                try {
+                    invokeAll(parallelTasks, threads, "h2-restorer-%d");
+                    invokeAll(serialTasks, 1, "h2-restorer-lob-%d");
+                } finally {
+                    stmt.execute("SET REFERENTIAL_INTEGRITY TRUE");
+                }
+            }
+        }
+
+        private static String normalizeTableName(String tableName) {
+            String name = tableName.contains(".") ? tableName : "\"PUBLIC\"." + tableName;
+            return name.replace("\"", "").toUpperCase(Locale.ROOT);
+        }
+
+        private static Set<String> listLobTables(Connection conn) throws SQLException {
+            Set<String> lobTables = new HashSet<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT DISTINCT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.COLUMNS"
+                         + " WHERE DATA_TYPE IN (" + Types.BLOB + ", " + Types.CLOB + ", " + Types.NCLOB + ")")) {
+                while (rs.next()) {
+                    lobTables.add((rs.getString(1) + "." + rs.getString(2)).toUpperCase(Locale.ROOT));
+                }
+            }
+            return lobTables;
+        }
+
+        private static void loadDataFile(String url, @Nullable String username, @Nullable String password, File dataFile, Compression compression, Charset charset) throws IOException, SQLException {
+            String compressionAlgorithm = compression == Compression.NONE ? null : compression.name();
+            try (Connection conn = DriverManager.getConnection(url, username, password);
+                 Statement stmt = conn.createStatement();
+                 InputStream in = org.h2.tools.CompressTool.wrapInputStream(new FileInputStream(dataFile), compressionAlgorithm, "script.sql");
+                 ScriptReader reader = new ScriptReader(new InputStreamReader(in, charset))) {
+                conn.setAutoCommit(false);
+                reader.setSkipRemarks(true);
+                String sql;
+                while ((sql = reader.readStatement()) != null) {
+                    if (isDataStatement(sql)) {
+                        stmt.execute(sql);
+                    }
+                }
+                conn.commit();
+            }
+        }
+
+        /**
+         * Checks whether a statement from a table's data file inserts data
+         * or stages large objects. Other statements in the file, such as the
+         * table's DDL, have already been executed by the schema script.
+         */
+        private static boolean isDataStatement(String sql) {
+            String trimmed = CharMatcher.whitespace().trimLeadingFrom(sql);
+            return trimmed.regionMatches(true, 0, "INSERT INTO", 0, "INSERT INTO".length())
+                    || trimmed.contains("SYSTEM_LOB_STREAM")
+                    || trimmed.contains("SYSTEM_COMBINE_");
+        }
+
+        private static void invokeAll(List<Callable<Void>> tasks, int threads, String threadNameFormat) throws IOException, SQLException {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()),
+                    new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+            try {
+                List<Future<Void>> futures = new ArrayList<>(tasks.size());
+                for (Callable<Void> task : tasks) {
+                    futures.add(executor.submit(task));
+                }
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("interrupted while waiting for worker", e);
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof SQLException) {
+                            throw (SQLException) cause;
+                        }
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        }
+                        throw new SQLException("worker failed", cause);
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
     }
 
     /**
@@ -178,20 +437,46 @@ public class H2 {
      * @param tempDir directory to use for temp files
      * @throws IOException on I/O error
      * @throws SQLException on database error
+     * @see #streamingTransfer(String, String)
      */
     public static void transfer(String fromUrl, String toJdbcUrl, File tempDir) throws IOException, SQLException {
+        transfer(fromUrl, toJdbcUrl, tempDir, Dumper.Compression.NONE);
+    }
+
+    /**
+     * Exports the contents of a database at a given JDBC URL to another JDBC URL,
+     * compressing the intermediate script file written to a temp directory.
+     * @param fromUrl the source JDBC URL
+     * @param toJdbcUrl the destination JDBC URL
+     * @param tempDir directory to use for temp files
+     * @param compression the compression to use for the intermediate file
+     * @throws IOException on I/O error
+     * @throws SQLException on database error
+     */
+    public static void transfer(String fromUrl, String toJdbcUrl, File tempDir, Dumper.Compression compression) throws IOException, SQLException {
         Charset charset = StandardCharsets.UTF_8;
-        Dumper.Compression compression = Dumper.Compression.NONE;
         Dumper dumper = new Dumper(charset, compression);
         File scriptFile = File.createTempFile("databasedump", ".h2.sql", tempDir);
         try {
             dumper.dump(fromUrl, null, null, scriptFile);
-            CharSource scriptSource = Files.asCharSource(scriptFile, charset);
-            try (Reader reader = scriptSource.openStream();
-                 Connection conn = DriverManager.getConnection(toJdbcUrl)) {
-                ResultSet rs = org.h2.tools.RunScript.execute(conn, reader);
-                if (rs != null) {
-                    rs.close();
+            if (compression == Dumper.Compression.NONE) {
+                CharSource scriptSource = Files.asCharSource(scriptFile, charset);
+                try (Reader reader = scriptSource.openStream();
+                     Connection conn = DriverManager.getConnection(toJdbcUrl)) {
+                    ResultSet rs = org.h2.tools.RunScript.execute(conn, reader);
+                    if (rs != null) {
+                        rs.close();
+                    }
+                }
+            } else {
+                String scriptPathname = FilenameUtils.normalize(scriptFile.getAbsolutePath(), true);
+                Preconditions.checkArgument(CharMatcher.anyOf("'\"`").matchesNoneOf(scriptPathname),
+                        "temp path must not contain quotation characters");
+                String statementStr = "RUNSCRIPT FROM '" + scriptPathname + "' COMPRESSION " + compression.name()
+                        + " CHARSET '" + charset.name() + "'";
+                try (Connection conn = DriverManager.getConnection(toJdbcUrl);
+                     Statement stmt = conn.createStatement()) {
+                    stmt.execute(statementStr);
                 }
             }
         } finally {
@@ -201,6 +486,79 @@ public class H2 {
         }
     }
 
+    /**
+     * Copies the contents of a database at a given JDBC URL to another JDBC URL
+     * without writing an intermediate file or building a script. The schema is
+     * copied with a {@code SCRIPT NODATA} statement, whose result holds only
+     * definitions. The rows of each table are then copied by an
+     * {@code INSERT ... DIRECT SELECT} statement on the destination from a
+     * temporary {@code LINKED TABLE} over the source table. The source query is
+     * executed lazily, so rows are passed from source to destination one at a
+     * time, and neither database buffers a whole table. Referential integrity
+     * checking is disabled on the destination while rows are copied.
+     * @param fromUrl the source JDBC URL; the source database must remain open
+     *                while the transfer is in progress
+     * @param toJdbcUrl the destination JDBC URL
+     * @return the number of rows copied
+     * @throws SQLException on database error
+     * @see #transfer(String, String, File)
+     */
+    public static long streamingTransfer(String fromUrl, String toJdbcUrl) throws SQLException {
+        checkNotNull(fromUrl, "fromUrl");
+        checkNotNull(toJdbcUrl, "toJdbcUrl");
+        org.h2.Driver.load();
+        List<String> schemaStatements = new ArrayList<>();
+        List<String[]> tables = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(fromUrl);
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SCRIPT NODATA")) {
+                while (rs.next()) {
+                    schemaStatements.add(rs.getString(1));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.TABLES"
+                    + " WHERE TABLE_TYPE = 'TABLE' AND TABLE_SCHEMA <> 'INFORMATION_SCHEMA' ORDER BY TABLE_SCHEMA, TABLE_NAME")) {
+                while (rs.next()) {
+                    tables.add(new String[]{rs.getString(1), rs.getString(2)});
+                }
+            }
+        }
+        String linkUrl = fromUrl + ";LAZY_QUERY_EXECUTION=1";
+        long numRows = 0;
+        try (Connection conn = DriverManager.getConnection(toJdbcUrl);
+             Statement stmt = conn.createStatement()) {
+            for (String sql : schemaStatements) {
+                stmt.execute(sql);
+            }
+            stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            try {
+                for (String[] table : tables) {
+                    numRows += copyRows(stmt, linkUrl, table[0], table[1]);
+                }
+            } finally {
+                stmt.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+        return numRows;
+    }
+
+    private static final String TRANSFER_LINK_TABLE = "H2_TRANSFER_LINK";
+
+    private static long copyRows(Statement stmt, String linkUrl, String schemaName, String tableName) throws SQLException {
+        stmt.execute("CREATE LOCAL TEMPORARY LINKED TABLE " + TRANSFER_LINK_TABLE + "('org.h2.Driver', "
+                + quoteLiteral(linkUrl) + ", '', '', " + quoteLiteral(schemaName) + ", " + quoteLiteral(tableName) + ") READONLY");
+        try {
+            String qualifiedName = Dumper.quoteIdentifier(schemaName) + "." + Dumper.quoteIdentifier(tableName);
+            return stmt.executeUpdate("INSERT INTO " + qualifiedName + " DIRECT SELECT * FROM " + TRANSFER_LINK_TABLE);
+        } finally {
+            stmt.execute("DROP TABLE " + TRANSFER_LINK_TABLE);
+        }
+    }
+
+    private static String quoteLiteral(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
     /**
      * Abstract superclass for classes that build H2 JDBC URLs.
      */
@@ -103,6 +103,18 @@ public class H2FileDatabaseContextRule extends DatabaseContextRule {
         return forPathnameProvider(pp);
     }
 
+    /**
+     * Creates a builder of a rule that clones a template database into a new
+     * folder for each test. Because the clone is discarded with the temporary
+     * folder, the builder has no destruction scripts by default.
+     * @param template the template
+     * @param temporaryFolder the temporary folder
+     * @return a new builder
+     */
+    public static Builder forTemplate(H2FileDatabaseTemplate template, TemporaryFolder temporaryFolder) {
+        return forPathnameProvider(new TemplateClonePathnameProvider(template, temporaryFolder)).clearDestructionScripts();
+    }
+
     public static Builder forConstantFile(File pathname) {
         return forPathnameProvider(new ConstantPathnameProvider(pathname));
     }
@@ -270,6 +282,27 @@ public class H2FileDatabaseContextRule extends DatabaseContextRule {
         }
     }
 
+    public static class TemplateClonePathnameProvider implements PathnameProvider {
+
+        private final H2FileDatabaseTemplate template;
+        private final TemporaryFolder temporaryFolder;
+
+        public TemplateClonePathnameProvider(H2FileDatabaseTemplate template, TemporaryFolder temporaryFolder) {
+            this.template = checkNotNull(template);
+            this.temporaryFolder = checkNotNull(temporaryFolder);
+        }
+
+        @Override
+        public File providePathname() throws IOException {
+            File dbFile = new File(temporaryFolder.newFolder(), "database.h2.db");
+            try {
+                return template.cloneTo(dbFile);
+            } catch (SQLException e) {
+                throw new IOException("failed to build template database", e);
+            }
+        }
+    }
+
     public File getDatabaseFile() {
         return dbFile;
     }
@@ -0,0 +1,185 @@
+package com.github.mike10004.ormlitehelper.testtools;
+
+import com.github.mike10004.common.dbhelp.DatabaseContext;
+import com.github.mike10004.common.dbhelp.DefaultDatabaseContext;
+import com.github.mike10004.common.dbhelp.H2FileConnectionSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharSource;
+import org.h2.tools.RunScript;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Template H2 file database that is built once and then cloned for each
+ * test. Building the template runs the creation scripts and setup
+ * operations, such as table creation and seeding of data; cloning the
+ * template copies the database files with {@link FileChannel#transferTo},
+ * which avoids running DDL for each test.
+ *
+ * <p>An instance is typically held in a static field and shared by the
+ * tests of a class or a suite. The template is built the first time it is
+ * cloned.</p>
+ * @see H2FileDatabaseContextRule#forTemplate(H2FileDatabaseTemplate, org.junit.rules.TemporaryFolder)
+ */
+@ThreadSafe
+public class H2FileDatabaseTemplate {
+
+    /**
+     * Suffixes of the files that H2 may use to store a database whose
+     * pathname ends with {@code .h2.db}, depending on the storage engine.
+     */
+    private static final ImmutableList<String> STORAGE_SUFFIXES = ImmutableList.of(".h2.db", ".mv.db");
+
+    private static final String REQUIRED_SUFFIX = ".h2.db";
+
+    private final File templateDbFile;
+    private final CharSource creationScriptSource;
+    private final ImmutableList<DatabaseContextRule.SetupOperation> setupOperations;
+    private boolean built;
+
+    protected H2FileDatabaseTemplate(File templateDbFile, CharSource creationScriptSource, Iterable<DatabaseContextRule.SetupOperation> setupOperations) {
+        this.templateDbFile = checkNotNull(templateDbFile);
+        this.creationScriptSource = checkNotNull(creationScriptSource);
+        this.setupOperations = ImmutableList.copyOf(setupOperations);
+    }
+
+    /**
+     * Creates a builder of a template whose database is stored in the given directory.
+     * @param templateDir the directory
+     * @return a new builder
+     */
+    public static Builder builder(File templateDir) {
+        return new Builder(new File(templateDir, "template" + REQUIRED_SUFFIX));
+    }
+
+    /**
+     * Builds the template database if it has not been built already.
+     * @return the template database pathname
+     * @throws IOException on I/O error
+     * @throws SQLException on database error
+     */
+    public synchronized File prepare() throws IOException, SQLException {
+        if (!built) {
+            build();
+            built = true;
+        }
+        return templateDbFile;
+    }
+
+    private void build() throws IOException, SQLException {
+        Files.createDirectories(templateDbFile.getAbsoluteFile().getParentFile().toPath());
+        String jdbcUrl = new H2.H2FileUrlBuilder(templateDbFile).build();
+        try (Connection conn = DriverManager.getConnection(jdbcUrl);
+             Reader reader = creationScriptSource.openStream()) {
+            RunScript.execute(conn, reader);
+        }
+        if (!setupOperations.isEmpty()) {
+            DatabaseContext db = new DefaultDatabaseContext(new H2FileConnectionSource(templateDbFile));
+            try {
+                for (DatabaseContextRule.SetupOperation operation : setupOperations) {
+                    operation.perform(db);
+                }
+            } catch (IOException | SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("template setup operation failed", e);
+            } finally {
+                db.closeConnections(true);
+            }
+        }
+        try (Connection conn = DriverManager.getConnection(jdbcUrl);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN COMPACT");
+        }
+    }
+
+    /**
+     * Clones the template database. The template is built first if necessary.
+     * @param destDbFile the pathname of the clone; must end with {@code .h2.db}
+     * @return the pathname of the clone
+     * @throws IOException on I/O error
+     * @throws SQLException if building the template fails
+     */
+    public File cloneTo(File destDbFile) throws IOException, SQLException {
+        String destName = destDbFile.getName();
+        if (!destName.endsWith(REQUIRED_SUFFIX)) {
+            throw new IllegalArgumentException("invalid database filename " + destName + "; must end with " + REQUIRED_SUFFIX);
+        }
+        File templateFile = prepare();
+        String templateBase = stripSuffix(templateFile.getName()), destBase = stripSuffix(destName);
+        int numCopied = 0;
+        for (String suffix : STORAGE_SUFFIXES) {
+            File source = new File(templateFile.getParentFile(), templateBase + suffix);
+            if (source.isFile()) {
+                copy(source, new File(destDbFile.getParentFile(), destBase + suffix));
+                numCopied++;
+            }
+        }
+        if (numCopied == 0) {
+            throw new IOException("no database files found for template " + templateFile);
+        }
+        return destDbFile;
+    }
+
+    private static String stripSuffix(String filename) {
+        return filename.substring(0, filename.length() - REQUIRED_SUFFIX.length());
+    }
+
+    static void copy(File source, File destination) throws IOException {
+        try (FileChannel in = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(destination.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size(), position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    @NotThreadSafe
+    public static class Builder {
+
+        private final File templateDbFile;
+        private final List<CharSource> creationScriptSources = new ArrayList<>();
+        private final List<DatabaseContextRule.SetupOperation> setupOperations = new ArrayList<>();
+
+        Builder(File templateDbFile) {
+            this.templateDbFile = checkNotNull(templateDbFile);
+        }
+
+        public Builder createdWith(CharSource creationScriptSource) {
+            creationScriptSources.add(checkNotNull(creationScriptSource));
+            return this;
+        }
+
+        /**
+         * Adds an operation to perform on the template database after the
+         * creation scripts have been executed, such as a
+         * {@link CreateTablesOperation} or an operation that seeds data.
+         * @param setupOperation the operation
+         * @return this builder
+         */
+        public Builder setUpWith(DatabaseContextRule.SetupOperation setupOperation) {
+            setupOperations.add(checkNotNull(setupOperation));
+            return this;
+        }
+
+        public H2FileDatabaseTemplate build() {
+            return new H2FileDatabaseTemplate(templateDbFile, CharSource.concat(creationScriptSources), setupOperations);
+        }
+    }
+}
@@ -3,7 +3,13 @@ package com.github.mike10004.ormlitehelper.testtools;
 import com.github.mike10004.common.dbhelp.H2MemoryConnectionSource;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Rule that creates a new H2 memory database on each test cycle.
@@ -12,6 +18,10 @@ public class H2MemoryDatabaseContextRule extends DatabaseContextRule {
 
     private final Optional<Boolean> keepContentForLifeOfVmOption;
     private final Optional<String> schemaNameOption;
+    @Nullable
+    private final H2MemoryDatabaseTemplate template;
+    @Nullable
+    private String cloneSchema;
 
     public H2MemoryDatabaseContextRule(boolean keepContentForLifeOfVm, BookendOperation...bookendOperations) {
         this(keepContentForLifeOfVm, null, bookendOperations);
@@ -26,11 +36,39 @@ public class H2MemoryDatabaseContextRule extends DatabaseContextRule {
         super(bookendOperations);
         this.keepContentForLifeOfVmOption = Optional.of(keepContentForLifeOfVm);
         this.schemaNameOption = Optional.ofNullable(schemaName);
+        this.template = null;
+    }
+
+    private H2MemoryDatabaseContextRule(H2MemoryDatabaseTemplate template, BookendOperation...bookendOperations) {
+        super(bookendOperations);
+        this.keepContentForLifeOfVmOption = Optional.empty();
+        this.schemaNameOption = Optional.empty();
+        this.template = checkNotNull(template);
+    }
+
+    /**
+     * Creates a rule that clones a template database into a new memory
+     * database for each test. Each clone is isolated from clones used by
+     * tests executing concurrently on other threads, and it is destroyed
+     * after the test.
+     * @param template the template
+     * @param bookendOperations operations to perform on the clone
+     * @return a new rule
+     */
+    public static H2MemoryDatabaseContextRule forTemplate(H2MemoryDatabaseTemplate template, BookendOperation...bookendOperations) {
+        return new H2MemoryDatabaseContextRule(template, bookendOperations);
     }
 
     @Override
     protected H2MemoryConnectionSource createConnectionSource() {
-        if (keepContentForLifeOfVmOption.isPresent() && schemaNameOption.isPresent()) {
+        if (template != null) {
+            try {
+                cloneSchema = template.createClone();
+            } catch (IOException | SQLException ex) {
+                throw new IllegalStateException("failed to clone template database", ex);
+            }
+            return new H2MemoryConnectionSource(cloneSchema, true);
+        } else if (keepContentForLifeOfVmOption.isPresent() && schemaNameOption.isPresent()) {
             return new H2MemoryConnectionSource(schemaNameOption.get(), keepContentForLifeOfVmOption.get());
         } else if (keepContentForLifeOfVmOption.isPresent()) {
             return new H2MemoryConnectionSource(keepContentForLifeOfVmOption.get());
@@ -39,4 +77,26 @@ public class H2MemoryDatabaseContextRule extends DatabaseContextRule {
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    protected void after() {
+        super.after();
+        if (template != null && cloneSchema != null) {
+            try {
+                template.destroy(cloneSchema);
+            } catch (SQLException ex) {
+                Logger.getLogger(H2MemoryDatabaseContextRule.class.getName()).log(Level.WARNING, "failed to destroy clone " + cloneSchema, ex);
+            }
+            cloneSchema = null;
+        }
+    }
+
+    /**
+     * Gets the schema name of the clone used in the current test cycle.
+     * @return the schema name, or null if this rule does not use a template
+     * or the cycle has not begun
+     */
+    @Nullable
+    public String getCloneSchema() {
+        return cloneSchema;
+    }
+}
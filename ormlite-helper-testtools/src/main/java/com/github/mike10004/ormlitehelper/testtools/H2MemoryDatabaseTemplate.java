@@ -0,0 +1,176 @@
+package com.github.mike10004.ormlitehelper.testtools;
+
+import com.github.mike10004.common.dbhelp.DatabaseContext;
+import com.github.mike10004.common.dbhelp.DefaultDatabaseContext;
+import com.github.mike10004.common.dbhelp.H2MemoryConnectionSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharSource;
+import org.h2.tools.RunScript;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Template H2 memory database that is built once per VM and cloned into a
+ * new memory database for each test. Each clone has a name that is unique
+ * to the template, the thread that requested it, and a sequence number, so
+ * tests executing concurrently on different threads, as with Surefire's
+ * {@code parallel=methods} option, each get an isolated database. Forked
+ * VMs build their own template, because memory databases are not shared
+ * across processes.
+ *
+ * <p>An instance is typically held in a static field and shared by the
+ * tests of a class or a suite. The template is built the first time it is
+ * cloned.</p>
+ * @see H2MemoryDatabaseContextRule#forTemplate(H2MemoryDatabaseTemplate, DatabaseContextRule.BookendOperation...)
+ * @see H2FileDatabaseTemplate
+ */
+@ThreadSafe
+public class H2MemoryDatabaseTemplate {
+
+    private final String templateSchema;
+    private final CharSource creationScriptSource;
+    private final ImmutableList<DatabaseContextRule.SetupOperation> setupOperations;
+    private final AtomicLong cloneCounter = new AtomicLong();
+    private boolean built;
+
+    protected H2MemoryDatabaseTemplate(String templateSchema, CharSource creationScriptSource, Iterable<DatabaseContextRule.SetupOperation> setupOperations) {
+        this.templateSchema = checkNotNull(templateSchema);
+        this.creationScriptSource = checkNotNull(creationScriptSource);
+        this.setupOperations = ImmutableList.copyOf(setupOperations);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String getTemplateSchema() {
+        return templateSchema;
+    }
+
+    private static String buildJdbcUrl(String schema) {
+        return new H2.H2MemoryUrlBuilder().setSchema(schema).setKeepContentForLifeOfVM(true).build();
+    }
+
+    /**
+     * Builds the template database if it has not been built already. The
+     * template database is kept for the life of the VM.
+     * @return the template database schema name
+     * @throws IOException on I/O error
+     * @throws SQLException on database error
+     */
+    public synchronized String prepare() throws IOException, SQLException {
+        if (!built) {
+            build();
+            built = true;
+        }
+        return templateSchema;
+    }
+
+    private void build() throws IOException, SQLException {
+        try (Connection conn = DriverManager.getConnection(buildJdbcUrl(templateSchema));
+             Reader reader = creationScriptSource.openStream()) {
+            RunScript.execute(conn, reader);
+        }
+        if (!setupOperations.isEmpty()) {
+            DatabaseContext db = new DefaultDatabaseContext(new H2MemoryConnectionSource(templateSchema, true));
+            try {
+                for (DatabaseContextRule.SetupOperation operation : setupOperations) {
+                    operation.perform(db);
+                }
+            } catch (IOException | SQLException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException("template setup operation failed", e);
+            } finally {
+                db.closeConnections(true);
+            }
+        }
+    }
+
+    /**
+     * Creates a schema name for a new clone. The name is unique among the
+     * clones of this template and identifies the current thread.
+     * @return the schema name
+     */
+    protected String newCloneSchema() {
+        return templateSchema + "_t" + Thread.currentThread().getId() + "_" + cloneCounter.incrementAndGet();
+    }
+
+    /**
+     * Clones the template database into a new memory database. The template
+     * is built first if necessary. The clone is kept for the life of the VM
+     * until it is {@link #destroy(String) destroyed}. Rows are copied table by
+     * table with {@link H2#streamingTransfer(String, String)}.
+     * @return the schema name of the clone
+     * @throws IOException on I/O error
+     * @throws SQLException on database error
+     */
+    public String createClone() throws IOException, SQLException {
+        prepare();
+        String cloneSchema = newCloneSchema();
+        H2.streamingTransfer(buildJdbcUrl(templateSchema), buildJdbcUrl(cloneSchema));
+        return cloneSchema;
+    }
+
+    /**
+     * Destroys a memory database created by {@link #createClone()}.
+     * @param cloneSchema the schema name of the clone
+     * @throws SQLException on database error
+     */
+    public void destroy(String cloneSchema) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(buildJdbcUrl(cloneSchema));
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+    }
+
+    @NotThreadSafe
+    public static class Builder {
+
+        private String templateSchema;
+        private final List<CharSource> creationScriptSources = new ArrayList<>();
+        private final List<DatabaseContextRule.SetupOperation> setupOperations = new ArrayList<>();
+
+        Builder() {
+            templateSchema = "template" + UUID.randomUUID().toString().replace("-", "");
+        }
+
+        public Builder named(String templateSchema) {
+            this.templateSchema = checkNotNull(templateSchema);
+            return this;
+        }
+
+        public Builder createdWith(CharSource creationScriptSource) {
+            creationScriptSources.add(checkNotNull(creationScriptSource));
+            return this;
+        }
+
+        /**
+         * Adds an operation to perform on the template database after the
+         * creation scripts have been executed.
+         * @param setupOperation the operation
+         * @return this builder
+         */
+        public Builder setUpWith(DatabaseContextRule.SetupOperation setupOperation) {
+            setupOperations.add(checkNotNull(setupOperation));
+            return this;
+        }
+
+        public H2MemoryDatabaseTemplate build() {
+            return new H2MemoryDatabaseTemplate(templateSchema, CharSource.concat(creationScriptSources), setupOperations);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.mike10004.ormlitehelper.testtools;
+
+import com.github.mike10004.common.dbhelp.DatabaseContext;
+import com.github.mike10004.common.dbhelp.SqlStatements;
+import com.github.mike10004.common.dbhelp.StatementExecution;
+import com.github.mike10004.common.dbhelp.TimingConnectionSource;
+import com.github.mike10004.common.dbhelp.TimingDatabaseConnection;
+import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Operation that resets an H2 database by truncating the tables that were
+ * written during the test. Unlike {@link DropAllObjectsOperation}, this keeps
+ * the tables in place, so the next test does not have to create them again.
+ *
+ * <p>The operation tracks dirty tables by decorating the rule's connection
+ * source with a {@link TimingConnectionSource}. Each write is attributed to
+ * the table named as its {@link SqlStatements#getTargetTable(String) target}
+ * in the SQL, whichever DAO or connection executes it; a write whose target
+ * cannot be determined causes all tables to be truncated.
+ * Referential integrity is disabled while the tables are truncated, and
+ * identity sequences of the truncated tables are restarted.</p>
+ *
+ * <p>Use this with a rule whose database outlives a test cycle, such as a
+ * named H2 memory database whose content is kept for the life of the VM.</p>
+ */
+public class TruncateTablesOperation implements DatabaseContextRule.TeardownOperation, DatabaseContextRule.ConnectionSourceDecorator {
+
+    private static final ImmutableSet<SqlStatements.Kind> WRITE_KINDS = Sets.immutableEnumSet(
+            SqlStatements.Kind.INSERT, SqlStatements.Kind.UPDATE, SqlStatements.Kind.DELETE,
+            SqlStatements.Kind.MERGE, SqlStatements.Kind.REPLACE);
+
+    private final Set<String> dirtyTables = ConcurrentHashMap.newKeySet();
+    private volatile boolean untrackedWrite;
+
+    @Override
+    public ConnectionSource decorate(ConnectionSource connectionSource) {
+        return new TimingConnectionSource(connectionSource, this::statementExecuted);
+    }
+
+    void statementExecuted(StatementExecution execution) {
+        String sql = execution.getSql();
+        if (isWrite(sql)) {
+            String tableName = SqlStatements.getTargetTable(sql);
+            if (tableName == null || tableName.isEmpty()) {
+                untrackedWrite = true;
+            } else {
+                dirtyTables.add(Ascii.toLowerCase(tableName));
+            }
+        }
+    }
+
+    static boolean isWrite(String sql) {
+        return WRITE_KINDS.contains(SqlStatements.getKind(sql));
+    }
+
+    /**
+     * Gets the lowercase names of the tables written since the last reset.
+     * @return the table names
+     */
+    ImmutableSet<String> getDirtyTables() {
+        return ImmutableSet.copyOf(dirtyTables);
+    }
+
+    boolean isUntrackedWrite() {
+        return untrackedWrite;
+    }
+
+    @Override
+    public void perform(DatabaseContext db) throws SQLException {
+        boolean all = untrackedWrite;
+        untrackedWrite = false;
+        Set<String> dirty = getDirtyTables();
+        dirtyTables.removeAll(dirty);
+        if (!all && dirty.isEmpty()) {
+            return;
+        }
+        DatabaseConnection conn = db.getConnectionSource().getReadWriteConnection("");
+        try {
+            DatabaseConnection unwrapped = TimingDatabaseConnection.unwrap(conn);
+            if (!(unwrapped instanceof JdbcDatabaseConnection)) {
+                throw new SQLException("unsupported connection type " + unwrapped.getClass());
+            }
+            reset(((JdbcDatabaseConnection) unwrapped).getInternalConnection(), all, dirty);
+        } finally {
+            db.getConnectionSource().releaseConnection(conn);
+        }
+    }
+
+    private static void reset(Connection conn, boolean all, Set<String> dirty) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        Map<String, List<String>> sequences = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_TYPE = 'TABLE'")) {
+                while (rs.next()) {
+                    String table = rs.getString(1);
+                    if (all || dirty.contains(Ascii.toLowerCase(table))) {
+                        tables.add(table);
+                    }
+                }
+            }
+            if (tables.isEmpty()) {
+                return;
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT TABLE_NAME, SEQUENCE_NAME FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = SCHEMA() AND SEQUENCE_NAME IS NOT NULL")) {
+                while (rs.next()) {
+                    sequences.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
+            }
+            stmt.execute("SET REFERENTIAL_INTEGRITY FALSE");
+            try {
+                for (String table : tables) {
+                    stmt.execute("TRUNCATE TABLE " + quote(table));
+                    for (String sequence : sequences.getOrDefault(table, ImmutableList.of())) {
+                        stmt.execute("ALTER SEQUENCE " + quote(sequence) + " RESTART WITH 1");
+                    }
+                }
+            } finally {
+                stmt.execute("SET REFERENTIAL_INTEGRITY TRUE");
+            }
+        }
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
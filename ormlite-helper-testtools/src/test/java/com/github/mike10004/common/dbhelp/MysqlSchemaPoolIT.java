@@ -0,0 +1,77 @@
+package com.github.mike10004.common.dbhelp;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test that confirms that schemas leased from a pool are reset between tests.
+ */
+public class MysqlSchemaPoolIT {
+
+    private static final ConnectionParams adminParams = new ConnectionParams("localhost:" + IntegrationTests.getMysqlPort(), "root", "root");
+
+    private static final MysqlSchemaPool schemaPool = new MysqlSchemaPool(adminParams, "poolit", 2, MysqlSchemaPool.ResetMode.TRUNCATE);
+
+    @Rule
+    public MysqlConnectionSourceRule connectionSourceRule = new MysqlConnectionSourceRule(adminParams, schemaPool);
+
+    private DatabaseContext context;
+
+    @Before
+    public void setUp() throws SQLException {
+        context = new DefaultDatabaseContext(connectionSourceRule.getConnectionSource());
+        context.getTableUtils().createAllTablesIfNotExists(Arrays.asList(Customer.class, Order.class));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        context.closeConnections(false);
+    }
+
+    @AfterClass
+    public static void dropPool() throws SQLException {
+        schemaPool.dropAll();
+    }
+
+    private void insertOneCustomer(String name) throws SQLException {
+        Customer customer = new Customer();
+        customer.name = name;
+        context.getDao(Customer.class).create(customer);
+        assertEquals(1L, context.getDao(Customer.class).countOf());
+    }
+
+    @Test
+    public void testFirst() throws Exception {
+        System.out.println("testFirst");
+        insertOneCustomer("Alice");
+    }
+
+    @Test
+    public void testSecond() throws Exception {
+        System.out.println("testSecond");
+        insertOneCustomer("Bob");
+    }
+
+    @Test
+    public void testPoolExhausted() throws Exception {
+        System.out.println("testPoolExhausted");
+        try (MysqlSchemaPool.Lease other = schemaPool.lease(1, TimeUnit.SECONDS)) {
+            assertNotEquals("distinct schemas", connectionSourceRule.getConnectionSource().getConnectionParams().schema, other.getSchema());
+            try {
+                schemaPool.lease(200, TimeUnit.MILLISECONDS).close();
+                fail("should have timed out");
+            } catch (SQLException expected) {
+                System.out.println("as expected: " + expected);
+            }
+        }
+    }
+}
@@ -3,14 +3,20 @@ package com.github.mike10004.ormlitehelper.testtools;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.table.TableUtils;
+import com.github.mike10004.common.dbhelp.Customer;
 import com.github.mike10004.common.dbhelp.H2MemoryConnectionSource;
+import com.github.mike10004.common.dbhelp.Order;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -59,4 +65,50 @@ public class H2DumperTest {
 
     }
 
+
+    @Test
+    public void testDumpAndRestoreParallel() throws Exception {
+        System.out.println("testDumpAndRestoreParallel");
+        H2MemoryConnectionSource source = new H2MemoryConnectionSource(true);
+        try {
+            TableUtils.createTable(source, Widget.class);
+            TableUtils.createTable(source, Customer.class);
+            TableUtils.createTable(source, Order.class);
+            Dao<Widget, ?> widgetDao = DaoManager.createDao(source, Widget.class);
+            for (int i = 0; i < 100; i++) {
+                widgetDao.create(new Widget("color" + i));
+            }
+            Customer customer = new Customer();
+            customer.name = "Jane";
+            DaoManager.createDao(source, Customer.class).create(customer);
+            Order order = new Order();
+            order.customer = customer;
+            order.productName = "gadget";
+            DaoManager.createDao(source, Order.class).create(order);
+            for (H2.Dumper.Compression compression : EnumSet.of(H2.Dumper.Compression.NONE, H2.Dumper.Compression.GZIP)) {
+                File dumpDir = temp.newFolder();
+                new H2.Dumper(Charsets.UTF_8, compression).dumpParallel(source.getUrl(), null, null, dumpDir, 4);
+                System.out.format("%s: %s%n", compression, Arrays.toString(dumpDir.list()));
+                assertTrue("schema file", new File(dumpDir, H2.Dumper.PARALLEL_SCHEMA_FILENAME).isFile());
+                H2MemoryConnectionSource restored = new H2MemoryConnectionSource(true);
+                try {
+                    restored.forcePrepareAndInitialize();
+                    H2.Dumper.restoreParallel(restored.getUrl(), null, null, dumpDir, 4);
+                    assertEquals("widgets", 100L, DaoManager.createDao(restored, Widget.class).countOf());
+                    List<Order> orders = DaoManager.createDao(restored, Order.class).queryForAll();
+                    assertEquals("orders", 1, orders.size());
+                    assertEquals("customer", "Jane", orders.get(0).customer.name);
+                    Widget another = new Widget("another");
+                    Dao<Widget, ?> restoredWidgetDao = DaoManager.createDao(restored, Widget.class);
+                    restoredWidgetDao.create(another);
+                    assertEquals("widgets after insert", 101L, restoredWidgetDao.countOf());
+                } finally {
+                    restored.close();
+                }
+            }
+        } finally {
+            source.close();
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.github.mike10004.ormlitehelper.testtools;
+
+import com.github.mike10004.common.dbhelp.DatabaseContext;
+import com.j256.ormlite.dao.Dao;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class H2FileDatabaseTemplateTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void cloneForEachTest() throws Throwable {
+        System.out.println("cloneForEachTest");
+        H2FileDatabaseTemplate template = H2FileDatabaseTemplate.builder(temporaryFolder.newFolder())
+                .setUpWith(new CreateTablesOperation(Widget.class))
+                .setUpWith(db -> db.getDao(Widget.class).create(new Widget("seeded")))
+                .build();
+        for (int i = 0; i < 2; i++) {
+            H2FileDatabaseContextRule rule = H2FileDatabaseContextRule.forTemplate(template, temporaryFolder).build();
+            rule.before();
+            try {
+                DatabaseContext db = rule.getDatabaseContext();
+                Dao<Widget, ?> dao = db.getDao(Widget.class);
+                assertEquals("widgets in clone " + i, 1L, dao.countOf());
+                dao.create(new Widget("added" + i));
+                System.out.format("clone %d at %s%n", i, rule.getDatabaseFile());
+            } finally {
+                rule.after();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cloneTo_badName() throws Exception {
+        System.out.println("cloneTo_badName");
+        H2FileDatabaseTemplate template = H2FileDatabaseTemplate.builder(temporaryFolder.newFolder()).build();
+        template.cloneTo(new File(temporaryFolder.getRoot(), "clone.db"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.mike10004.ormlitehelper.testtools;
+
+import com.github.mike10004.common.dbhelp.DatabaseContext;
+import com.j256.ormlite.dao.Dao;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class H2MemoryDatabaseTemplateTest {
+
+    @Test
+    public void cloneOnConcurrentThreads() throws Exception {
+        System.out.println("cloneOnConcurrentThreads");
+        H2MemoryDatabaseTemplate template = H2MemoryDatabaseTemplate.builder()
+                .setUpWith(new CreateTablesOperation(Widget.class))
+                .setUpWith(db -> db.getDao(Widget.class).create(new Widget("seeded")))
+                .build();
+        int numThreads = 4, cyclesPerThread = 3;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < numThreads; t++) {
+                futures.add(executor.submit((Callable<List<String>>) () -> {
+                    List<String> clones = new ArrayList<>();
+                    for (int i = 0; i < cyclesPerThread; i++) {
+                        H2MemoryDatabaseContextRule rule = H2MemoryDatabaseContextRule.forTemplate(template);
+                        rule.before();
+                        try {
+                            DatabaseContext db = rule.getDatabaseContext();
+                            Dao<Widget, ?> dao = db.getDao(Widget.class);
+                            assertEquals("widgets in clone", 1L, dao.countOf());
+                            dao.create(new Widget("added"));
+                            assertEquals("widgets in clone after insert", 2L, dao.countOf());
+                            clones.add(rule.getCloneSchema());
+                        } finally {
+                            rule.after();
+                        }
+                    }
+                    return clones;
+                }));
+            }
+            List<String> allClones = new ArrayList<>();
+            for (Future<List<String>> future : futures) {
+                allClones.addAll(future.get());
+            }
+            System.out.println("clones: " + allClones);
+            assertEquals("distinct clones", numThreads * cyclesPerThread, allClones.stream().distinct().count());
+            String destroyedUrl = new H2.H2MemoryUrlBuilder().setSchema(allClones.get(0)).build();
+            try (Connection conn = DriverManager.getConnection(destroyedUrl);
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SHOW TABLES")) {
+                assertFalse("clone destroyed", rs.next());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -43,6 +43,55 @@ public class H2Test {
         assertEquals("green", widgets2.get(0).color);
     }
 
+    @Test
+    public void testTransfer_compressed() throws Exception {
+        System.out.println("testTransfer_compressed");
+        H2MemoryConnectionSource cs1 = new H2MemoryConnectionSource(true);
+        TableUtils.createTable(cs1, Widget.class);
+        DaoManager.createDao(cs1, Widget.class).create(new Widget("blue"));
+        H2MemoryConnectionSource cs2 = new H2MemoryConnectionSource(true);
+        cs2.forcePrepareAndInitialize();
+        H2.transfer(cs1.getUrl(), cs2.getUrl(), temporaryFolder.getRoot(), H2.Dumper.Compression.GZIP);
+        List<Widget> widgets2 = DaoManager.createDao(cs2, Widget.class).queryForAll();
+        assertEquals(1, widgets2.size());
+        assertEquals("blue", widgets2.get(0).color);
+        assertEquals("temp files deleted", 0, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void testStreamingTransfer() throws Exception {
+        System.out.println("testStreamingTransfer");
+        H2MemoryConnectionSource cs1 = new H2MemoryConnectionSource(true);
+        TableUtils.createTable(cs1, Widget.class);
+        Dao<Widget, ?> dao1 = DaoManager.createDao(cs1, Widget.class);
+        int numWidgets = 2000;
+        dao1.callBatchTasks(() -> {
+            for (int i = 0; i < numWidgets; i++) {
+                dao1.create(new Widget("color" + i));
+            }
+            return null;
+        });
+        H2MemoryConnectionSource cs2 = new H2MemoryConnectionSource(true);
+        cs2.forcePrepareAndInitialize();
+        long numRows = H2.streamingTransfer(cs1.getUrl(), cs2.getUrl());
+        System.out.format("%d rows copied%n", numRows);
+        assertEquals("rows copied", numWidgets, numRows);
+        Dao<Widget, ?> dao2 = DaoManager.createDao(cs2, Widget.class);
+        assertEquals("widgets transferred", numWidgets, dao2.countOf());
+        dao2.create(new Widget("new"));
+        assertEquals("identity sequence transferred", numWidgets + 1, dao2.countOf());
+    }
+
+    @Test(expected = java.sql.SQLException.class)
+    public void testStreamingTransfer_targetFails() throws Exception {
+        System.out.println("testStreamingTransfer_targetFails");
+        H2MemoryConnectionSource cs1 = new H2MemoryConnectionSource(true);
+        TableUtils.createTable(cs1, Widget.class);
+        H2MemoryConnectionSource cs2 = new H2MemoryConnectionSource(true);
+        TableUtils.createTable(cs2, Widget.class);
+        H2.streamingTransfer(cs1.getUrl(), cs2.getUrl());
+    }
+
     @Test
     public void testFileUrlBuilder() throws Exception {
         System.out.println("testFileUrlBuilder");
@@ -0,0 +1,105 @@
+package com.github.mike10004.ormlitehelper.testtools;
+
+import com.github.mike10004.common.dbhelp.Customer;
+import com.github.mike10004.common.dbhelp.DatabaseContext;
+import com.github.mike10004.common.dbhelp.Order;
+import com.github.mike10004.common.dbhelp.StatementExecution;
+import com.google.common.collect.ImmutableSet;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TruncateTablesOperationTest {
+
+    @Test
+    public void testPerform() throws Exception {
+        System.out.println("testPerform");
+        String schemaName = "TruncateTablesOperationTest";
+        TruncateTablesOperation truncate = new TruncateTablesOperation();
+        H2MemoryDatabaseContextRule rule = new H2MemoryDatabaseContextRule(true, schemaName, new CreateTablesOperation(Customer.class, Order.class, Widget.class), truncate);
+        rule.before();
+        try {
+            DatabaseContext db = rule.getDatabaseContext();
+            Customer customer = new Customer();
+            customer.name = "Alice";
+            db.getDao(Customer.class).create(customer);
+            Order order = new Order();
+            order.customer = customer;
+            order.productName = "widget";
+            order.quantity = 2;
+            db.getDao(Order.class).create(order);
+            assertEquals("dirty tables", ImmutableSet.of("customer", "order"), truncate.getDirtyTables());
+            db.getDao(Customer.class).executeRaw("INSERT INTO `widget` (`color`) VALUES ('blue')");
+            assertEquals("dirty tables after raw write", ImmutableSet.of("customer", "order", "widget"), truncate.getDirtyTables());
+            assertFalse("untracked write", truncate.isUntrackedWrite());
+        } finally {
+            rule.after();
+        }
+        assertEquals("dirty tables after reset", ImmutableSet.of(), truncate.getDirtyTables());
+
+        rule = new H2MemoryDatabaseContextRule(true, schemaName, truncate);
+        rule.before();
+        try {
+            DatabaseContext db = rule.getDatabaseContext();
+            Dao<Customer, ?> customerDao = db.getDao(Customer.class);
+            assertEquals("customers", 0L, customerDao.countOf());
+            assertEquals("orders", 0L, db.getDao(Order.class).countOf());
+            assertEquals("widgets", 0L, db.getDao(Widget.class).countOf());
+            Customer customer = new Customer();
+            customer.name = "Bob";
+            customerDao.create(customer);
+            assertEquals("id after sequence reset", Integer.valueOf(1), customer.id);
+        } finally {
+            rule.after();
+        }
+    }
+
+    @Test
+    public void testPerform_writeWithoutTableName() throws Exception {
+        System.out.println("testPerform_writeWithoutTableName");
+        String schemaName = "TruncateTablesOperationTest_noTableName";
+        TruncateTablesOperation truncate = new TruncateTablesOperation();
+        H2MemoryDatabaseContextRule rule = new H2MemoryDatabaseContextRule(true, schemaName, new CreateTablesOperation(Widget.class), truncate);
+        rule.before();
+        try {
+            ConnectionSource cs = rule.getConnectionSource();
+            DatabaseConnection conn = cs.getReadWriteConnection(null);
+            try {
+                conn.executeStatement("INSERT INTO `widget` (`color`) VALUES ('red')", DatabaseConnection.DEFAULT_RESULT_FLAGS);
+            } finally {
+                cs.releaseConnection(conn);
+            }
+            assertEquals("dirty tables", ImmutableSet.of("widget"), truncate.getDirtyTables());
+        } finally {
+            rule.after();
+        }
+        rule = new H2MemoryDatabaseContextRule(true, schemaName, truncate);
+        rule.before();
+        try {
+            assertEquals("widgets", 0L, rule.getDatabaseContext().getDao(Widget.class).countOf());
+        } finally {
+            rule.after();
+        }
+    }
+
+    @Test
+    public void statementExecuted_unknownTarget() {
+        System.out.println("statementExecuted_unknownTarget");
+        TruncateTablesOperation truncate = new TruncateTablesOperation();
+        truncate.statementExecuted(new StatementExecution("widget", "DELETE w FROM widget w", 0, 0, null));
+        assertTrue("untracked write", truncate.isUntrackedWrite());
+        assertEquals("dirty tables", ImmutableSet.of(), truncate.getDirtyTables());
+    }
+
+    @Test
+    public void isWrite() {
+        System.out.println("isWrite");
+        assertTrue(TruncateTablesOperation.isWrite("INSERT INTO t VALUES (1)"));
+        assertTrue(TruncateTablesOperation.isWrite("  delete from t"));
+        assertFalse(TruncateTablesOperation.isWrite("SELECT * FROM t"));
+        assertFalse(TruncateTablesOperation.isWrite("CREATE TABLE t (id INT)"));
+    }
+}
@@ -17,6 +17,7 @@ public abstract class AbstractH2FileConnectionSource extends H2ConnectionSource
     private static final Joiner semicolonJoiner = Joiner.on(';');
     protected static final Function<File, String> defaultSchemaTransformInstance = new DefaultSchemaTransform();
     private boolean autoMixedMode;
+    private H2TuningProfile tuningProfile = H2TuningProfile.defaults();
     
     public static class DefaultSchemaTransform implements Function<File, String> {
 
@@ -51,6 +52,7 @@ public abstract class AbstractH2FileConnectionSource extends H2ConnectionSource
         if (isAutoMixedMode()) {
             clauses.add("AUTO_SERVER=true");
         }
+        clauses.addAll(tuningProfile.toUrlClauses());
         if (clauses.isEmpty()) {
             return "";
         } else {
@@ -72,5 +74,18 @@ public abstract class AbstractH2FileConnectionSource extends H2ConnectionSource
     public void setAutoMixedMode(boolean autoMixedMode) {
         this.autoMixedMode = autoMixedMode;
     }
+
+    public H2TuningProfile getTuningProfile() {
+        return tuningProfile;
+    }
+
+    /**
+     * Sets the engine settings to be rendered into the JDBC URL. This must
+     * be set before the connection source is first used.
+     * @param tuningProfile the profile
+     */
+    public void setTuningProfile(H2TuningProfile tuningProfile) {
+        this.tuningProfile = Preconditions.checkNotNull(tuningProfile, "tuningProfile");
+    }
     
 }
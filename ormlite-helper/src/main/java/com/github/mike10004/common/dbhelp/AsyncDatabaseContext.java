@@ -0,0 +1,258 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Facade over a database context that runs database work on a dedicated,
+ * bounded executor and returns {@link CompletableFuture futures}. The number
+ * of executor threads should match the number of connections the connection
+ * source can supply, so that threads do not wait on each other for
+ * connections. When the executor's queue is full, work is rejected
+ * immediately: the returned future completes exceptionally with a
+ * {@link RejectedExecutionException}.
+ *
+ * <p>Thread-bound context, such as a logging framework's mapped diagnostic
+ * context, can be propagated to executor threads with a
+ * {@link Builder#taskDecorator(UnaryOperator) task decorator}. The decorator
+ * is invoked on the submitting thread and the runnable it returns is run on
+ * the executor thread. For example, with SLF4J:</p>
+ * <pre>
+ *     builder.taskDecorator(task -&gt; {
+ *         Map&lt;String, String&gt; context = MDC.getCopyOfContextMap();
+ *         return () -&gt; {
+ *             MDC.setContextMap(context);
+ *             try {
+ *                 task.run();
+ *             } finally {
+ *                 MDC.clear();
+ *             }
+ *         };
+ *     });
+ * </pre>
+ */
+public class AsyncDatabaseContext implements Closeable {
+
+    /**
+     * Default number of threads for a context whose connection source is
+     * neither a single-connection source nor a
+     * {@link JdbcPooledConnectionSource}.
+     */
+    public static final int DEFAULT_POOLED_THREADS = 5;
+
+    private final DatabaseContext db;
+    private final ExecutorService executor;
+    private final UnaryOperator<Runnable> taskDecorator;
+
+    protected AsyncDatabaseContext(DatabaseContext db, ExecutorService executor, UnaryOperator<Runnable> taskDecorator) {
+        this.db = checkNotNull(db, "db");
+        this.executor = checkNotNull(executor, "executor");
+        this.taskDecorator = checkNotNull(taskDecorator, "taskDecorator");
+    }
+
+    public DatabaseContext getDatabaseContext() {
+        return db;
+    }
+
+    /**
+     * Runs work on the executor.
+     * @param work the work
+     * @param <R> the result type
+     * @return a future that completes with the result of the work
+     */
+    public <R> CompletableFuture<R> supplyAsync(SqlFunction<? super DatabaseContext, R> work) {
+        checkNotNull(work, "work");
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Runnable task = taskDecorator.apply(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(work.apply(db));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs work with a data access object on the executor.
+     * @param entityClass the entity class
+     * @param keyType the primary key type
+     * @param work the work
+     * @param <T> the entity type
+     * @param <K> the primary key type
+     * @param <R> the result type
+     * @return a future that completes with the result of the work
+     * @see DatabaseContext#getDao(Class, Class)
+     */
+    public <T, K, R> CompletableFuture<R> withDao(Class<T> entityClass, Class<K> keyType, SqlFunction<? super Dao<T, K>, R> work) {
+        checkNotNull(work, "work");
+        return supplyAsync(db -> work.apply(db.getDao(entityClass, keyType)));
+    }
+
+    /**
+     * Runs work inside a transaction on the executor.
+     * @param work the work
+     * @param <R> the result type
+     * @return a future that completes with the result of the work
+     * @see ContextTransactionManager#callInTransaction(java.util.concurrent.Callable)
+     */
+    public <R> CompletableFuture<R> callInTransaction(SqlFunction<? super DatabaseContext, R> work) {
+        checkNotNull(work, "work");
+        return supplyAsync(db -> db.getTransactionManager().callInTransaction(() -> work.apply(db)));
+    }
+
+    /**
+     * Waits for a future returned by this instance and unwraps an SQL
+     * exception that caused it to fail. This is a convenience for callers
+     * that sometimes need to block.
+     * @param future the future
+     * @param <R> the result type
+     * @return the result
+     * @throws SQLException if the work threw an SQL exception
+     * @throws CompletionException if the work failed for another reason
+     */
+    public static <R> R join(CompletableFuture<R> future) throws SQLException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Shuts down the executor. Work that has already been submitted is
+     * completed, but new work is rejected. This does not close the
+     * database context's connections.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Shuts down the executor and waits for submitted work to complete.
+     * @param timeout the maximum time to wait
+     * @param unit the timeout unit
+     * @return true if the executor terminated, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean close(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    public static Builder builder(DatabaseContext db) {
+        return new Builder(db);
+    }
+
+    /**
+     * Builder of asynchronous database contexts. If the number of threads is
+     * not specified, one thread is used for a single-connection source and
+     * {@link #DEFAULT_POOLED_THREADS} otherwise. A {@link JdbcPooledConnectionSource}
+     * (possibly wrapped by a {@link ConnectionSources.ConnectionSourceDelegator})
+     * does not expose its pool size, so the number of threads must be
+     * {@link #threads(int) set} explicitly for one, usually to the value
+     * passed to {@link JdbcPooledConnectionSource#setMaxConnectionsFree(int)}.
+     * The default queue capacity is 100 tasks per thread.
+     */
+    public static final class Builder {
+
+        private final DatabaseContext db;
+        private int threads;
+        private int queueCapacity;
+        private UnaryOperator<Runnable> taskDecorator = UnaryOperator.identity();
+        private String threadNameFormat = "async-database-context-%d";
+
+        private Builder(DatabaseContext db) {
+            this.db = checkNotNull(db, "db");
+        }
+
+        /**
+         * Sets the number of executor threads. This should be equal to the
+         * maximum number of connections the connection source supplies.
+         * @param val the number of threads
+         * @return this builder
+         */
+        public Builder threads(int val) {
+            checkArgument(val > 0, "threads must be positive");
+            threads = val;
+            return this;
+        }
+
+        /**
+         * Sets the number of tasks that may wait for an executor thread.
+         * @param val the queue capacity
+         * @return this builder
+         */
+        public Builder queueCapacity(int val) {
+            checkArgument(val > 0, "queue capacity must be positive");
+            queueCapacity = val;
+            return this;
+        }
+
+        public Builder taskDecorator(UnaryOperator<Runnable> val) {
+            taskDecorator = checkNotNull(val);
+            return this;
+        }
+
+        public Builder threadNameFormat(String val) {
+            threadNameFormat = checkNotNull(val);
+            return this;
+        }
+
+        int resolveThreads() throws SQLException {
+            if (threads > 0) {
+                return threads;
+            }
+            ConnectionSource connectionSource = db.getConnectionSource();
+            if (connectionSource.isSingleConnection(null)) {
+                return 1;
+            }
+            while (connectionSource instanceof ConnectionSources.ConnectionSourceDelegator) {
+                connectionSource = ((ConnectionSources.ConnectionSourceDelegator) connectionSource).getDelegate();
+            }
+            checkState(!(connectionSource instanceof JdbcPooledConnectionSource),
+                    "threads must be set explicitly for a pooled connection source, usually to its maximum number of free connections");
+            return DEFAULT_POOLED_THREADS;
+        }
+
+        public AsyncDatabaseContext build() throws SQLException {
+            int numThreads = resolveThreads();
+            int capacity = queueCapacity > 0 ? queueCapacity : numThreads * 100;
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, numThreads,
+                    0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capacity),
+                    new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build(),
+                    new ThreadPoolExecutor.AbortPolicy());
+            return new AsyncDatabaseContext(db, executor, taskDecorator);
+        }
+    }
+}
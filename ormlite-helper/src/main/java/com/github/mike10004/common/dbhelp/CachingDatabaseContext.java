@@ -0,0 +1,164 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Database context whose data access objects use a bounded
+ * {@link EntityCache}, so that lookups by primary key of cached entity
+ * classes are served from memory.
+ *
+ * <p>ORMLite keeps the cache up to date when entities are created, updated
+ * and deleted through a data access object. Other writes, such as those
+ * issued with update and delete builders, raw statements or table utilities,
+ * are detected by watching the statements executed on connections supplied
+ * by this context's connection source. An update, delete, merge, replace,
+ * truncate, alter or drop statement clears the cache of the entity class
+ * whose table is the statement's {@link SqlStatements#getTargetTable(String)
+ * target}, whichever data access object executes it; if the target cannot
+ * be determined, all caches are cleared. Writes made outside this context
+ * are not detected; rely on the time-to-live for those.</p>
+ *
+ * <p>A cache is cleared when the statement executes, before the transaction
+ * that contains it commits, so a concurrent lookup may reload the old row in
+ * the meantime. For writes made within
+ * {@link ContextTransactionManager#callInTransaction(java.util.concurrent.Callable)}
+ * of this context's transaction manager, the affected caches are cleared
+ * again when the transaction ends. Writes committed by other means remain
+ * subject to that window until the time-to-live expires.</p>
+ */
+public class CachingDatabaseContext extends DefaultDatabaseContext {
+
+    private final EntityCache entityCache;
+    private final WriteInvalidator invalidator;
+
+    public CachingDatabaseContext(ConnectionSource connectionSource, EntityCache entityCache) {
+        this(connectionSource, entityCache, new WriteInvalidator(entityCache));
+    }
+
+    private CachingDatabaseContext(ConnectionSource connectionSource, EntityCache entityCache, WriteInvalidator invalidator) {
+        super(new TimingConnectionSource(connectionSource, invalidator), DefaultContextTableUtils::new,
+                cs -> new InvalidatingTransactionManager(new DefaultContextTransactionManager(cs), invalidator));
+        this.entityCache = checkNotNull(entityCache, "entityCache");
+        this.invalidator = invalidator;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    private <T, D extends Dao<T, ?>> D configure(Class<T> clazz, D dao) throws SQLException {
+        if (entityCache.isCached(clazz) && dao.getObjectCache() != entityCache) {
+            invalidator.register(dao.getTableName(), clazz);
+            dao.setObjectCache(entityCache);
+        }
+        return dao;
+    }
+
+    @Override
+    public <T> Dao<T, ?> getDao(Class<T> clz) throws SQLException {
+        return configure(clz, super.getDao(clz));
+    }
+
+    @Override
+    public <T, K> Dao<T, K> getDao(Class<T> clazz, Class<K> keyType) throws SQLException {
+        return configure(clazz, super.getDao(clazz, keyType));
+    }
+
+    private static class InvalidatingTransactionManager implements ContextTransactionManager {
+
+        private final ContextTransactionManager delegate;
+        private final WriteInvalidator invalidator;
+
+        InvalidatingTransactionManager(ContextTransactionManager delegate, WriteInvalidator invalidator) {
+            this.delegate = checkNotNull(delegate);
+            this.invalidator = checkNotNull(invalidator);
+        }
+
+        @Override
+        public <T> T callInTransaction(Callable<T> callable) throws SQLException {
+            return invalidator.callInTransaction(delegate, callable);
+        }
+    }
+
+    static class WriteInvalidator implements StatementListener {
+
+        private static final ImmutableSet<SqlStatements.Kind> INVALIDATING_KINDS = Sets.immutableEnumSet(
+                SqlStatements.Kind.UPDATE, SqlStatements.Kind.DELETE, SqlStatements.Kind.MERGE, SqlStatements.Kind.REPLACE,
+                SqlStatements.Kind.TRUNCATE, SqlStatements.Kind.ALTER, SqlStatements.Kind.DROP);
+
+        private final EntityCache entityCache;
+        private final ConcurrentMap<String, Class<?>> tableClasses = new ConcurrentHashMap<>();
+        private final ThreadLocal<Set<Class<?>>> transactionInvalidations = new ThreadLocal<>();
+
+        WriteInvalidator(EntityCache entityCache) {
+            this.entityCache = checkNotNull(entityCache);
+        }
+
+        void register(String tableName, Class<?> clazz) {
+            tableClasses.put(Ascii.toLowerCase(tableName), clazz);
+        }
+
+        static boolean isInvalidating(String sql) {
+            return INVALIDATING_KINDS.contains(SqlStatements.getKind(sql));
+        }
+
+        @Override
+        public void statementExecuted(StatementExecution execution) {
+            if (tableClasses.isEmpty() || !isInvalidating(execution.getSql())) {
+                return;
+            }
+            String tableName = SqlStatements.getTargetTable(execution.getSql());
+            if (tableName == null) {
+                tableClasses.values().forEach(this::invalidate);
+            } else {
+                Class<?> clazz = tableClasses.get(Ascii.toLowerCase(tableName));
+                if (clazz != null) {
+                    invalidate(clazz);
+                }
+            }
+        }
+
+        private void invalidate(Class<?> clazz) {
+            entityCache.clear(clazz);
+            Set<Class<?>> invalidated = transactionInvalidations.get();
+            if (invalidated != null) {
+                invalidated.add(clazz);
+            }
+        }
+
+        /**
+         * Calls a transaction and clears the caches invalidated within it
+         * again when the outermost transaction on this thread ends, whether
+         * it commits or rolls back.
+         */
+        <T> T callInTransaction(ContextTransactionManager delegate, Callable<T> callable) throws SQLException {
+            Set<Class<?>> outer = transactionInvalidations.get();
+            Set<Class<?>> invalidated = new HashSet<>();
+            transactionInvalidations.set(invalidated);
+            try {
+                return delegate.callInTransaction(callable);
+            } finally {
+                if (outer != null) {
+                    outer.addAll(invalidated);
+                    transactionInvalidations.set(outer);
+                } else {
+                    transactionInvalidations.remove();
+                    invalidated.forEach(entityCache::clear);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.mike10004.common.dbhelp;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+
+/**
+ * Service provider interface for collecting metrics from a
+ * {@link MetricsConnectionSource}. Implementations must be thread-safe and
+ * should return quickly, because they are invoked on the threads that
+ * acquire connections and execute statements.
+ * @see DefaultConnectionSourceMetrics
+ */
+public interface ConnectionSourceMetrics extends StatementListener {
+
+    /**
+     * Notifies this instance that a connection was acquired.
+     * @param tableName the table name passed when requesting the connection; may be null
+     * @param waitNanos time spent waiting for the underlying connection source
+     */
+    void connectionAcquired(@Nullable String tableName, long waitNanos);
+
+    /**
+     * Notifies this instance that an attempt to acquire a connection failed.
+     * @param tableName the table name passed when requesting the connection; may be null
+     * @param waitNanos time spent waiting for the underlying connection source
+     * @param error the exception thrown by the underlying connection source
+     */
+    void connectionAcquisitionFailed(@Nullable String tableName, long waitNanos, SQLException error);
+
+    /**
+     * Notifies this instance that a connection was released.
+     * @param tableName the table name passed when requesting the connection; may be null
+     * @param holdNanos time elapsed between acquiring and releasing the connection
+     */
+    void connectionReleased(@Nullable String tableName, long holdNanos);
+
+}
@@ -0,0 +1,44 @@
+package com.github.mike10004.common.dbhelp;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing connection source metrics through JMX.
+ * Durations are expressed in milliseconds.
+ * @see DefaultConnectionSourceMetrics#registerMBean(String)
+ */
+public interface ConnectionSourceMetricsMXBean {
+
+    long getConnectionsBorrowed();
+
+    long getConnectionsReleased();
+
+    long getConnectionsInUse();
+
+    long getConnectionAcquisitionErrors();
+
+    double getMeanAcquireWaitMillis();
+
+    double getMaxAcquireWaitMillis();
+
+    double getMeanHoldMillis();
+
+    double getMaxHoldMillis();
+
+    long getStatementsExecuted();
+
+    long getStatementErrors();
+
+    Map<String, Long> getStatementCountByTable();
+
+    Map<String, Double> getStatementMeanMillisByTable();
+
+    Map<String, Double> getStatementMedianMillisByTable();
+
+    Map<String, Double> getStatement99thPercentileMillisByTable();
+
+    Map<String, Double> getStatementMaxMillisByTable();
+
+    void reset();
+
+}
@@ -0,0 +1,140 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.MoreObjects;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.db.MysqlDatabaseType;
+
+import java.sql.ResultSet;
+
+/**
+ * Value class that holds the statement and result set settings used to
+ * open a {@link QueryCursor}.
+ * @see QueryCursors
+ */
+public final class CursorSettings {
+
+    /**
+     * Fetch size that causes MySQL Connector/J to stream rows one at a time
+     * instead of buffering the entire result set in memory. The driver only
+     * honors this on a forward-only, read-only statement.
+     */
+    public static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    /**
+     * Fetch size used by {@link #defaults()}.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final int fetchSize;
+    private final boolean forwardOnly;
+    private final boolean readOnly;
+
+    private CursorSettings(Builder builder) {
+        fetchSize = builder.fetchSize;
+        forwardOnly = builder.forwardOnly;
+        readOnly = builder.readOnly;
+    }
+
+    /**
+     * Gets the fetch size hint passed to the JDBC driver.
+     * @return the fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public boolean isForwardOnly() {
+        return forwardOnly;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Gets the result set type constant corresponding to these settings.
+     * @return {@link ResultSet#TYPE_FORWARD_ONLY} or {@link ResultSet#TYPE_SCROLL_INSENSITIVE}
+     */
+    public int getResultSetType() {
+        return forwardOnly ? ResultSet.TYPE_FORWARD_ONLY : ResultSet.TYPE_SCROLL_INSENSITIVE;
+    }
+
+    /**
+     * Gets the result set concurrency constant corresponding to these settings.
+     * @return {@link ResultSet#CONCUR_READ_ONLY} or {@link ResultSet#CONCUR_UPDATABLE}
+     */
+    public int getResultSetConcurrency() {
+        return readOnly ? ResultSet.CONCUR_READ_ONLY : ResultSet.CONCUR_UPDATABLE;
+    }
+
+    /**
+     * Gets settings for a forward-only, read-only cursor with the
+     * {@link #DEFAULT_FETCH_SIZE default fetch size}.
+     * @return the settings
+     */
+    public static CursorSettings defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Gets settings for a forward-only, read-only cursor that streams rows
+     * from a database of the given type. For MySQL and MariaDB, this uses
+     * {@link #MYSQL_STREAMING_FETCH_SIZE}; otherwise the default fetch size
+     * is used.
+     * @param databaseType the database type
+     * @return the settings
+     */
+    public static CursorSettings streaming(DatabaseType databaseType) {
+        Builder b = builder();
+        if (databaseType instanceof MysqlDatabaseType) {
+            b.fetchSize(MYSQL_STREAMING_FETCH_SIZE);
+        }
+        return b.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("fetchSize", fetchSize)
+                .add("forwardOnly", forwardOnly)
+                .add("readOnly", readOnly)
+                .toString();
+    }
+
+    /**
+     * Builder of cursor settings. By default, cursors are forward-only and
+     * read-only and use the {@link #DEFAULT_FETCH_SIZE default fetch size}.
+     */
+    public static final class Builder {
+
+        private int fetchSize = DEFAULT_FETCH_SIZE;
+        private boolean forwardOnly = true;
+        private boolean readOnly = true;
+
+        private Builder() {
+        }
+
+        public Builder fetchSize(int val) {
+            fetchSize = val;
+            return this;
+        }
+
+        public Builder forwardOnly(boolean val) {
+            forwardOnly = val;
+            return this;
+        }
+
+        public Builder readOnly(boolean val) {
+            readOnly = val;
+            return this;
+        }
+
+        public CursorSettings build() {
+            return new CursorSettings(this);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.mike10004.common.dbhelp;
 
 import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.support.ConnectionSource;
 import java.sql.SQLException;
 
@@ -89,5 +90,35 @@ public interface DatabaseContext {
      * @see com.j256.ormlite.table.TableUtils
      */
     ContextTableUtils getTableUtils();
-    
+
+    /**
+     * Opens a cursor over all rows of the table associated with an entity
+     * class. Rows are mapped as they are read, so the whole table is never
+     * held in memory. The cursor must be closed.
+     * @param <T> the entity type
+     * @param entityClass the entity class
+     * @param settings the cursor settings
+     * @return a new cursor
+     * @throws SQLException if executing the query fails
+     * @see QueryCursors
+     */
+    default <T> QueryCursor<T> openCursor(Class<T> entityClass, CursorSettings settings) throws SQLException {
+        return QueryCursors.open(this, entityClass, settings);
+    }
+
+    /**
+     * Opens a cursor over the rows selected by a query builder. Rows are
+     * mapped as they are read. The cursor must be closed.
+     * @param <T> the entity type
+     * @param entityClass the entity class
+     * @param queryBuilder the query builder
+     * @param settings the cursor settings
+     * @return a new cursor
+     * @throws SQLException if executing the query fails
+     * @see QueryCursors
+     */
+    default <T> QueryCursor<T> openCursor(Class<T> entityClass, QueryBuilder<T, ?> queryBuilder, CursorSettings settings) throws SQLException {
+        return QueryCursors.open(this, entityClass, queryBuilder, settings);
+    }
+
 }
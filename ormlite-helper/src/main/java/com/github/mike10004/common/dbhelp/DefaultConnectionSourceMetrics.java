@@ -0,0 +1,225 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Default implementation of connection source metrics. Counters and
+ * histograms are kept in memory and can be read directly or
+ * {@link #registerMBean(String) through JMX}. Statement latencies are
+ * recorded in a {@link LatencyHistogram} per table.
+ */
+public class DefaultConnectionSourceMetrics implements ConnectionSourceMetrics, ConnectionSourceMetricsMXBean {
+
+    /**
+     * Key used in per-table maps for connections that were not requested
+     * for a specific table.
+     */
+    public static final String UNKNOWN_TABLE = "<none>";
+
+    /**
+     * JMX domain used by {@link #registerMBean(String)}.
+     */
+    public static final String JMX_DOMAIN = "com.github.mike10004.common.dbhelp";
+
+    private final LongAdder connectionsBorrowed = new LongAdder();
+    private final LongAdder connectionsReleased = new LongAdder();
+    private final AtomicLong connectionsInUse = new AtomicLong();
+    private final LongAdder acquisitionErrors = new LongAdder();
+    private final LongAdder statementErrors = new LongAdder();
+    private final LatencyHistogram acquireWait = new LatencyHistogram();
+    private final LatencyHistogram hold = new LatencyHistogram();
+    private final ConcurrentMap<String, LatencyHistogram> statementLatencies = new ConcurrentHashMap<>();
+
+    private static String key(@Nullable String tableName) {
+        return tableName == null ? UNKNOWN_TABLE : tableName;
+    }
+
+    @Override
+    public void connectionAcquired(@Nullable String tableName, long waitNanos) {
+        connectionsBorrowed.increment();
+        connectionsInUse.incrementAndGet();
+        acquireWait.record(waitNanos);
+    }
+
+    @Override
+    public void connectionAcquisitionFailed(@Nullable String tableName, long waitNanos, SQLException error) {
+        acquisitionErrors.increment();
+        acquireWait.record(waitNanos);
+    }
+
+    @Override
+    public void connectionReleased(@Nullable String tableName, long holdNanos) {
+        connectionsReleased.increment();
+        connectionsInUse.decrementAndGet();
+        hold.record(holdNanos);
+    }
+
+    @Override
+    public void statementExecuted(StatementExecution execution) {
+        if (execution.isFailed()) {
+            statementErrors.increment();
+        }
+        getStatementLatencies(execution.getTableName()).record(execution.getDurationNanos());
+    }
+
+    /**
+     * Gets the statement latency histogram for a table, creating it if necessary.
+     * @param tableName the table name; may be null
+     * @return the histogram
+     */
+    public LatencyHistogram getStatementLatencies(@Nullable String tableName) {
+        return statementLatencies.computeIfAbsent(key(tableName), k -> new LatencyHistogram());
+    }
+
+    public LatencyHistogram getAcquireWaitLatencies() {
+        return acquireWait;
+    }
+
+    public LatencyHistogram getHoldLatencies() {
+        return hold;
+    }
+
+    @Override
+    public long getConnectionsBorrowed() {
+        return connectionsBorrowed.sum();
+    }
+
+    @Override
+    public long getConnectionsReleased() {
+        return connectionsReleased.sum();
+    }
+
+    @Override
+    public long getConnectionsInUse() {
+        return connectionsInUse.get();
+    }
+
+    @Override
+    public long getConnectionAcquisitionErrors() {
+        return acquisitionErrors.sum();
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public double getMeanAcquireWaitMillis() {
+        return toMillis(acquireWait.getMeanNanos());
+    }
+
+    @Override
+    public double getMaxAcquireWaitMillis() {
+        return toMillis(acquireWait.getMaxNanos());
+    }
+
+    @Override
+    public double getMeanHoldMillis() {
+        return toMillis(hold.getMeanNanos());
+    }
+
+    @Override
+    public double getMaxHoldMillis() {
+        return toMillis(hold.getMaxNanos());
+    }
+
+    @Override
+    public long getStatementsExecuted() {
+        long total = 0;
+        for (LatencyHistogram histogram : statementLatencies.values()) {
+            total += histogram.getCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getStatementErrors() {
+        return statementErrors.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStatementCountByTable() {
+        ImmutableSortedMap.Builder<String, Long> b = ImmutableSortedMap.naturalOrder();
+        statementLatencies.forEach((table, histogram) -> b.put(table, histogram.getCount()));
+        return b.build();
+    }
+
+    private Map<String, Double> summarizeByTable(ToDoubleFunction<LatencyHistogram> nanosFunction) {
+        ImmutableSortedMap.Builder<String, Double> b = ImmutableSortedMap.naturalOrder();
+        statementLatencies.forEach((table, histogram) -> b.put(table, toMillis(nanosFunction.applyAsDouble(histogram))));
+        return b.build();
+    }
+
+    @Override
+    public Map<String, Double> getStatementMeanMillisByTable() {
+        return summarizeByTable(LatencyHistogram::getMeanNanos);
+    }
+
+    @Override
+    public Map<String, Double> getStatementMedianMillisByTable() {
+        return summarizeByTable(h -> h.getPercentileNanos(50));
+    }
+
+    @Override
+    public Map<String, Double> getStatement99thPercentileMillisByTable() {
+        return summarizeByTable(h -> h.getPercentileNanos(99));
+    }
+
+    @Override
+    public Map<String, Double> getStatementMaxMillisByTable() {
+        return summarizeByTable(LatencyHistogram::getMaxNanos);
+    }
+
+    /**
+     * Resets counters and histograms. The count of connections in use is
+     * not reset, because connections borrowed before the reset may still
+     * be released afterwards.
+     */
+    @Override
+    public void reset() {
+        connectionsBorrowed.reset();
+        connectionsReleased.reset();
+        acquisitionErrors.reset();
+        statementErrors.reset();
+        acquireWait.reset();
+        hold.reset();
+        statementLatencies.clear();
+    }
+
+    /**
+     * Registers this instance with the platform MBean server.
+     * @param name value of the {@code name} key of the object name
+     * @return the object name under which this instance was registered
+     * @throws JMException if registration fails
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        return registerMBean(ManagementFactory.getPlatformMBeanServer(), name);
+    }
+
+    /**
+     * Registers this instance with an MBean server.
+     * @param server the server
+     * @param name value of the {@code name} key of the object name
+     * @return the object name under which this instance was registered
+     * @throws JMException if registration fails
+     */
+    public ObjectName registerMBean(MBeanServer server, String name) throws JMException {
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ConnectionSourceMetrics,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+}
@@ -1,11 +1,13 @@
 package com.github.mike10004.common.dbhelp;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.DatabaseTableConfig;
 import com.j256.ormlite.table.TableUtils;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class that implements default context table utilities.
@@ -13,26 +15,81 @@ import java.util.List;
 public class DefaultContextTableUtils implements ContextTableUtils {
     
     private final ConnectionSource connectionSource;
+    private final int schemaParallelism;
+    private final ImmutableMap<Class<?>, DatabaseTableConfig<?>> tableConfigs;
 
     /**
      * Constructs an instance with a given connection source.
      * @param connectionSource the connection source
      */
     public DefaultContextTableUtils(ConnectionSource connectionSource) {
+        this(connectionSource, 1);
+    }
+
+    /**
+     * Constructs an instance with a given connection source that creates
+     * independent tables concurrently. {@link #createAllTables(Iterable)}
+     * and {@link #createAllTablesIfNotExists(Iterable)} are performed by a
+     * {@link SchemaBootstrapper}, whatever the parallelism: each class is
+     * processed once, its table configuration is derived once, tables are
+     * created in dependency order, and tables found to exist are skipped and
+     * contribute no statements to the returned count. Each table is created
+     * by {@link #createTable(DatabaseTableConfig)} or
+     * {@link #createTableIfNotExists(DatabaseTableConfig)}, so overrides of
+     * those methods apply.
+     * @param connectionSource the connection source
+     * @param schemaParallelism maximum number of tables to create concurrently
+     * @see SchemaBootstrapper
+     */
+    public DefaultContextTableUtils(ConnectionSource connectionSource, int schemaParallelism) {
+        this(connectionSource, schemaParallelism, ImmutableMap.of());
+    }
+
+    /**
+     * Constructs an instance that uses precomputed table configurations for
+     * entity classes instead of scanning their annotations.
+     * @param connectionSource the connection source
+     * @param schemaParallelism maximum number of tables to create concurrently
+     * @param tableConfigs map of entity class to table configuration
+     * @see TableConfigRegistry#createTableConfigs()
+     */
+    public DefaultContextTableUtils(ConnectionSource connectionSource, int schemaParallelism, Map<Class<?>, DatabaseTableConfig<?>> tableConfigs) {
         this.connectionSource = Preconditions.checkNotNull(connectionSource, "connectionSource");
+        Preconditions.checkArgument(schemaParallelism >= 1, "schemaParallelism must be at least 1");
+        this.schemaParallelism = schemaParallelism;
+        this.tableConfigs = ImmutableMap.copyOf(tableConfigs);
     }
 
     protected ConnectionSource getConnectionSource() {
         return connectionSource;
     }
 
+    /**
+     * Gets the precomputed table configuration for an entity class.
+     * @param dataClass the entity class
+     * @param <T> the entity type
+     * @return the table configuration, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> DatabaseTableConfig<T> getTableConfig(Class<T> dataClass) {
+        return (DatabaseTableConfig<T>) tableConfigs.get(dataClass);
+    }
+
     @Override
     public <T> int createTable(Class<T> dataClass) throws SQLException {
+        DatabaseTableConfig<T> tableConfig = getTableConfig(dataClass);
+        if (tableConfig != null) {
+            return createTable(tableConfig);
+        }
         return TableUtils.createTable(getConnectionSource(), dataClass);
     }
 
     @Override
     public <T> int createTableIfNotExists(Class<T> dataClass) throws SQLException {
+        DatabaseTableConfig<T> tableConfig = getTableConfig(dataClass);
+        if (tableConfig != null) {
+            return createTableIfNotExists(tableConfig);
+        }
         return TableUtils.createTableIfNotExists(getConnectionSource(), dataClass);
     }
 
@@ -48,24 +105,25 @@ public class DefaultContextTableUtils implements ContextTableUtils {
 
     @Override
     public int createAllTablesIfNotExists(Iterable<Class<?>> dataClasses) throws SQLException {
-        int totalNumStatementsExecuted = 0;
-        for (Class<?> clz : dataClasses) {
-            totalNumStatementsExecuted += createTableIfNotExists(clz);
-        }
-        return totalNumStatementsExecuted;
+        return createSchemaBootstrapper().createAllTables(dataClasses, true);
     }
 
     @Override
     public int createAllTables(Iterable<Class<?>> dataClasses) throws SQLException {
-        int totalNumStatementsExecuted = 0;
-        for (Class<?> clz : dataClasses) {
-            totalNumStatementsExecuted += createTable(clz);
-        }
-        return totalNumStatementsExecuted;
+        return createSchemaBootstrapper().createAllTables(dataClasses, false);
+    }
+
+    private SchemaBootstrapper createSchemaBootstrapper() {
+        return new SchemaBootstrapper(getConnectionSource(), schemaParallelism, tableConfigs,
+                (tableConfig, ifNotExists) -> ifNotExists ? createTableIfNotExists(tableConfig) : createTable(tableConfig));
     }
 
     @Override
     public <T, ID> List<String> getCreateTableStatements(Class<T> dataClass) throws SQLException {
+        DatabaseTableConfig<T> tableConfig = getTableConfig(dataClass);
+        if (tableConfig != null) {
+            return getCreateTableStatements(tableConfig);
+        }
         return TableUtils.getCreateTableStatements(getConnectionSource(), dataClass);
     }
 
@@ -76,6 +134,10 @@ public class DefaultContextTableUtils implements ContextTableUtils {
 
     @Override
     public <T, ID> int dropTable(Class<T> dataClass, boolean ignoreErrors) throws SQLException {
+        DatabaseTableConfig<T> tableConfig = getTableConfig(dataClass);
+        if (tableConfig != null) {
+            return dropTable(tableConfig, ignoreErrors);
+        }
         return TableUtils.dropTable(getConnectionSource(), dataClass, ignoreErrors);
     }
 
@@ -86,6 +148,10 @@ public class DefaultContextTableUtils implements ContextTableUtils {
 
     @Override
     public <T> int clearTable(Class<T> dataClass) throws SQLException {
+        DatabaseTableConfig<T> tableConfig = getTableConfig(dataClass);
+        if (tableConfig != null) {
+            return clearTable(tableConfig);
+        }
         return TableUtils.clearTable(getConnectionSource(), dataClass);
     }
 
@@ -1,13 +1,17 @@
 package com.github.mike10004.common.dbhelp;
 
 import java.util.function.Function;
+
+import com.google.common.collect.ImmutableMap;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
 
 import java.io.IOException;
 import java.sql.SQLException;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -18,6 +22,7 @@ public class DefaultDatabaseContext implements DatabaseContext {
     private final ConnectionSource connectionSource;
     private final Function<ConnectionSource, ContextTableUtils> tableUtilsFactory;
     private final Function<ConnectionSource, ContextTransactionManager> transactionManagerFactory;
+    private final ImmutableMap<Class<?>, DatabaseTableConfig<?>> tableConfigs;
     private ContextTableUtils tableUtils;
     private ContextTransactionManager transactionManager;
     private transient final Object lock = new Object();
@@ -43,9 +48,64 @@ public class DefaultDatabaseContext implements DatabaseContext {
     public DefaultDatabaseContext(ConnectionSource connectionSource, 
             Function<ConnectionSource, ContextTableUtils> tableUtilsFactory, 
             Function<ConnectionSource, ContextTransactionManager> transactionManagerFactory) {
+        this(connectionSource, tableUtilsFactory, transactionManagerFactory, ImmutableMap.of());
+    }
+
+    /**
+     * Constructs an instance of the class with the given connection source
+     * and precomputed table configurations. Data access objects and table
+     * utilities for entity classes in the registry are created from the
+     * registry's configurations without scanning annotations.
+     * @param connectionSource the connection source
+     * @param tableConfigRegistry the table configuration registry
+     */
+    public DefaultDatabaseContext(ConnectionSource connectionSource, TableConfigRegistry tableConfigRegistry) {
+        this(connectionSource, tableConfigRegistry, 1, new DefaultTransactionManagerFactory());
+    }
+
+    /**
+     * Constructs an instance of the class with the given connection source,
+     * precomputed table configurations, schema parallelism, and transaction
+     * manager factory. To report statement executions to a listener, as
+     * {@link #instrumented(ConnectionSource, StatementListener)} does, pass
+     * a {@link TimingConnectionSource} as the connection source.
+     * @param connectionSource the connection source
+     * @param tableConfigRegistry the table configuration registry
+     * @param schemaParallelism maximum number of tables to create concurrently
+     * @param transactionManagerFactory the transaction manager factory
+     * @see DefaultContextTableUtils#DefaultContextTableUtils(ConnectionSource, int)
+     */
+    public DefaultDatabaseContext(ConnectionSource connectionSource, TableConfigRegistry tableConfigRegistry,
+            int schemaParallelism, Function<ConnectionSource, ContextTransactionManager> transactionManagerFactory) {
+        this(connectionSource, tableConfigRegistry.createTableConfigs(), schemaParallelism, transactionManagerFactory);
+        checkArgument(schemaParallelism >= 1, "schemaParallelism must be at least 1");
+    }
+
+    private DefaultDatabaseContext(ConnectionSource connectionSource, ImmutableMap<Class<?>, DatabaseTableConfig<?>> tableConfigs,
+            int schemaParallelism, Function<ConnectionSource, ContextTransactionManager> transactionManagerFactory) {
+        this(connectionSource, cs -> new DefaultContextTableUtils(cs, schemaParallelism, tableConfigs), transactionManagerFactory, tableConfigs);
+    }
+
+    private DefaultDatabaseContext(ConnectionSource connectionSource,
+            Function<ConnectionSource, ContextTableUtils> tableUtilsFactory,
+            Function<ConnectionSource, ContextTransactionManager> transactionManagerFactory,
+            ImmutableMap<Class<?>, DatabaseTableConfig<?>> tableConfigs) {
         this.connectionSource = checkNotNull(connectionSource, "connectionSource");
         this.tableUtilsFactory = checkNotNull(tableUtilsFactory, "tableUtilsFactory");
         this.transactionManagerFactory = checkNotNull(transactionManagerFactory, "transactionManagerFactory");
+        this.tableConfigs = checkNotNull(tableConfigs, "tableConfigs");
+    }
+
+    /**
+     * Constructs an instance whose connection source supplies connections
+     * that report each statement execution to a listener. The given
+     * connection source is wrapped in a {@link TimingConnectionSource}.
+     * @param connectionSource the connection source
+     * @param listener the statement listener, such as a {@link SlowQueryListener}
+     * @return a new database context
+     */
+    public static DefaultDatabaseContext instrumented(ConnectionSource connectionSource, StatementListener listener) {
+        return new DefaultDatabaseContext(new TimingConnectionSource(connectionSource, listener));
     }
 
     @Override
@@ -109,7 +169,7 @@ public class DefaultDatabaseContext implements DatabaseContext {
      */
     @Override
     public <T> Dao<T, ?> getDao(Class<T> clz) throws SQLException {
-        return DaoManager.createDao(getConnectionSource(), clz);
+        return createDao(clz);
     }
 
     /**
@@ -127,6 +187,15 @@ public class DefaultDatabaseContext implements DatabaseContext {
      */
      @Override
     public <T, K> Dao<T, K> getDao(Class<T> clazz, Class<K> keyType) throws SQLException {
+        return createDao(clazz);
+    }
+
+    private <T, D extends Dao<T, ?>> D createDao(Class<T> clazz) throws SQLException {
+        @SuppressWarnings("unchecked")
+        DatabaseTableConfig<T> tableConfig = (DatabaseTableConfig<T>) tableConfigs.get(clazz);
+        if (tableConfig != null) {
+            return DaoManager.createDao(getConnectionSource(), tableConfig);
+        }
         return DaoManager.createDao(getConnectionSource(), clazz);
     }
     
@@ -0,0 +1,224 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.j256.ormlite.dao.ObjectCache;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Object cache that holds entities in bounded Guava caches, one per entity
+ * class, with a per-class size cap and time-to-live. Only classes for which
+ * a specification has been provided are cached; for other classes, this
+ * cache never holds anything. Hit and miss counts are recorded per class.
+ *
+ * <p>As with any ORMLite object cache, a cached entity instance is shared by
+ * all callers that look it up, so callers must not modify an entity unless
+ * they also persist the change.</p>
+ * @see CachingDatabaseContext
+ */
+public class EntityCache implements ObjectCache {
+
+    private final ImmutableMap<Class<?>, Spec> specs;
+    @Nullable
+    private final Spec defaultSpec;
+    private final ConcurrentMap<Class<?>, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+
+    private EntityCache(Builder builder) {
+        specs = ImmutableMap.copyOf(builder.specs);
+        defaultSpec = builder.defaultSpec;
+    }
+
+    /**
+     * Checks whether entities of the given class are cached.
+     * @param clazz the entity class
+     * @return true if this cache has a specification for the class
+     */
+    public boolean isCached(Class<?> clazz) {
+        return specs.containsKey(clazz) || defaultSpec != null;
+    }
+
+    @Nullable
+    private Cache<Object, Object> getCache(Class<?> clazz) {
+        Cache<Object, Object> cache = caches.get(clazz);
+        if (cache == null && isCached(clazz)) {
+            cache = caches.computeIfAbsent(clazz, this::createCache);
+        }
+        return cache;
+    }
+
+    private Cache<Object, Object> createCache(Class<?> clazz) {
+        Spec spec = specs.getOrDefault(clazz, defaultSpec);
+        checkNotNull(spec, "no spec for %s", clazz);
+        CacheBuilder<Object, Object> b = CacheBuilder.newBuilder()
+                .maximumSize(spec.maximumSize)
+                .recordStats();
+        if (spec.ttlNanos > 0) {
+            b.expireAfterWrite(spec.ttlNanos, TimeUnit.NANOSECONDS);
+        }
+        return b.build();
+    }
+
+    @Override
+    public <T> void registerClass(Class<T> clazz) {
+        getCache(clazz);
+    }
+
+    @Override
+    public <T, ID> T get(Class<T> clazz, ID id) {
+        Cache<Object, Object> cache = getCache(clazz);
+        if (cache == null) {
+            return null;
+        }
+        return clazz.cast(cache.getIfPresent(id));
+    }
+
+    @Override
+    public <T, ID> void put(Class<T> clazz, ID id, T data) {
+        Cache<Object, Object> cache = getCache(clazz);
+        if (cache != null && id != null && data != null) {
+            cache.put(id, data);
+        }
+    }
+
+    @Override
+    public <T, ID> void remove(Class<T> clazz, ID id) {
+        Cache<Object, Object> cache = getCache(clazz);
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public <T, ID> T updateId(Class<T> clazz, ID oldId, ID newId) {
+        Cache<Object, Object> cache = getCache(clazz);
+        if (cache == null) {
+            return null;
+        }
+        Object data = cache.asMap().remove(oldId);
+        if (data != null) {
+            cache.put(newId, data);
+        }
+        return clazz.cast(data);
+    }
+
+    @Override
+    public <T> void clear(Class<T> clazz) {
+        Cache<Object, Object> cache = caches.get(clazz);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    @Override
+    public void clearAll() {
+        caches.values().forEach(Cache::invalidateAll);
+    }
+
+    @Override
+    public <T> int size(Class<T> clazz) {
+        Cache<Object, Object> cache = caches.get(clazz);
+        return cache == null ? 0 : (int) cache.size();
+    }
+
+    @Override
+    public int sizeAll() {
+        long total = 0;
+        for (Cache<Object, Object> cache : caches.values()) {
+            total += cache.size();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, total);
+    }
+
+    /**
+     * Gets the hit and miss statistics for an entity class. Statistics
+     * include lookups that ORMLite performs while mapping query results,
+     * not only lookups by primary key.
+     * @param clazz the entity class
+     * @return the statistics
+     */
+    public CacheStats getStats(Class<?> clazz) {
+        Cache<Object, Object> cache = caches.get(clazz);
+        return cache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : cache.stats();
+    }
+
+    /**
+     * Gets the statistics for all entity classes that have been cached.
+     * @return a map of entity class to statistics
+     */
+    public ImmutableMap<Class<?>, CacheStats> getAllStats() {
+        ImmutableMap.Builder<Class<?>, CacheStats> b = ImmutableMap.builder();
+        caches.forEach((clazz, cache) -> b.put(clazz, cache.stats()));
+        return b.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static final class Spec {
+
+        public final long maximumSize;
+        public final long ttlNanos;
+
+        private Spec(long maximumSize, long ttl, TimeUnit unit) {
+            checkArgument(maximumSize >= 0, "maximum size must be nonnegative");
+            checkArgument(ttl >= 0, "time-to-live must be nonnegative");
+            this.maximumSize = maximumSize;
+            this.ttlNanos = unit.toNanos(ttl);
+        }
+    }
+
+    /**
+     * Builder of entity caches.
+     */
+    public static final class Builder {
+
+        private final Map<Class<?>, Spec> specs = new HashMap<>();
+        @Nullable
+        private Spec defaultSpec;
+
+        private Builder() {
+        }
+
+        /**
+         * Enables caching of an entity class.
+         * @param clazz the entity class
+         * @param maximumSize maximum number of entities of the class to cache
+         * @param ttl time after which a cached entity expires; zero means never
+         * @param unit the time-to-live unit
+         * @return this builder
+         */
+        public Builder cache(Class<?> clazz, long maximumSize, long ttl, TimeUnit unit) {
+            specs.put(checkNotNull(clazz), new Spec(maximumSize, ttl, unit));
+            return this;
+        }
+
+        /**
+         * Enables caching of all entity classes that do not have their own
+         * specification.
+         * @param maximumSize maximum number of entities of each class to cache
+         * @param ttl time after which a cached entity expires; zero means never
+         * @param unit the time-to-live unit
+         * @return this builder
+         */
+        public Builder cacheAll(long maximumSize, long ttl, TimeUnit unit) {
+            defaultSpec = new Spec(maximumSize, ttl, unit);
+            return this;
+        }
+
+        public EntityCache build() {
+            return new EntityCache(this);
+        }
+    }
+}
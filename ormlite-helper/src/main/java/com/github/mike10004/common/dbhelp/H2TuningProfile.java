@@ -0,0 +1,394 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Value class that holds H2 engine settings to be rendered into a JDBC URL.
+ * Settings that are not set are omitted from the URL, so the engine default
+ * applies. Presets are provided for common workloads; use {@link #toBuilder()}
+ * to adjust a preset.
+ *
+ * <p>The {@code LOCK_MODE}, {@code LOG} and {@code UNDO_LOG} settings apply
+ * to the PageStore engine. Under the MVStore engine with MVCC, the default
+ * as of H2 1.4, rows are versioned and these settings have little or no
+ * effect; set {@link Builder#mvStore(Boolean) mvStore(false)} where they
+ * matter. Note that the engine determines the database file name, so a
+ * PageStore URL does not open a database created with the MVStore engine.</p>
+ * @see AbstractH2FileConnectionSource#setTuningProfile(H2TuningProfile)
+ */
+public final class H2TuningProfile {
+
+    /**
+     * Enumeration of values of the {@code LOCK_MODE} setting. Table level
+     * locking applies to the PageStore engine only; the MVStore engine with
+     * MVCC locks rows.
+     */
+    public enum LockMode {
+
+        /**
+         * No locking. Only safe if there is a single connection.
+         */
+        OFF(0),
+
+        /**
+         * Table level locking; readers lock tables in shared mode.
+         */
+        SERIALIZABLE(1),
+
+        /**
+         * Table level locking with read committed isolation; the default.
+         */
+        READ_COMMITTED(3);
+
+        private final int value;
+
+        LockMode(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Enumeration of values of the {@code LOG} setting, which applies to the
+     * PageStore engine.
+     */
+    public enum LogMode {
+
+        /**
+         * Transaction log disabled. The database may be corrupted if the
+         * process terminates abnormally.
+         */
+        DISABLED(0),
+
+        /**
+         * Transaction log enabled, but the file is not synced on commit.
+         */
+        NO_SYNC(1),
+
+        /**
+         * Transaction log enabled and synced on commit; the default.
+         */
+        FULL(2);
+
+        private final int value;
+
+        LogMode(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+    }
+
+    @Nullable
+    private final Integer cacheSizeKb;
+    @Nullable
+    private final LockMode lockMode;
+    @Nullable
+    private final Boolean mvStore;
+    @Nullable
+    private final Boolean mvcc;
+    @Nullable
+    private final Integer writeDelayMillis;
+    @Nullable
+    private final LogMode logMode;
+    @Nullable
+    private final Boolean undoLog;
+    @Nullable
+    private final Integer queryCacheSize;
+    @Nullable
+    private final Integer maxMemoryRows;
+
+    private H2TuningProfile(Builder builder) {
+        cacheSizeKb = builder.cacheSizeKb;
+        lockMode = builder.lockMode;
+        mvStore = builder.mvStore;
+        mvcc = builder.mvcc;
+        writeDelayMillis = builder.writeDelayMillis;
+        logMode = builder.logMode;
+        undoLog = builder.undoLog;
+        queryCacheSize = builder.queryCacheSize;
+        maxMemoryRows = builder.maxMemoryRows;
+    }
+
+    /**
+     * Gets a profile with no settings.
+     * @return the profile
+     */
+    public static H2TuningProfile defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Gets a profile for loading a large amount of data over a single
+     * connection. The PageStore engine is used, so that disabling the
+     * transaction log, undo log and locking takes effect, and the cache is
+     * enlarged. The database may be corrupted if the process terminates
+     * during the load, so the load should be restartable from scratch. Use
+     * this profile for a new database or one created with the PageStore engine.
+     * @return the profile
+     */
+    public static H2TuningProfile bulkLoad() {
+        return builder()
+                .mvStore(false)
+                .logMode(LogMode.DISABLED)
+                .undoLog(false)
+                .lockMode(LockMode.OFF)
+                .cacheSizeKb(128 * 1024)
+                .maxMemoryRows(1000 * 1000)
+                .build();
+    }
+
+    /**
+     * Gets a profile for a database that is mostly queried. The page cache
+     * and the per-session query cache are enlarged.
+     * @return the profile
+     */
+    public static H2TuningProfile readMostly() {
+        return builder()
+                .cacheSizeKb(128 * 1024)
+                .queryCacheSize(64)
+                .lockMode(LockMode.READ_COMMITTED)
+                .build();
+    }
+
+    /**
+     * Gets a profile for an ephemeral database, such as one created for a
+     * test, whose content need not survive a crash. The transaction log is
+     * disabled; the engine's default write delay is kept, so commits do not
+     * wait for the disk.
+     * @return the profile
+     */
+    public static H2TuningProfile ephemeral() {
+        return builder()
+                .logMode(LogMode.DISABLED)
+                .build();
+    }
+
+    @Nullable
+    public Integer getCacheSizeKb() {
+        return cacheSizeKb;
+    }
+
+    @Nullable
+    public LockMode getLockMode() {
+        return lockMode;
+    }
+
+    @Nullable
+    public Boolean getMvStore() {
+        return mvStore;
+    }
+
+    @Nullable
+    public Boolean getMvcc() {
+        return mvcc;
+    }
+
+    @Nullable
+    public Integer getWriteDelayMillis() {
+        return writeDelayMillis;
+    }
+
+    @Nullable
+    public LogMode getLogMode() {
+        return logMode;
+    }
+
+    @Nullable
+    public Boolean getUndoLog() {
+        return undoLog;
+    }
+
+    @Nullable
+    public Integer getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    @Nullable
+    public Integer getMaxMemoryRows() {
+        return maxMemoryRows;
+    }
+
+    /**
+     * Renders the settings as JDBC URL clauses, such as {@code CACHE_SIZE=8192}.
+     * @return the clauses, in a fixed order
+     */
+    public ImmutableList<String> toUrlClauses() {
+        ImmutableList.Builder<String> clauses = ImmutableList.builder();
+        if (mvStore != null) {
+            clauses.add("MV_STORE=" + mvStore.toString().toUpperCase());
+        }
+        if (mvcc != null) {
+            clauses.add("MVCC=" + mvcc.toString().toUpperCase());
+        }
+        if (cacheSizeKb != null) {
+            clauses.add("CACHE_SIZE=" + cacheSizeKb);
+        }
+        if (lockMode != null) {
+            clauses.add("LOCK_MODE=" + lockMode.getValue());
+        }
+        if (writeDelayMillis != null) {
+            clauses.add("WRITE_DELAY=" + writeDelayMillis);
+        }
+        if (logMode != null) {
+            clauses.add("LOG=" + logMode.getValue());
+        }
+        if (undoLog != null) {
+            clauses.add("UNDO_LOG=" + (undoLog ? 1 : 0));
+        }
+        if (queryCacheSize != null) {
+            clauses.add("QUERY_CACHE_SIZE=" + queryCacheSize);
+        }
+        if (maxMemoryRows != null) {
+            clauses.add("MAX_MEMORY_ROWS=" + maxMemoryRows);
+        }
+        return clauses.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder initialized with the settings of this profile.
+     * @return a new builder
+     */
+    public Builder toBuilder() {
+        Builder b = new Builder();
+        b.cacheSizeKb = cacheSizeKb;
+        b.lockMode = lockMode;
+        b.mvStore = mvStore;
+        b.mvcc = mvcc;
+        b.writeDelayMillis = writeDelayMillis;
+        b.logMode = logMode;
+        b.undoLog = undoLog;
+        b.queryCacheSize = queryCacheSize;
+        b.maxMemoryRows = maxMemoryRows;
+        return b;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .omitNullValues()
+                .add("cacheSizeKb", cacheSizeKb)
+                .add("lockMode", lockMode)
+                .add("mvStore", mvStore)
+                .add("mvcc", mvcc)
+                .add("writeDelayMillis", writeDelayMillis)
+                .add("logMode", logMode)
+                .add("undoLog", undoLog)
+                .add("queryCacheSize", queryCacheSize)
+                .add("maxMemoryRows", maxMemoryRows)
+                .toString();
+    }
+
+    /**
+     * Builder of tuning profiles. By default, no settings are set. Passing
+     * null to a setter unsets the setting.
+     */
+    public static final class Builder {
+
+        private Integer cacheSizeKb;
+        private LockMode lockMode;
+        private Boolean mvStore;
+        private Boolean mvcc;
+        private Integer writeDelayMillis;
+        private LogMode logMode;
+        private Boolean undoLog;
+        private Integer queryCacheSize;
+        private Integer maxMemoryRows;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the page cache size.
+         * @param val the size in kilobytes
+         * @return this builder
+         */
+        public Builder cacheSizeKb(@Nullable Integer val) {
+            checkArgument(val == null || val >= 0, "cache size must be nonnegative");
+            cacheSizeKb = val;
+            return this;
+        }
+
+        public Builder lockMode(@Nullable LockMode val) {
+            lockMode = val;
+            return this;
+        }
+
+        public Builder mvStore(@Nullable Boolean val) {
+            mvStore = val;
+            return this;
+        }
+
+        public Builder mvcc(@Nullable Boolean val) {
+            mvcc = val;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay between a commit and flushing the log.
+         * @param val the delay in milliseconds
+         * @return this builder
+         */
+        public Builder writeDelayMillis(@Nullable Integer val) {
+            checkArgument(val == null || val >= 0, "write delay must be nonnegative");
+            writeDelayMillis = val;
+            return this;
+        }
+
+        public Builder logMode(@Nullable LogMode val) {
+            logMode = val;
+            return this;
+        }
+
+        /**
+         * Sets whether the undo log is enabled. This applies to the PageStore engine.
+         * @param val true to enable the undo log
+         * @return this builder
+         */
+        public Builder undoLog(@Nullable Boolean val) {
+            undoLog = val;
+            return this;
+        }
+
+        /**
+         * Sets the number of parsed queries cached per session.
+         * @param val the number of queries
+         * @return this builder
+         */
+        public Builder queryCacheSize(@Nullable Integer val) {
+            checkArgument(val == null || val >= 0, "query cache size must be nonnegative");
+            queryCacheSize = val;
+            return this;
+        }
+
+        /**
+         * Sets the number of rows of a result set that are kept in memory
+         * before the result is buffered to disk.
+         * @param val the number of rows
+         * @return this builder
+         */
+        public Builder maxMemoryRows(@Nullable Integer val) {
+            checkArgument(val == null || val >= 0, "max memory rows must be nonnegative");
+            maxMemoryRows = val;
+            return this;
+        }
+
+        public H2TuningProfile build() {
+            return new H2TuningProfile(this);
+        }
+    }
+}
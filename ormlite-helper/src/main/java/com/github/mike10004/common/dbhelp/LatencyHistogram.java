@@ -0,0 +1,107 @@
+package com.github.mike10004.common.dbhelp;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations. Durations are counted in buckets whose
+ * upper bounds are successive powers of two microseconds, so percentiles are
+ * estimates that are accurate to within a factor of two. Recording a value
+ * costs a few atomic increments and allocates nothing.
+ */
+public class LatencyHistogram {
+
+    static final int NUM_BUCKETS = 40;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records a duration.
+     * @param durationNanos the duration in nanoseconds
+     */
+    public void record(long durationNanos) {
+        long nanos = Math.max(0L, durationNanos);
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    static int bucketIndex(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int index = 64 - Long.numberOfLeadingZeros(micros);
+        return Math.min(index, NUM_BUCKETS - 1);
+    }
+
+    /**
+     * Gets the upper bound of a bucket.
+     * @param index the bucket index
+     * @return the bucket's upper bound in nanoseconds
+     */
+    static long bucketUpperBoundNanos(int index) {
+        return TimeUnit.MICROSECONDS.toNanos(1L << index);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the mean of the recorded durations.
+     * @return the mean in nanoseconds, or zero if nothing has been recorded
+     */
+    public double getMeanNanos() {
+        long n = getCount();
+        return n == 0 ? 0d : (double) getTotalNanos() / n;
+    }
+
+    /**
+     * Estimates a percentile of the recorded durations. The estimate is the
+     * upper bound of the bucket that contains the percentile, capped at the
+     * maximum recorded duration.
+     * @param percentile the percentile, from 0 to 100
+     * @return the estimate in nanoseconds, or zero if nothing has been recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(total * Math.min(100d, Math.max(0d, percentile)) / 100d);
+        long cumulative = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank && snapshot[i] > 0) {
+                return Math.min(bucketUpperBoundNanos(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.Ticker;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import java.sql.SQLException;
+
+/**
+ * Connection source that delegates to another connection source and reports
+ * connection acquisition and release events and statement executions to a
+ * {@link ConnectionSourceMetrics metrics} instance.
+ *
+ * <p>Connection wait time is the time spent in the delegate's
+ * {@code getReadOnlyConnection} or {@code getReadWriteConnection} method.
+ * With a pooled connection source, a large wait time relative to statement
+ * latency indicates pool starvation.</p>
+ */
+public class MetricsConnectionSource extends TimingConnectionSource {
+
+    private final ConnectionSourceMetrics metrics;
+
+    public MetricsConnectionSource(ConnectionSource delegate, ConnectionSourceMetrics metrics) {
+        this(delegate, metrics, Ticker.systemTicker());
+    }
+
+    public MetricsConnectionSource(ConnectionSource delegate, ConnectionSourceMetrics metrics, Ticker ticker) {
+        super(delegate, metrics, ticker);
+        this.metrics = metrics;
+    }
+
+    public ConnectionSourceMetrics getMetrics() {
+        return metrics;
+    }
+
+    private interface ConnectionGetter {
+        DatabaseConnection get(ConnectionSource delegate, String tableName) throws SQLException;
+    }
+
+    private DatabaseConnection acquire(String tableName, ConnectionGetter getter) throws SQLException {
+        Ticker ticker = getTicker();
+        long start = ticker.read();
+        DatabaseConnection connection;
+        try {
+            connection = getter.get(getCheckedDelegate(), tableName);
+        } catch (SQLException e) {
+            metrics.connectionAcquisitionFailed(tableName, ticker.read() - start, e);
+            throw e;
+        }
+        metrics.connectionAcquired(tableName, ticker.read() - start);
+        return wrap(connection, tableName);
+    }
+
+    @Override
+    public DatabaseConnection getReadOnlyConnection(String tableName) throws SQLException {
+        return acquire(tableName, ConnectionSource::getReadOnlyConnection);
+    }
+
+    @Override
+    public DatabaseConnection getReadWriteConnection(String tableName) throws SQLException {
+        return acquire(tableName, ConnectionSource::getReadWriteConnection);
+    }
+
+    @Override
+    public void releaseConnection(DatabaseConnection connection) throws SQLException {
+        if (connection instanceof TimingDatabaseConnection) {
+            TimingDatabaseConnection timing = (TimingDatabaseConnection) connection;
+            metrics.connectionReleased(timing.getTableName(), timing.getOpenNanos());
+        }
+        super.releaseConnection(connection);
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.stmt.GenericRowMapper;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.support.DatabaseResults;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Iterator over the rows of a query result that maps each row as it is read
+ * from the database, without collecting rows into an intermediate list.
+ * A cursor holds a database connection until it is closed, so it must always
+ * be closed, preferably with a try-with-resources statement. A cursor is
+ * closed automatically once the last row has been read.
+ *
+ * <p>Instances are created by the methods of {@link QueryCursors}.</p>
+ * @param <T> the type of the mapped rows
+ */
+public class QueryCursor<T> implements Iterator<T>, Closeable {
+
+    private final ConnectionSource connectionSource;
+    private final DatabaseConnection connection;
+    private final PreparedStatement statement;
+    private final DatabaseResults results;
+    private final GenericRowMapper<T> rowMapper;
+    private boolean advanced;
+    private boolean rowAvailable;
+    private boolean closed;
+
+    QueryCursor(ConnectionSource connectionSource, DatabaseConnection connection, PreparedStatement statement, DatabaseResults results, GenericRowMapper<T> rowMapper) {
+        this.connectionSource = checkNotNull(connectionSource, "connectionSource");
+        this.connection = checkNotNull(connection, "connection");
+        this.statement = checkNotNull(statement, "statement");
+        this.results = checkNotNull(results, "results");
+        this.rowMapper = checkNotNull(rowMapper, "rowMapper");
+    }
+
+    /**
+     * Checks whether another row is available, advancing the underlying
+     * result set if necessary.
+     * @return true if another row is available
+     * @throws IllegalStateException if advancing the result set fails
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                rowAvailable = results.next();
+            } catch (SQLException e) {
+                closeQuietly();
+                throw new IllegalStateException("failed to advance cursor", e);
+            }
+            advanced = true;
+            if (!rowAvailable) {
+                closeQuietly();
+            }
+        }
+        return rowAvailable;
+    }
+
+    /**
+     * Maps and returns the current row.
+     * @return the mapped row
+     * @throws NoSuchElementException if no more rows are available
+     * @throws IllegalStateException if mapping the row fails
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            return rowMapper.mapRow(results);
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IllegalStateException("failed to map row", e);
+        }
+    }
+
+    /**
+     * Returns a sequential stream over the remaining rows of this cursor.
+     * Closing the stream closes this cursor.
+     * @return a new stream
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::closeQuietly);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the result set and statement and releases the connection back
+     * to the connection source. Has no effect if this cursor is already closed.
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            results.closeQuietly();
+            statement.close();
+        } catch (SQLException e) {
+            throw new IOException(e);
+        } finally {
+            try {
+                connectionSource.releaseConnection(connection);
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    public void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignore) {
+        }
+    }
+
+}
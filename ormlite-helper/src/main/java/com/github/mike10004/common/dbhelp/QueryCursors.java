@@ -0,0 +1,136 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.jdbc.JdbcCompiledStatement;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.jdbc.JdbcDatabaseResults;
+import com.j256.ormlite.stmt.ArgumentHolder;
+import com.j256.ormlite.stmt.GenericRowMapper;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.StatementBuilder.StatementInfo;
+import com.j256.ormlite.stmt.StatementBuilder.StatementType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Static utility methods that open {@link QueryCursor cursors} over query
+ * results. Unlike the list-returning query methods of a {@link Dao}, the
+ * cursors opened by these methods map each row as it is read, so that
+ * scanning a large table runs in constant memory as long as the JDBC driver
+ * honors the {@link CursorSettings#getFetchSize() fetch size}.
+ *
+ * <p>Only connection sources that supply JDBC connections are supported.</p>
+ * @see DatabaseContext#openCursor(Class, CursorSettings)
+ */
+public class QueryCursors {
+
+    private QueryCursors() {}
+
+    /**
+     * Opens a cursor over all rows of the table associated with an entity class.
+     * @param db the database context
+     * @param entityClass the entity class
+     * @param settings the cursor settings
+     * @param <T> the entity type
+     * @return a new cursor
+     * @throws SQLException if executing the query fails
+     */
+    public static <T> QueryCursor<T> open(DatabaseContext db, Class<T> entityClass, CursorSettings settings) throws SQLException {
+        Dao<T, ?> dao = db.getDao(entityClass);
+        return open(db, entityClass, dao.queryBuilder(), settings);
+    }
+
+    /**
+     * Opens a cursor over the rows selected by a query builder. The query must
+     * select columns that the entity class's row mapper can map.
+     * @param db the database context
+     * @param entityClass the entity class
+     * @param queryBuilder the query builder
+     * @param settings the cursor settings
+     * @param <T> the entity type
+     * @return a new cursor
+     * @throws SQLException if executing the query fails
+     */
+    public static <T> QueryCursor<T> open(DatabaseContext db, Class<T> entityClass, QueryBuilder<T, ?> queryBuilder, CursorSettings settings) throws SQLException {
+        Dao<T, ?> dao = db.getDao(entityClass);
+        StatementInfo statementInfo = queryBuilder.prepareStatementInfo();
+        List<ArgumentHolder> argList = statementInfo.getArgList();
+        return open(db.getConnectionSource(), dao.getTableName(), statementInfo.getStatement(), statement -> {
+            JdbcCompiledStatement compiledStatement = new JdbcCompiledStatement(statement, StatementType.SELECT, false);
+            for (int i = 0; i < argList.size(); i++) {
+                ArgumentHolder arg = argList.get(i);
+                compiledStatement.setObject(i, arg.getSqlArgValue(), arg.getSqlType());
+            }
+        }, dao.getSelectStarRowMapper(), settings);
+    }
+
+    /**
+     * Opens a cursor over the rows returned by a raw SQL query.
+     * @param db the database context
+     * @param tableName name of the table passed to the connection source
+     *                  when requesting a connection; may be null
+     * @param sql the query
+     * @param rowMapper the row mapper
+     * @param settings the cursor settings
+     * @param args the query arguments
+     * @param <T> the type of the mapped rows
+     * @return a new cursor
+     * @throws SQLException if executing the query fails
+     */
+    public static <T> QueryCursor<T> open(DatabaseContext db, String tableName, String sql, GenericRowMapper<T> rowMapper, CursorSettings settings, Object...args) throws SQLException {
+        return open(db.getConnectionSource(), tableName, sql, statement -> {
+            for (int i = 0; i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+        }, rowMapper, settings);
+    }
+
+    private interface ArgumentBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private static <T> QueryCursor<T> open(ConnectionSource connectionSource, String tableName, String sql, ArgumentBinder binder, GenericRowMapper<T> rowMapper, CursorSettings settings) throws SQLException {
+        checkNotNull(sql, "sql");
+        checkNotNull(rowMapper, "rowMapper");
+        checkNotNull(settings, "settings");
+        DatabaseConnection connection = connectionSource.getReadOnlyConnection(tableName);
+        PreparedStatement statement = null;
+        boolean clean = false;
+        try {
+            Connection jdbcConnection = getJdbcConnection(connection);
+            statement = jdbcConnection.prepareStatement(sql, settings.getResultSetType(), settings.getResultSetConcurrency());
+            statement.setFetchSize(settings.getFetchSize());
+            binder.bind(statement);
+            ResultSet resultSet = statement.executeQuery();
+            QueryCursor<T> cursor = new QueryCursor<>(connectionSource, connection, statement, new JdbcDatabaseResults(statement, resultSet, null, false), rowMapper);
+            clean = true;
+            return cursor;
+        } finally {
+            if (!clean) {
+                if (statement != null) {
+                    try {
+                        statement.close();
+                    } catch (SQLException ignore) {
+                    }
+                }
+                connectionSource.releaseConnection(connection);
+            }
+        }
+    }
+
+    static Connection getJdbcConnection(DatabaseConnection connection) throws SQLException {
+        connection = TimingDatabaseConnection.unwrap(connection);
+        if (connection instanceof JdbcDatabaseConnection) {
+            return ((JdbcDatabaseConnection) connection).getInternalConnection();
+        }
+        throw new SQLException("cursors require a JDBC connection; connection source supplied " + connection);
+    }
+}
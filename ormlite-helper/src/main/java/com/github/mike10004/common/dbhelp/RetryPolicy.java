@@ -0,0 +1,187 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Value class that defines when and how often a failed transaction is retried.
+ * Delays between attempts grow exponentially and are randomized with
+ * "full jitter," meaning each delay is chosen uniformly between zero and the
+ * exponential bound, so that contending transactions do not retry in lockstep.
+ * @see RetryingContextTransactionManager
+ */
+public final class RetryPolicy {
+
+    /**
+     * SQL states that indicate a transaction was rolled back because of a
+     * serialization failure or deadlock.
+     */
+    public static final ImmutableSet<String> DEFAULT_RETRYABLE_SQL_STATES = ImmutableSet.of(
+            "40001", // serialization failure; also MySQL deadlock
+            "40P01"  // PostgreSQL deadlock detected
+    );
+
+    /**
+     * Vendor error codes that indicate a transaction may succeed if retried.
+     */
+    public static final ImmutableSet<Integer> DEFAULT_RETRYABLE_ERROR_CODES = ImmutableSet.of(
+            1213, // MySQL ER_LOCK_DEADLOCK
+            1205, // MySQL ER_LOCK_WAIT_TIMEOUT
+            40001, // H2 DEADLOCK_1
+            50200 // H2 LOCK_TIMEOUT_1
+    );
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double multiplier;
+    private final Predicate<? super SQLException> classifier;
+
+    private RetryPolicy(Builder builder) {
+        maxAttempts = builder.maxAttempts;
+        initialBackoffMillis = builder.initialBackoffMillis;
+        maxBackoffMillis = builder.maxBackoffMillis;
+        multiplier = builder.multiplier;
+        classifier = builder.classifier;
+    }
+
+    /**
+     * Gets the maximum number of attempts, including the first.
+     * @return the maximum number of attempts
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Determines whether a transaction that failed with the given exception
+     * may be retried. The exception's cause chain is examined, because the
+     * transaction manager wraps exceptions thrown by the callable.
+     * @param exception the exception
+     * @return true if any exception in the cause chain is classified as retryable
+     */
+    public boolean isRetryable(SQLException exception) {
+        Throwable t = exception;
+        while (t != null) {
+            if (t instanceof SQLException && classifier.test((SQLException) t)) {
+                return true;
+            }
+            t = t.getCause() == t ? null : t.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     * @param failedAttempts the number of attempts that have failed so far; at least 1
+     * @param random source of randomness for jitter
+     * @return the delay in milliseconds
+     */
+    public long computeBackoffMillis(int failedAttempts, Random random) {
+        double bound = initialBackoffMillis * Math.pow(multiplier, Math.max(0, failedAttempts - 1));
+        long cappedBound = (long) Math.min(maxBackoffMillis, bound);
+        if (cappedBound <= 0) {
+            return 0L;
+        }
+        return (long) (random.nextDouble() * (cappedBound + 1));
+    }
+
+    /**
+     * Default classifier of retryable exceptions, which checks the SQL state
+     * and vendor error code against {@link #DEFAULT_RETRYABLE_SQL_STATES} and
+     * {@link #DEFAULT_RETRYABLE_ERROR_CODES}.
+     * @param exception the exception
+     * @return true if the exception is retryable
+     */
+    public static boolean isRetryableByDefault(SQLException exception) {
+        return DEFAULT_RETRYABLE_SQL_STATES.contains(exception.getSQLState())
+                || DEFAULT_RETRYABLE_ERROR_CODES.contains(exception.getErrorCode());
+    }
+
+    /**
+     * Gets a policy with default settings.
+     * @return the default policy
+     * @see Builder
+     */
+    public static RetryPolicy defaults() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("maxAttempts", maxAttempts)
+                .add("initialBackoffMillis", initialBackoffMillis)
+                .add("maxBackoffMillis", maxBackoffMillis)
+                .add("multiplier", multiplier)
+                .toString();
+    }
+
+    /**
+     * Builder of retry policies. By default, a transaction is attempted at
+     * most 5 times, the backoff bound starts at 20 milliseconds and doubles
+     * after each failure up to 1 second, and exceptions are classified by
+     * {@link #isRetryableByDefault(SQLException)}.
+     */
+    public static final class Builder {
+
+        private int maxAttempts = 5;
+        private long initialBackoffMillis = 20;
+        private long maxBackoffMillis = 1000;
+        private double multiplier = 2d;
+        private Predicate<? super SQLException> classifier = RetryPolicy::isRetryableByDefault;
+
+        private Builder() {
+        }
+
+        public Builder maxAttempts(int val) {
+            checkArgument(val >= 1, "max attempts must be at least 1");
+            maxAttempts = val;
+            return this;
+        }
+
+        public Builder initialBackoff(long duration, TimeUnit unit) {
+            checkArgument(duration >= 0, "backoff must be nonnegative");
+            initialBackoffMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder maxBackoff(long duration, TimeUnit unit) {
+            checkArgument(duration >= 0, "backoff must be nonnegative");
+            maxBackoffMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder multiplier(double val) {
+            checkArgument(val >= 1d, "multiplier must be at least 1");
+            multiplier = val;
+            return this;
+        }
+
+        /**
+         * Sets the predicate that determines whether an exception is retryable.
+         * @param val the predicate
+         * @return this builder
+         */
+        public Builder classifier(Predicate<? super SQLException> val) {
+            classifier = checkNotNull(val);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Context transaction manager that retries transactions that fail with
+ * exceptions classified as retryable by a {@link RetryPolicy}, such as
+ * deadlocks and lock wait timeouts. Transactions are rolled back by the
+ * delegate before they are retried, so the callable must be safe to invoke
+ * more than once.
+ *
+ * <p>Only the outermost transaction on a thread is retried. A failure in a
+ * nested transaction propagates to the outermost one, because the enclosing
+ * transaction is no longer usable after a deadlock.</p>
+ *
+ * <p>To use this transaction manager with a database context, construct the
+ * context with {@link #factory(RetryPolicy)}:</p>
+ * <pre>
+ *     DatabaseContext db = new DefaultDatabaseContext(connectionSource,
+ *             DefaultContextTableUtils::new,
+ *             RetryingContextTransactionManager.factory(RetryPolicy.defaults()));
+ * </pre>
+ */
+public class RetryingContextTransactionManager implements ContextTransactionManager {
+
+    private final ContextTransactionManager delegate;
+    private final RetryPolicy retryPolicy;
+    private final ThreadLocal<Integer> depth = ThreadLocal.withInitial(() -> 0);
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhaustedFailures = new LongAdder();
+    private final LongAdder nonRetryableFailures = new LongAdder();
+
+    public RetryingContextTransactionManager(ContextTransactionManager delegate, RetryPolicy retryPolicy) {
+        this.delegate = checkNotNull(delegate, "delegate");
+        this.retryPolicy = checkNotNull(retryPolicy, "retryPolicy");
+    }
+
+    /**
+     * Creates a factory of retrying transaction managers that delegate to
+     * {@link DefaultContextTransactionManager} instances.
+     * @param retryPolicy the retry policy
+     * @return the factory
+     */
+    public static Function<ConnectionSource, ContextTransactionManager> factory(RetryPolicy retryPolicy) {
+        checkNotNull(retryPolicy, "retryPolicy");
+        return connectionSource -> new RetryingContextTransactionManager(new DefaultContextTransactionManager(connectionSource), retryPolicy);
+    }
+
+    @Override
+    public <T> T callInTransaction(Callable<T> callable) throws SQLException {
+        int currentDepth = depth.get();
+        depth.set(currentDepth + 1);
+        try {
+            if (currentDepth > 0) {
+                return delegate.callInTransaction(callable);
+            }
+            return callWithRetries(callable);
+        } finally {
+            if (currentDepth == 0) {
+                depth.remove();
+            } else {
+                depth.set(currentDepth);
+            }
+        }
+    }
+
+    private <T> T callWithRetries(Callable<T> callable) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return delegate.callInTransaction(callable);
+            } catch (SQLException e) {
+                if (!retryPolicy.isRetryable(e)) {
+                    nonRetryableFailures.increment();
+                    throw e;
+                }
+                if (attempt >= retryPolicy.getMaxAttempts()) {
+                    exhaustedFailures.increment();
+                    throw e;
+                }
+                long backoffMillis = retryPolicy.computeBackoffMillis(attempt, random());
+                Logger.getLogger(RetryingContextTransactionManager.class.getName())
+                        .log(Level.FINE, "retrying transaction after attempt {0} failed; sleeping {1} ms: {2}", new Object[]{attempt, backoffMillis, e});
+                retries.increment();
+                try {
+                    sleep(backoffMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(ie);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    protected Random random() {
+        return ThreadLocalRandom.current();
+    }
+
+    protected void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Gets the total number of attempts made by outermost transactions.
+     * @return the attempt count
+     */
+    public long getAttemptCount() {
+        return attempts.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * Gets the number of transactions that failed with a retryable exception
+     * on their last permitted attempt.
+     * @return the count of transactions that exhausted their attempts
+     */
+    public long getExhaustedFailureCount() {
+        return exhaustedFailures.sum();
+    }
+
+    public long getNonRetryableFailureCount() {
+        return nonRetryableFailures.sum();
+    }
+}
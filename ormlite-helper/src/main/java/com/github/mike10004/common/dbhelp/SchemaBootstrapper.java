@@ -0,0 +1,281 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import com.j256.ormlite.table.TableUtils;
+
+import javax.annotation.Nullable;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Class that creates the tables for many entity classes at once. Table
+ * configurations are derived once per class. Tables are ordered so that a
+ * table is created after the tables its foreign fields refer to, and tables
+ * that do not depend on each other are created concurrently if the
+ * connection source supplies more than one connection and parallelism
+ * greater than one is requested. When only missing tables are to be created
+ * and the connection source supplies JDBC connections, the set of existing
+ * tables is read with a single metadata query instead of one probe per
+ * table; otherwise each table is created with an if-not-exists statement.
+ * @see DefaultContextTableUtils#createAllTables(Iterable)
+ */
+public class SchemaBootstrapper {
+
+    private final ConnectionSource connectionSource;
+    private final int parallelism;
+    private final ImmutableMap<Class<?>, DatabaseTableConfig<?>> tableConfigs;
+    @Nullable
+    private final TableCreator tableCreator;
+
+    /**
+     * Interface for services that create a table from its configuration.
+     * Implement this to route table creation through methods of another
+     * object, such as the overridable methods of a {@link ContextTableUtils}.
+     */
+    public interface TableCreator {
+
+        /**
+         * Creates a table.
+         * @param tableConfig the table configuration derived by the bootstrapper
+         * @param ifNotExists true to create the table only if it does not exist
+         * @return number of statements executed
+         * @throws SQLException if creating the table fails
+         */
+        int createTable(DatabaseTableConfig<?> tableConfig, boolean ifNotExists) throws SQLException;
+    }
+
+    /**
+     * Constructs an instance.
+     * @param connectionSource the connection source
+     * @param parallelism maximum number of tables to create concurrently
+     */
+    public SchemaBootstrapper(ConnectionSource connectionSource, int parallelism) {
+        this(connectionSource, parallelism, ImmutableMap.of());
+    }
+
+    /**
+     * Constructs an instance that uses precomputed table configurations
+     * where available.
+     * @param connectionSource the connection source
+     * @param parallelism maximum number of tables to create concurrently
+     * @param tableConfigs map of entity class to table configuration
+     */
+    public SchemaBootstrapper(ConnectionSource connectionSource, int parallelism, Map<Class<?>, DatabaseTableConfig<?>> tableConfigs) {
+        this(connectionSource, parallelism, tableConfigs, null);
+    }
+
+    /**
+     * Constructs an instance that creates each table with the given creator.
+     * Table configurations are derived here, once per class, and passed to
+     * the creator.
+     * @param connectionSource the connection source
+     * @param parallelism maximum number of tables to create concurrently
+     * @param tableConfigs map of entity class to table configuration
+     * @param tableCreator the table creator; if null, tables are created
+     *                     with {@link TableUtils} from their configurations
+     */
+    public SchemaBootstrapper(ConnectionSource connectionSource, int parallelism, Map<Class<?>, DatabaseTableConfig<?>> tableConfigs, @Nullable TableCreator tableCreator) {
+        this.tableCreator = tableCreator;
+        this.connectionSource = checkNotNull(connectionSource, "connectionSource");
+        checkArgument(parallelism >= 1, "parallelism must be at least 1");
+        this.parallelism = parallelism;
+        this.tableConfigs = ImmutableMap.copyOf(tableConfigs);
+    }
+
+    /**
+     * Creates tables for the given entity classes. Each class is processed
+     * once, even if it occurs more than once in the argument.
+     * @param dataClasses the entity classes
+     * @param ifNotExists true to skip tables that already exist
+     * @return number of statements executed; a table found to exist by the
+     * metadata query is skipped and contributes no statements
+     * @throws SQLException if creating a table fails
+     */
+    public int createAllTables(Iterable<Class<?>> dataClasses, boolean ifNotExists) throws SQLException {
+        List<DatabaseTableConfig<?>> configs = new ArrayList<>();
+        for (Class<?> dataClass : ImmutableSet.copyOf(dataClasses)) {
+            DatabaseTableConfig<?> config = tableConfigs.get(dataClass);
+            configs.add(config != null ? config : DatabaseTableConfig.fromClass(connectionSource, dataClass));
+        }
+        if (ifNotExists) {
+            Set<String> existing = readExistingTableNames();
+            if (existing != null) {
+                configs.removeIf(config -> existing.contains(Ascii.toLowerCase(config.getTableName())));
+            }
+        }
+        List<List<DatabaseTableConfig<?>>> levels = orderByDependencies(configs);
+        int effectiveParallelism = connectionSource.isSingleConnection(null) ? 1 : parallelism;
+        if (effectiveParallelism == 1) {
+            return createSequentially(levels, ifNotExists);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(effectiveParallelism, new ThreadFactoryBuilder()
+                .setNameFormat("schema-bootstrapper-%d").setDaemon(true).build());
+        try {
+            return createConcurrently(levels, ifNotExists, executor);
+        } finally {
+            MoreExecutors.shutdownAndAwaitTermination(executor, 1, TimeUnit.MINUTES);
+        }
+    }
+
+    private int createTable(DatabaseTableConfig<?> config, boolean ifNotExists) throws SQLException {
+        if (tableCreator != null) {
+            return tableCreator.createTable(config, ifNotExists);
+        }
+        if (ifNotExists) {
+            return TableUtils.createTableIfNotExists(connectionSource, config);
+        } else {
+            return TableUtils.createTable(connectionSource, config);
+        }
+    }
+
+    private int createSequentially(List<List<DatabaseTableConfig<?>>> levels, boolean ifNotExists) throws SQLException {
+        int total = 0;
+        for (List<DatabaseTableConfig<?>> level : levels) {
+            for (DatabaseTableConfig<?> config : level) {
+                total += createTable(config, ifNotExists);
+            }
+        }
+        return total;
+    }
+
+    private int createConcurrently(List<List<DatabaseTableConfig<?>>> levels, boolean ifNotExists, ExecutorService executor) throws SQLException {
+        int total = 0;
+        for (List<DatabaseTableConfig<?>> level : levels) {
+            List<Future<Integer>> futures = new ArrayList<>(level.size());
+            for (DatabaseTableConfig<?> config : level) {
+                futures.add(executor.submit(() -> createTable(config, ifNotExists)));
+            }
+            for (Future<Integer> future : futures) {
+                try {
+                    total += future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("interrupted while creating tables", e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    throw new SQLException(cause);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reads the names of existing tables with a single metadata query.
+     * @return the set of lowercased table names, or null if the connection
+     * source does not supply JDBC connections
+     * @throws SQLException if the query fails
+     */
+    @Nullable
+    Set<String> readExistingTableNames() throws SQLException {
+        DatabaseConnection connection = connectionSource.getReadOnlyConnection(null);
+        try {
+            DatabaseConnection unwrapped = TimingDatabaseConnection.unwrap(connection);
+            if (!(unwrapped instanceof JdbcDatabaseConnection)) {
+                return null;
+            }
+            Connection jdbcConnection = ((JdbcDatabaseConnection) unwrapped).getInternalConnection();
+            DatabaseMetaData metaData = jdbcConnection.getMetaData();
+            Set<String> names = new HashSet<>();
+            try (ResultSet rs = metaData.getTables(jdbcConnection.getCatalog(), getSchemaQuietly(jdbcConnection), "%", new String[]{"TABLE"})) {
+                while (rs.next()) {
+                    names.add(Ascii.toLowerCase(rs.getString("TABLE_NAME")));
+                }
+            }
+            return names;
+        } finally {
+            connectionSource.releaseConnection(connection);
+        }
+    }
+
+    @Nullable
+    private static String getSchemaQuietly(Connection connection) {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            return null; // older drivers do not implement getSchema
+        }
+    }
+
+    /**
+     * Groups table configurations into levels such that each table's foreign
+     * field targets are in earlier levels. Tables that are part of a
+     * dependency cycle are placed in levels of their own at the end, in
+     * input order.
+     * @param configs the table configurations
+     * @return the list of levels
+     * @throws SQLException if extracting field types fails
+     */
+    List<List<DatabaseTableConfig<?>>> orderByDependencies(List<DatabaseTableConfig<?>> configs) throws SQLException {
+        Map<Class<?>, DatabaseTableConfig<?>> byClass = new LinkedHashMap<>();
+        for (DatabaseTableConfig<?> config : configs) {
+            byClass.put(config.getDataClass(), config);
+        }
+        Map<Class<?>, Set<Class<?>>> dependencies = new LinkedHashMap<>();
+        for (DatabaseTableConfig<?> config : configs) {
+            Set<Class<?>> deps = new LinkedHashSet<>();
+            config.extractFieldTypes(connectionSource);
+            for (FieldType fieldType : config.getFieldTypes(connectionSource.getDatabaseType())) {
+                Class<?> target = fieldType.getType();
+                if (fieldType.isForeign() && byClass.containsKey(target) && !target.equals(config.getDataClass())) {
+                    deps.add(target);
+                }
+            }
+            dependencies.put(config.getDataClass(), deps);
+        }
+        List<List<DatabaseTableConfig<?>>> levels = new ArrayList<>();
+        Set<Class<?>> placed = new HashSet<>();
+        while (placed.size() < byClass.size()) {
+            List<DatabaseTableConfig<?>> level = new ArrayList<>();
+            for (Map.Entry<Class<?>, Set<Class<?>>> entry : dependencies.entrySet()) {
+                if (!placed.contains(entry.getKey()) && placed.containsAll(entry.getValue())) {
+                    level.add(byClass.get(entry.getKey()));
+                }
+            }
+            if (level.isEmpty()) {
+                for (Class<?> clazz : byClass.keySet()) {
+                    if (!placed.contains(clazz)) {
+                        levels.add(ImmutableList.of(byClass.get(clazz)));
+                        placed.add(clazz);
+                    }
+                }
+                break;
+            }
+            for (DatabaseTableConfig<?> config : level) {
+                placed.add(config.getDataClass());
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+}
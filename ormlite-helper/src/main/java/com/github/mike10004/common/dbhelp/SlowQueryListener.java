@@ -0,0 +1,130 @@
+package com.github.mike10004.common.dbhelp;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Statement listener that reports statements whose duration meets or exceeds
+ * a threshold. Only a configurable fraction of slow statements is reported,
+ * so that the listener can stay enabled in production; statements below the
+ * threshold cost a single comparison. By default, reports are logged at
+ * {@link Level#WARNING} with the statement's SQL text, argument count
+ * and duration.
+ * @see DefaultDatabaseContext#instrumented(com.j256.ormlite.support.ConnectionSource, StatementListener)
+ */
+public class SlowQueryListener implements StatementListener {
+
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final Consumer<? super StatementExecution> reporter;
+    private final LongAdder slowStatements = new LongAdder();
+    private final LongAdder reportedStatements = new LongAdder();
+
+    private SlowQueryListener(Builder builder) {
+        thresholdNanos = builder.thresholdNanos;
+        sampleRate = builder.sampleRate;
+        reporter = builder.reporter;
+    }
+
+    @Override
+    public void statementExecuted(StatementExecution execution) {
+        if (execution.getDurationNanos() < thresholdNanos) {
+            return;
+        }
+        slowStatements.increment();
+        if (sampleRate >= 1d || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            reportedStatements.increment();
+            reporter.accept(execution);
+        }
+    }
+
+    /**
+     * Gets the number of statements that met the threshold, whether or not
+     * they were sampled for reporting.
+     * @return the count of slow statements
+     */
+    public long getSlowStatementCount() {
+        return slowStatements.sum();
+    }
+
+    public long getReportedStatementCount() {
+        return reportedStatements.sum();
+    }
+
+    public long getThreshold(TimeUnit unit) {
+        return unit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    static void log(StatementExecution execution) {
+        Logger.getLogger(SlowQueryListener.class.getName())
+                .log(Level.WARNING, "slow statement on table {0} took {1} ms with {2} args{3}: {4}", new Object[]{
+                        execution.getTableName(),
+                        execution.getDuration(TimeUnit.MILLISECONDS),
+                        execution.getArgCount(),
+                        execution.isFailed() ? " and failed" : "",
+                        execution.getSql()});
+    }
+
+    /**
+     * Creates a builder of a listener with the given threshold.
+     * @param threshold the threshold
+     * @param unit the threshold unit
+     * @return a new builder
+     */
+    public static Builder builder(long threshold, TimeUnit unit) {
+        return new Builder(unit.toNanos(threshold));
+    }
+
+    /**
+     * Builder of slow query listeners. By default, every slow statement is
+     * reported, and reports are logged.
+     */
+    public static final class Builder {
+
+        private final long thresholdNanos;
+        private double sampleRate = 1d;
+        private Consumer<? super StatementExecution> reporter = SlowQueryListener::log;
+
+        private Builder(long thresholdNanos) {
+            checkArgument(thresholdNanos >= 0, "threshold must be nonnegative");
+            this.thresholdNanos = thresholdNanos;
+        }
+
+        /**
+         * Sets the fraction of slow statements that are reported.
+         * @param val a value from 0 to 1
+         * @return this builder
+         */
+        public Builder sampleRate(double val) {
+            checkArgument(val >= 0d && val <= 1d, "sample rate must be between 0 and 1");
+            sampleRate = val;
+            return this;
+        }
+
+        /**
+         * Sets the action invoked for each reported statement. The action
+         * is invoked on the thread that executed the statement.
+         * @param val the action
+         * @return this builder
+         */
+        public Builder reporter(Consumer<? super StatementExecution> val) {
+            reporter = checkNotNull(val);
+            return this;
+        }
+
+        public SlowQueryListener build() {
+            return new SlowQueryListener(this);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.mike10004.common.dbhelp;
+
+import java.sql.SQLException;
+
+/**
+ * Function that declares an SQL exception on the apply method.
+ * @param <T> the type of the function argument
+ * @param <R> the type of the function result
+ */
+public interface SqlFunction<T, R> {
+
+    /**
+     * Applies this function to the given argument.
+     * @param t the argument
+     * @return the result
+     * @throws SQLException if applying the function fails
+     */
+    R apply(T t) throws SQLException;
+
+}
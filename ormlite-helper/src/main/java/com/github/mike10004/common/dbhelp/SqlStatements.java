@@ -0,0 +1,119 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.CharMatcher;
+
+import javax.annotation.Nullable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Static utility methods that classify SQL statements by their leading
+ * keyword and find the table a statement writes to. The classification is
+ * lexical and is meant for statements observed by a {@link StatementListener};
+ * it does not validate the statements.
+ */
+public class SqlStatements {
+
+    private SqlStatements() {}
+
+    /**
+     * Enumeration of kinds of statements, identified by leading keyword.
+     */
+    public enum Kind {
+        INSERT, UPDATE, DELETE, MERGE, REPLACE, TRUNCATE, CREATE, ALTER, DROP, SELECT, OTHER;
+
+        /**
+         * Checks whether statements of this kind change the rows of a table.
+         * @return true if this is a data change kind
+         */
+        public boolean isDataChange() {
+            switch (this) {
+                case INSERT:
+                case UPDATE:
+                case DELETE:
+                case MERGE:
+                case REPLACE:
+                case TRUNCATE:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Checks whether statements of this kind change the schema.
+         * @return true if this is a schema change kind
+         */
+        public boolean isSchemaChange() {
+            return this == CREATE || this == ALTER || this == DROP;
+        }
+    }
+
+    private static final CharMatcher LEADING_CHARS = CharMatcher.whitespace().or(CharMatcher.is('('));
+
+    private static final String IDENTIFIER = "(?:\"(?:[^\"]|\"\")*\"|`[^`]*`|\\[[^\\]]*\\]|[\\w$]+)";
+
+    private static final Pattern TARGET_PATTERN = Pattern.compile("^(?:insert\\s+(?:ignore\\s+)?into|update|delete\\s+from"
+            + "|merge\\s+into|replace\\s+into|truncate\\s+table|(?:alter|drop)\\s+table(?:\\s+if\\s+exists)?)"
+            + "\\s+(" + IDENTIFIER + "(?:\\s*\\.\\s*" + IDENTIFIER + ")*)", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern IDENTIFIER_PATTERN = Pattern.compile(IDENTIFIER);
+
+    /**
+     * Gets the kind of a statement from its leading keyword.
+     * @param sql the statement
+     * @return the kind; {@link Kind#OTHER} if the keyword is not recognized
+     */
+    public static Kind getKind(String sql) {
+        String trimmed = LEADING_CHARS.trimLeadingFrom(checkNotNull(sql, "sql"));
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = Ascii.toUpperCase(trimmed.substring(0, end));
+        for (Kind kind : Kind.values()) {
+            if (kind != Kind.OTHER && kind.name().equals(keyword)) {
+                return kind;
+            }
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * Gets the name of the table a statement writes to. The target is found
+     * after {@code INSERT INTO}, {@code UPDATE}, {@code DELETE FROM},
+     * {@code MERGE INTO}, {@code REPLACE INTO}, {@code TRUNCATE TABLE},
+     * {@code ALTER TABLE} or {@code DROP TABLE}. Quotes are removed and, for
+     * a qualified name, only the table name is returned.
+     * @param sql the statement
+     * @return the table name, or null if the target cannot be determined
+     */
+    @Nullable
+    public static String getTargetTable(String sql) {
+        String trimmed = LEADING_CHARS.trimLeadingFrom(checkNotNull(sql, "sql"));
+        Matcher matcher = TARGET_PATTERN.matcher(trimmed);
+        if (!matcher.find()) {
+            return null;
+        }
+        Matcher identifiers = IDENTIFIER_PATTERN.matcher(matcher.group(1));
+        String last = null;
+        while (identifiers.find()) {
+            last = identifiers.group();
+        }
+        return last == null ? null : unquote(last);
+    }
+
+    private static String unquote(String identifier) {
+        char first = identifier.charAt(0);
+        if (first == '"') {
+            return identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"");
+        }
+        if (first == '`' || first == '[') {
+            return identifier.substring(1, identifier.length() - 1);
+        }
+        return identifier;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.MoreObjects;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value class that describes the execution of a single SQL statement on a
+ * {@link TimingDatabaseConnection}.
+ * @see StatementListener
+ */
+public final class StatementExecution {
+
+    @Nullable
+    private final String tableName;
+    private final String sql;
+    private final int argCount;
+    private final long durationNanos;
+    @Nullable
+    private final SQLException error;
+
+    public StatementExecution(@Nullable String tableName, String sql, int argCount, long durationNanos, @Nullable SQLException error) {
+        this.tableName = tableName;
+        this.sql = sql;
+        this.argCount = argCount;
+        this.durationNanos = durationNanos;
+        this.error = error;
+    }
+
+    /**
+     * Gets the name of the table for which the connection was requested.
+     * @return the table name; null if the connection was not requested for a specific table
+     */
+    @Nullable
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Gets the number of arguments bound to the statement.
+     * @return the argument count
+     */
+    public int getArgCount() {
+        return argCount;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the exception thrown by the statement.
+     * @return the exception, or null if the statement succeeded
+     */
+    @Nullable
+    public SQLException getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("tableName", tableName)
+                .add("sql", sql)
+                .add("argCount", argCount)
+                .add("durationNanos", durationNanos)
+                .add("error", error)
+                .toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.mike10004.common.dbhelp;
+
+/**
+ * Interface for services that are notified when a statement executed
+ * through a {@link TimingDatabaseConnection} completes. Implementations
+ * are invoked on the thread that executed the statement, so they should
+ * return quickly.
+ */
+public interface StatementListener {
+
+    /**
+     * Notifies this listener that a statement completed, successfully or not.
+     * @param execution the statement execution
+     */
+    void statementExecuted(StatementExecution execution);
+
+}
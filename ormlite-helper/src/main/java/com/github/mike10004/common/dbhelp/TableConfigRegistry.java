@@ -0,0 +1,243 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import com.j256.ormlite.db.DatabaseType;
+import com.j256.ormlite.field.DatabaseFieldConfig;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import com.j256.ormlite.table.DatabaseTableConfigLoader;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Registry of precomputed table configurations. ORMLite scans an entity
+ * class's annotations the first time a data access object or table is
+ * created for the class; contexts constructed with a registry skip that scan
+ * and use the configurations in the registry instead.
+ *
+ * <p>A registry is produced by {@link #scan(DatabaseType, Iterable) scanning}
+ * entity classes once, at build time or on first run, and
+ * {@link #save(File) saving} the result in ORMLite's table configuration
+ * file format. Later runs {@link #load(File) load} the file or a
+ * {@link #loadResource(String) classpath resource}; see also
+ * {@link #loadOrScan(File, DatabaseType, Iterable)}. A saved registry must be
+ * regenerated whenever the persisted fields of an entity class change.</p>
+ *
+ * <p>Instances are immutable and may be shared. Each call to
+ * {@link #createTableConfig(Class)} returns a new configuration, because
+ * ORMLite binds a configuration's field types to a connection source.</p>
+ * @see DefaultDatabaseContext#DefaultDatabaseContext(com.j256.ormlite.support.ConnectionSource, TableConfigRegistry)
+ */
+public final class TableConfigRegistry {
+
+    private static final Logger log = Logger.getLogger(TableConfigRegistry.class.getName());
+
+    private final ImmutableMap<Class<?>, Entry> entries;
+
+    private TableConfigRegistry(Map<Class<?>, Entry> entries) {
+        this.entries = ImmutableMap.copyOf(entries);
+    }
+
+    private static final class Entry {
+
+        public final String tableName;
+        public final ImmutableList<DatabaseFieldConfig> fieldConfigs;
+
+        private Entry(String tableName, List<DatabaseFieldConfig> fieldConfigs) {
+            this.tableName = checkNotNull(tableName);
+            this.fieldConfigs = ImmutableList.copyOf(fieldConfigs);
+        }
+    }
+
+    /**
+     * Creates a registry by scanning the annotations of entity classes.
+     * @param databaseType the database type
+     * @param dataClasses the entity classes
+     * @return the registry
+     * @throws SQLException if a field configuration cannot be extracted
+     */
+    public static TableConfigRegistry scan(DatabaseType databaseType, Iterable<Class<?>> dataClasses) throws SQLException {
+        checkNotNull(databaseType, "databaseType");
+        Map<Class<?>, Entry> entries = new LinkedHashMap<>();
+        for (Class<?> dataClass : dataClasses) {
+            String tableName = DatabaseTableConfig.extractTableName(databaseType, dataClass);
+            List<DatabaseFieldConfig> fieldConfigs = new ArrayList<>();
+            for (Class<?> c = dataClass; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    DatabaseFieldConfig fieldConfig = DatabaseFieldConfig.fromField(databaseType, tableName, field);
+                    if (fieldConfig != null) {
+                        fieldConfigs.add(fieldConfig);
+                    }
+                }
+            }
+            checkArgument(!fieldConfigs.isEmpty(), "no persisted fields in %s", dataClass);
+            entries.put(dataClass, new Entry(tableName, fieldConfigs));
+        }
+        return new TableConfigRegistry(entries);
+    }
+
+    /**
+     * Reads a registry in ORMLite's table configuration format.
+     * @param reader the reader
+     * @return the registry
+     * @throws SQLException if the input is malformed or names a class that cannot be loaded
+     */
+    public static TableConfigRegistry read(BufferedReader reader) throws SQLException {
+        Map<Class<?>, Entry> entries = new LinkedHashMap<>();
+        for (DatabaseTableConfig<?> config : DatabaseTableConfigLoader.loadDatabaseConfigFromReader(reader)) {
+            entries.put(config.getDataClass(), new Entry(config.getTableName(), config.getFieldConfigs()));
+        }
+        return new TableConfigRegistry(entries);
+    }
+
+    /**
+     * Loads a registry from a file.
+     * @param file the file
+     * @return the registry
+     * @throws IOException if reading the file fails
+     * @throws SQLException if the file content is malformed
+     */
+    public static TableConfigRegistry load(File file) throws IOException, SQLException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Loads a registry from a classpath resource, such as a file generated
+     * during the build.
+     * @param resourceName the resource name
+     * @return the registry
+     * @throws IOException if reading the resource fails
+     * @throws SQLException if the resource content is malformed
+     * @throws IllegalArgumentException if the resource is not found
+     */
+    public static TableConfigRegistry loadResource(String resourceName) throws IOException, SQLException {
+        URL resource = Resources.getResource(resourceName);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Loads a registry from a file if the file exists and covers exactly the
+     * given entity classes; otherwise scans the classes and saves the result
+     * to the file. Failure to save is logged and otherwise ignored.
+     * @param file the registry file
+     * @param databaseType the database type
+     * @param dataClasses the entity classes
+     * @return the registry
+     * @throws SQLException if scanning fails
+     */
+    public static TableConfigRegistry loadOrScan(File file, DatabaseType databaseType, Iterable<Class<?>> dataClasses) throws SQLException {
+        ImmutableSet<Class<?>> expected = ImmutableSet.copyOf(dataClasses);
+        if (file.isFile()) {
+            try {
+                TableConfigRegistry registry = load(file);
+                if (registry.getDataClasses().equals(expected)) {
+                    return registry;
+                }
+                log.log(Level.FINE, "table config registry {0} covers {1}; rescanning", new Object[]{file, registry.getDataClasses()});
+            } catch (IOException | SQLException e) {
+                log.log(Level.INFO, "failed to load table config registry from " + file + "; rescanning", e);
+            }
+        }
+        TableConfigRegistry registry = scan(databaseType, expected);
+        try {
+            registry.save(file);
+        } catch (IOException | SQLException e) {
+            log.log(Level.WARNING, "failed to save table config registry to " + file, e);
+        }
+        return registry;
+    }
+
+    /**
+     * Writes this registry in ORMLite's table configuration format.
+     * @param writer the writer
+     * @throws SQLException if writing fails
+     */
+    public void write(BufferedWriter writer) throws SQLException {
+        for (Class<?> dataClass : entries.keySet()) {
+            DatabaseTableConfigLoader.write(writer, createTableConfig(dataClass));
+        }
+    }
+
+    /**
+     * Saves this registry to a file. The content is written to a temporary
+     * file in the same directory that is then moved into place, so that
+     * concurrent readers never see a partially written file.
+     * @param file the file
+     * @throws IOException if writing or moving the file fails
+     * @throws SQLException if formatting the configurations fails
+     */
+    public void save(File file) throws IOException, SQLException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(parent.toPath());
+        File tempFile = File.createTempFile(file.getName(), ".tmp", parent);
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                write(writer);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    public ImmutableSet<Class<?>> getDataClasses() {
+        return entries.keySet();
+    }
+
+    public boolean contains(Class<?> dataClass) {
+        return entries.containsKey(dataClass);
+    }
+
+    /**
+     * Creates a new table configuration for an entity class.
+     * @param dataClass the entity class
+     * @param <T> the entity type
+     * @return a new table configuration, or null if the class is not in this registry
+     */
+    @Nullable
+    public <T> DatabaseTableConfig<T> createTableConfig(Class<T> dataClass) {
+        Entry entry = entries.get(dataClass);
+        if (entry == null) {
+            return null;
+        }
+        return new DatabaseTableConfig<>(dataClass, entry.tableName, new ArrayList<>(entry.fieldConfigs));
+    }
+
+    /**
+     * Creates new table configurations for all entity classes in this registry.
+     * @return a map of entity class to table configuration
+     */
+    public ImmutableMap<Class<?>, DatabaseTableConfig<?>> createTableConfigs() {
+        ImmutableMap.Builder<Class<?>, DatabaseTableConfig<?>> b = ImmutableMap.builder();
+        for (Class<?> dataClass : entries.keySet()) {
+            b.put(dataClass, createTableConfig(dataClass));
+        }
+        return b.build();
+    }
+}
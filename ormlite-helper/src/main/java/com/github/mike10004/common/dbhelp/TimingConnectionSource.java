@@ -0,0 +1,79 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.github.mike10004.common.dbhelp.ConnectionSources.SimpleConnectionSourceDelegator;
+import com.google.common.base.Ticker;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Connection source that delegates to another connection source and supplies
+ * {@link TimingDatabaseConnection timing connections} that report each
+ * statement execution to a {@link StatementListener listener}. Connections
+ * passed back to the delegate are unwrapped first, so the delegate's
+ * special-connection bookkeeping is unaffected.
+ * @see DefaultDatabaseContext#instrumented(ConnectionSource, StatementListener)
+ */
+public class TimingConnectionSource extends SimpleConnectionSourceDelegator {
+
+    private final StatementListener listener;
+    private final Ticker ticker;
+
+    public TimingConnectionSource(ConnectionSource delegate, StatementListener listener) {
+        this(delegate, listener, Ticker.systemTicker());
+    }
+
+    public TimingConnectionSource(ConnectionSource delegate, StatementListener listener, Ticker ticker) {
+        super(delegate);
+        this.listener = checkNotNull(listener, "listener");
+        this.ticker = checkNotNull(ticker, "ticker");
+    }
+
+    protected Ticker getTicker() {
+        return ticker;
+    }
+
+    public StatementListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Wraps a connection supplied by the delegate.
+     * @param connection the connection
+     * @param tableName the table name passed when requesting the connection
+     * @return the wrapped connection
+     */
+    protected TimingDatabaseConnection wrap(DatabaseConnection connection, @Nullable String tableName) {
+        return new TimingDatabaseConnection(connection, tableName, listener, ticker);
+    }
+
+    @Override
+    public DatabaseConnection getReadOnlyConnection(String tableName) throws SQLException {
+        return wrap(super.getReadOnlyConnection(tableName), tableName);
+    }
+
+    @Override
+    public DatabaseConnection getReadWriteConnection(String tableName) throws SQLException {
+        return wrap(super.getReadWriteConnection(tableName), tableName);
+    }
+
+    @Override
+    public void releaseConnection(DatabaseConnection connection) throws SQLException {
+        super.releaseConnection(TimingDatabaseConnection.unwrap(connection));
+    }
+
+    @Override
+    public boolean saveSpecialConnection(DatabaseConnection connection) throws SQLException {
+        return super.saveSpecialConnection(TimingDatabaseConnection.unwrap(connection));
+    }
+
+    @Override
+    public void clearSpecialConnection(DatabaseConnection connection) {
+        super.clearSpecialConnection(TimingDatabaseConnection.unwrap(connection));
+    }
+
+}
@@ -0,0 +1,274 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.base.Ticker;
+import com.j256.ormlite.dao.ObjectCache;
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.GenericRowMapper;
+import com.j256.ormlite.stmt.StatementBuilder.StatementType;
+import com.j256.ormlite.support.CompiledStatement;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.support.DatabaseResults;
+import com.j256.ormlite.support.GeneratedKeyHolder;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Database connection that delegates to another connection and notifies a
+ * {@link StatementListener listener} of the duration of each statement it
+ * executes. Statements compiled by this connection are timed when they are
+ * run; the time spent iterating over query results is not included.
+ */
+public class TimingDatabaseConnection implements DatabaseConnection {
+
+    private final DatabaseConnection delegate;
+    @Nullable
+    private final String tableName;
+    private final StatementListener listener;
+    private final Ticker ticker;
+    private final long openedNanos;
+
+    public TimingDatabaseConnection(DatabaseConnection delegate, @Nullable String tableName, StatementListener listener) {
+        this(delegate, tableName, listener, Ticker.systemTicker());
+    }
+
+    public TimingDatabaseConnection(DatabaseConnection delegate, @Nullable String tableName, StatementListener listener, Ticker ticker) {
+        this.delegate = checkNotNull(delegate, "delegate");
+        this.tableName = tableName;
+        this.listener = checkNotNull(listener, "listener");
+        this.ticker = checkNotNull(ticker, "ticker");
+        openedNanos = ticker.read();
+    }
+
+    public DatabaseConnection getDelegate() {
+        return delegate;
+    }
+
+    @Nullable
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Gets the number of nanoseconds elapsed since this instance was constructed.
+     * @return the elapsed time in nanoseconds
+     */
+    public long getOpenNanos() {
+        return ticker.read() - openedNanos;
+    }
+
+    /**
+     * Returns the innermost connection wrapped by any number of timing connections.
+     * @param connection the connection, which may or may not be a timing connection
+     * @return the unwrapped connection
+     */
+    public static DatabaseConnection unwrap(DatabaseConnection connection) {
+        while (connection instanceof TimingDatabaseConnection) {
+            connection = ((TimingDatabaseConnection) connection).getDelegate();
+        }
+        return connection;
+    }
+
+    private interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private <T> T time(String sql, int argCount, SqlCall<T> call) throws SQLException {
+        long start = ticker.read();
+        SQLException error = null;
+        try {
+            return call.call();
+        } catch (SQLException e) {
+            error = e;
+            throw e;
+        } finally {
+            listener.statementExecuted(new StatementExecution(tableName, sql, argCount, ticker.read() - start, error));
+        }
+    }
+
+    private static int length(@Nullable Object[] args) {
+        return args == null ? 0 : args.length;
+    }
+
+    @Override
+    public boolean isAutoCommitSupported() throws SQLException {
+        return delegate.isAutoCommitSupported();
+    }
+
+    @Override
+    public boolean isAutoCommit() throws SQLException {
+        return delegate.isAutoCommit();
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        delegate.setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public Savepoint setSavePoint(String name) throws SQLException {
+        return delegate.setSavePoint(name);
+    }
+
+    @Override
+    public void commit(Savepoint savePoint) throws SQLException {
+        delegate.commit(savePoint);
+    }
+
+    @Override
+    public void rollback(Savepoint savePoint) throws SQLException {
+        delegate.rollback(savePoint);
+    }
+
+    @Override
+    public void releaseSavePoint(Savepoint savePoint) throws SQLException {
+        delegate.releaseSavePoint(savePoint);
+    }
+
+    @Override
+    public int executeStatement(String statementStr, int resultFlags) throws SQLException {
+        return time(statementStr, 0, () -> delegate.executeStatement(statementStr, resultFlags));
+    }
+
+    @Override
+    public CompiledStatement compileStatement(String statement, StatementType type, FieldType[] argFieldTypes, int resultFlags, boolean cacheStore) throws SQLException {
+        long start = ticker.read();
+        CompiledStatement compiled;
+        try {
+            compiled = delegate.compileStatement(statement, type, argFieldTypes, resultFlags, cacheStore);
+        } catch (SQLException e) {
+            // successful compilations are not reported, but a statement that fails to compile counts as a failed execution
+            listener.statementExecuted(new StatementExecution(tableName, statement, 0, ticker.read() - start, e));
+            throw e;
+        }
+        return new TimingCompiledStatement(compiled, statement);
+    }
+
+    @Override
+    public int insert(String statement, Object[] args, FieldType[] argfieldTypes, GeneratedKeyHolder keyHolder) throws SQLException {
+        return time(statement, length(args), () -> delegate.insert(statement, args, argfieldTypes, keyHolder));
+    }
+
+    @Override
+    public int update(String statement, Object[] args, FieldType[] argfieldTypes) throws SQLException {
+        return time(statement, length(args), () -> delegate.update(statement, args, argfieldTypes));
+    }
+
+    @Override
+    public int delete(String statement, Object[] args, FieldType[] argfieldTypes) throws SQLException {
+        return time(statement, length(args), () -> delegate.delete(statement, args, argfieldTypes));
+    }
+
+    @Override
+    public <T> Object queryForOne(String statement, Object[] args, FieldType[] argfieldTypes, GenericRowMapper<T> rowMapper, ObjectCache objectCache) throws SQLException {
+        return time(statement, length(args), () -> delegate.queryForOne(statement, args, argfieldTypes, rowMapper, objectCache));
+    }
+
+    @Override
+    public long queryForLong(String statement) throws SQLException {
+        return time(statement, 0, () -> delegate.queryForLong(statement));
+    }
+
+    @Override
+    public long queryForLong(String statement, Object[] args, FieldType[] argFieldTypes) throws SQLException {
+        return time(statement, length(args), () -> delegate.queryForLong(statement, args, argFieldTypes));
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    @Override
+    public void closeQuietly() {
+        delegate.closeQuietly();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public boolean isTableExists(String tableName) throws SQLException {
+        return delegate.isTableExists(tableName);
+    }
+
+    @Override
+    public String toString() {
+        return "TimingDatabaseConnection{" + delegate + "}";
+    }
+
+    private class TimingCompiledStatement implements CompiledStatement {
+
+        private final CompiledStatement compiled;
+        private final String sql;
+        private int argCount;
+
+        public TimingCompiledStatement(CompiledStatement compiled, String sql) {
+            this.compiled = checkNotNull(compiled);
+            this.sql = sql;
+        }
+
+        @Override
+        public int getColumnCount() throws SQLException {
+            return compiled.getColumnCount();
+        }
+
+        @Override
+        public String getColumnName(int columnIndex) throws SQLException {
+            return compiled.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int runUpdate() throws SQLException {
+            return time(sql, argCount, compiled::runUpdate);
+        }
+
+        @Override
+        public DatabaseResults runQuery(ObjectCache objectCache) throws SQLException {
+            return time(sql, argCount, () -> compiled.runQuery(objectCache));
+        }
+
+        @Override
+        public int runExecute() throws SQLException {
+            return time(sql, argCount, compiled::runExecute);
+        }
+
+        @Override
+        public void close() throws IOException {
+            compiled.close();
+        }
+
+        @Override
+        public void closeQuietly() {
+            compiled.closeQuietly();
+        }
+
+        @Override
+        public void cancel() throws SQLException {
+            compiled.cancel();
+        }
+
+        @Override
+        public void setObject(int parameterIndex, Object obj, SqlType sqlType) throws SQLException {
+            compiled.setObject(parameterIndex, obj, sqlType);
+            argCount = Math.max(argCount, parameterIndex + 1);
+        }
+
+        @Override
+        public void setMaxRows(int max) throws SQLException {
+            compiled.setMaxRows(max);
+        }
+
+        @Override
+        public void setQueryTimeout(long millis) throws SQLException {
+            compiled.setQueryTimeout(millis);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AsyncDatabaseContextTest {
+
+    @Test
+    public void daoAndTransaction() throws Exception {
+        DatabaseContext db = new DefaultDatabaseContext(new H2MemoryConnectionSource());
+        try (AsyncDatabaseContext async = AsyncDatabaseContext.builder(db).build()) {
+            async.supplyAsync(d -> d.getTableUtils().createTable(Customer.class)).get();
+            CompletableFuture<Integer> created = async.callInTransaction(d -> d.getDao(Customer.class).create(new Customer("1 Main St", "Jane")));
+            assertEquals("created", Integer.valueOf(1), created.get());
+            CompletableFuture<Customer> customer = async.withDao(Customer.class, Integer.class, dao -> dao.queryForId(1));
+            assertEquals("name", "Jane", customer.get().name);
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+
+    @Test
+    public void failure() throws Exception {
+        DatabaseContext db = new DefaultDatabaseContext(new H2MemoryConnectionSource());
+        try (AsyncDatabaseContext async = AsyncDatabaseContext.builder(db).build()) {
+            CompletableFuture<Long> count = async.withDao(Customer.class, Integer.class, dao -> dao.countOf()); // table does not exist
+            try {
+                AsyncDatabaseContext.join(count);
+                fail("should have thrown");
+            } catch (SQLException expected) {
+            }
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+
+    @Test
+    public void rejectWhenQueueFull() throws Exception {
+        DatabaseContext db = new DefaultDatabaseContext(ConnectionSources.broken());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncDatabaseContext async = AsyncDatabaseContext.builder(db).threads(1).queueCapacity(1).build();
+        try {
+            CompletableFuture<Object> blocker = async.supplyAsync(d -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new SQLException(e);
+                }
+                return null;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = async.supplyAsync(d -> "queued");
+            CompletableFuture<String> rejected = async.supplyAsync(d -> "rejected");
+            assertTrue("rejected immediately", rejected.isCompletedExceptionally());
+            try {
+                rejected.get();
+                fail("should have thrown");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            release.countDown();
+            blocker.get(5, TimeUnit.SECONDS);
+            assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            assertTrue(async.close(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void taskDecorator() throws Exception {
+        ThreadLocal<String> context = new ThreadLocal<>();
+        DatabaseContext db = new DefaultDatabaseContext(ConnectionSources.broken());
+        AsyncDatabaseContext async = AsyncDatabaseContext.builder(db)
+                .threads(1)
+                .taskDecorator(task -> {
+                    String captured = context.get();
+                    return () -> {
+                        context.set(captured);
+                        try {
+                            task.run();
+                        } finally {
+                            context.remove();
+                        }
+                    };
+                }).build();
+        try {
+            context.set("request-42");
+            assertEquals("request-42", async.supplyAsync(d -> context.get()).get(5, TimeUnit.SECONDS));
+        } finally {
+            context.remove();
+            async.close();
+        }
+    }
+
+    @Test
+    public void threadsForPooledConnectionSource() throws Exception {
+        System.out.println("threadsForPooledConnectionSource");
+        JdbcPooledConnectionSource pooled = new JdbcPooledConnectionSource("jdbc:h2:mem:" + UUID.randomUUID());
+        try {
+            pooled.setMaxConnectionsFree(3);
+            DatabaseContext db = new DefaultDatabaseContext(new TimingConnectionSource(pooled, execution -> {}));
+            try {
+                AsyncDatabaseContext.builder(db).resolveThreads();
+                fail("threads not required for pooled connection source");
+            } catch (IllegalStateException expected) {
+            }
+            assertEquals("threads", 3, AsyncDatabaseContext.builder(db).threads(3).resolveThreads());
+            DatabaseContext single = new DefaultDatabaseContext(new H2MemoryConnectionSource());
+            assertEquals("threads for single connection", 1, AsyncDatabaseContext.builder(single).resolveThreads());
+            single.closeConnections(true);
+        } finally {
+            pooled.close();
+        }
+    }
+}
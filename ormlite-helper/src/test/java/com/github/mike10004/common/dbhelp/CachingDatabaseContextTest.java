@@ -0,0 +1,124 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.UpdateBuilder;
+import com.j256.ormlite.support.DatabaseConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CachingDatabaseContextTest {
+
+    private CachingDatabaseContext db;
+
+    @Before
+    public void setUp() throws SQLException {
+        EntityCache cache = EntityCache.builder()
+                .cache(Customer.class, 100, 1, TimeUnit.HOURS)
+                .build();
+        db = new CachingDatabaseContext(new H2MemoryConnectionSource(), cache);
+        db.getTableUtils().createTable(Customer.class);
+        db.getDao(Customer.class).create(new Customer("1 Main St", "Jane"));
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        db.closeConnections(true);
+    }
+
+    @Test
+    public void queryForId_hit() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        Customer first = dao.queryForId(1);
+        Customer second = dao.queryForId(1);
+        assertSame("cached instance", first, second);
+        assertTrue("hits", db.getEntityCache().getStats(Customer.class).hitCount() >= 1);
+    }
+
+    @Test
+    public void invalidateOnUpdateBuilder() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        assertEquals("Jane", dao.queryForId(1).name);
+        UpdateBuilder<Customer, Integer> ub = dao.updateBuilder();
+        ub.updateColumnValue("name", "Janet").where().idEq(1);
+        ub.update();
+        assertEquals("size after update", 0, db.getEntityCache().size(Customer.class));
+        assertEquals("Janet", dao.queryForId(1).name);
+    }
+
+    @Test
+    public void invalidateOnRawUpdate() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        assertEquals("Jane", dao.queryForId(1).name);
+        dao.updateRaw("UPDATE customer SET name = 'Jo' WHERE id = 1");
+        assertEquals("Jo", dao.queryForId(1).name);
+    }
+
+    @Test
+    public void invalidateOnRawUpdateThroughOtherDao() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        assertEquals("Jane", dao.queryForId(1).name);
+        db.getDao(Order.class).updateRaw("UPDATE customer SET name = 'Jo' WHERE id = 1");
+        assertEquals("size after update", 0, db.getEntityCache().size(Customer.class));
+        assertEquals("Jo", dao.queryForId(1).name);
+    }
+
+    @Test
+    public void invalidateOnUpdateWithoutTableName() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        assertEquals("Jane", dao.queryForId(1).name);
+        DatabaseConnection conn = db.getConnectionSource().getReadWriteConnection(null);
+        try {
+            conn.executeStatement("UPDATE customer SET name = 'Jo' WHERE id = 1", DatabaseConnection.DEFAULT_RESULT_FLAGS);
+        } finally {
+            db.getConnectionSource().releaseConnection(conn);
+        }
+        assertEquals("Jo", dao.queryForId(1).name);
+    }
+
+    @Test
+    public void invalidateAfterRollback() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        assertEquals("Jane", dao.queryForId(1).name);
+        try {
+            db.getTransactionManager().callInTransaction(() -> {
+                dao.updateRaw("UPDATE customer SET name = 'Jo' WHERE id = 1");
+                assertEquals("uncommitted", "Jo", dao.queryForId(1).name);
+                throw new IllegalStateException("roll back");
+            });
+            fail("should have thrown");
+        } catch (SQLException expected) {
+        }
+        assertEquals("size after rollback", 0, db.getEntityCache().size(Customer.class));
+        assertEquals("Jane", dao.queryForId(1).name);
+    }
+
+    @Test
+    public void deleteById() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        assertNotNull(dao.queryForId(1));
+        dao.deleteById(1);
+        assertNull(dao.queryForId(1));
+    }
+
+    @Test
+    public void uncachedClass() {
+        EntityCache cache = EntityCache.builder().cache(Customer.class, 10, 0, TimeUnit.SECONDS).build();
+        assertFalse(cache.isCached(Order.class));
+        cache.put(Order.class, 1, new Order());
+        assertNull(cache.get(Order.class, 1));
+    }
+
+    @Test
+    public void isInvalidating() {
+        assertTrue(CachingDatabaseContext.WriteInvalidator.isInvalidating(" delete from foo"));
+        assertTrue(CachingDatabaseContext.WriteInvalidator.isInvalidating("UPDATE foo SET x = 1"));
+        assertFalse(CachingDatabaseContext.WriteInvalidator.isInvalidating("SELECT * FROM foo"));
+        assertFalse(CachingDatabaseContext.WriteInvalidator.isInvalidating("INSERT INTO foo VALUES (1)"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class H2TuningProfileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void toUrlClauses() {
+        System.out.println("toUrlClauses");
+        assertEquals("defaults", ImmutableList.of(), H2TuningProfile.defaults().toUrlClauses());
+        assertEquals("ephemeral", ImmutableList.of("LOG=0"), H2TuningProfile.ephemeral().toUrlClauses());
+        assertEquals("bulk load uses PageStore", Boolean.FALSE, H2TuningProfile.bulkLoad().getMvStore());
+        H2TuningProfile profile = H2TuningProfile.bulkLoad().toBuilder()
+                .undoLog(null)
+                .mvStore(true)
+                .build();
+        assertEquals(ImmutableList.of("MV_STORE=TRUE", "CACHE_SIZE=131072", "LOCK_MODE=0", "LOG=0", "MAX_MEMORY_ROWS=1000000"), profile.toUrlClauses());
+    }
+
+    @Test
+    public void jdbcUrl() throws Exception {
+        System.out.println("jdbcUrl");
+        H2FileConnectionSource cs = new H2FileConnectionSource(new File(temporaryFolder.getRoot(), "tuned.h2.db"));
+        cs.setAutoMixedMode(true);
+        cs.setTuningProfile(H2TuningProfile.readMostly());
+        String url = cs.constructJdbcUrl();
+        System.out.println(url);
+        assertTrue(url, url.endsWith(";AUTO_SERVER=true;CACHE_SIZE=131072;LOCK_MODE=3;QUERY_CACHE_SIZE=64"));
+    }
+
+    @Test
+    public void presetsAreUsable() throws Exception {
+        System.out.println("presetsAreUsable");
+        for (H2TuningProfile profile : ImmutableList.of(H2TuningProfile.bulkLoad(), H2TuningProfile.readMostly(), H2TuningProfile.ephemeral())) {
+            File dbFile = new File(temporaryFolder.newFolder(), "tuned.h2.db");
+            H2FileConnectionSource cs = new H2FileConnectionSource(dbFile);
+            cs.setTuningProfile(profile);
+            System.out.println(cs.constructJdbcUrl());
+            DatabaseContext db = new DefaultDatabaseContext(cs);
+            try {
+                db.getTableUtils().createAllTables(ImmutableList.of(Customer.class, Order.class));
+                DatabaseTests.testBasicInsertionAndRetrieval(db);
+            } finally {
+                db.closeConnections(true);
+            }
+        }
+    }
+
+    @Test
+    public void bulkLoad_usesPageStore() throws Exception {
+        System.out.println("bulkLoad_usesPageStore");
+        File dir = temporaryFolder.newFolder();
+        H2FileConnectionSource cs = new H2FileConnectionSource(new File(dir, "bulk.h2.db"));
+        cs.setTuningProfile(H2TuningProfile.bulkLoad());
+        DatabaseContext db = new DefaultDatabaseContext(cs);
+        try {
+            db.getTableUtils().createTable(Customer.class);
+        } finally {
+            db.closeConnections(true);
+        }
+        assertTrue("page store file", new File(dir, "bulk.h2.db").isFile());
+        assertFalse("mv store file", new File(dir, "bulk.mv.db").exists());
+    }
+}
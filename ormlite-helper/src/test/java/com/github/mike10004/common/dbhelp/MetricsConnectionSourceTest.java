@@ -0,0 +1,79 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.dao.Dao;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MetricsConnectionSourceTest {
+
+    @Test
+    public void countConnectionsAndStatements() throws Exception {
+        DefaultConnectionSourceMetrics metrics = new DefaultConnectionSourceMetrics();
+        DatabaseContext db = new DefaultDatabaseContext(new MetricsConnectionSource(new H2MemoryConnectionSource(), metrics));
+        try {
+            db.getTableUtils().createTable(Customer.class);
+            Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+            db.getTransactionManager().callInTransaction(() -> {
+                dao.create(new Customer("1 Main St", "Jane"));
+                dao.create(new Customer("2 Main St", "John"));
+                return null;
+            });
+            assertEquals("count", 2L, dao.countOf());
+            assertEquals("query", "Jane", dao.queryForId(1).name);
+            try {
+                dao.queryRaw("SELECT nonexistent FROM customer").getResults();
+                fail("should have thrown");
+            } catch (java.sql.SQLException expected) {
+            }
+        } finally {
+            db.closeConnections(true);
+        }
+        System.out.format("borrowed=%d in use=%d statements=%s%n", metrics.getConnectionsBorrowed(), metrics.getConnectionsInUse(), metrics.getStatementCountByTable());
+        assertTrue("borrowed", metrics.getConnectionsBorrowed() > 0);
+        assertEquals("released", metrics.getConnectionsBorrowed(), metrics.getConnectionsReleased());
+        assertEquals("in use", 0L, metrics.getConnectionsInUse());
+        Long customerStatements = metrics.getStatementCountByTable().get("customer");
+        assertNotNull("customer statements", customerStatements);
+        assertTrue("customer statements >= 5", customerStatements >= 5);
+        assertEquals("statement errors", 1L, metrics.getStatementErrors());
+    }
+
+    @Test
+    public void registerMBean() throws Exception {
+        DefaultConnectionSourceMetrics metrics = new DefaultConnectionSourceMetrics();
+        metrics.connectionAcquired("foo", 1000L);
+        metrics.statementExecuted(new StatementExecution("foo", "SELECT 1", 0, 2_000_000L, null));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.registerMBean("registerMBean-test");
+        try {
+            assertEquals("in use", 1L, server.getAttribute(name, "ConnectionsInUse"));
+            assertEquals("statements", 1L, server.getAttribute(name, "StatementsExecuted"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+        Map<String, Double> maxByTable = metrics.getStatementMaxMillisByTable();
+        assertEquals("max millis", 2.0, maxByTable.get("foo"), 1e-6);
+    }
+
+    @Test
+    public void latencyHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L); // 1..100 microseconds
+        }
+        assertEquals("count", 100L, histogram.getCount());
+        assertEquals("max", 100_000L, histogram.getMaxNanos());
+        long median = histogram.getPercentileNanos(50);
+        assertTrue("median " + median + " within factor of 2 of 50us", median >= 50_000L && median <= 100_000L);
+        assertEquals("p100", 100_000L, histogram.getPercentileNanos(100));
+        histogram.reset();
+        assertEquals("count after reset", 0L, histogram.getCount());
+        assertEquals("percentile after reset", 0L, histogram.getPercentileNanos(99));
+    }
+}
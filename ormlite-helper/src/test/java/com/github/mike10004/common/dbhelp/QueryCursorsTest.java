@@ -0,0 +1,97 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.db.H2DatabaseType;
+import com.j256.ormlite.db.MysqlDatabaseType;
+import com.j256.ormlite.stmt.QueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class QueryCursorsTest {
+
+    private static final int NUM_CUSTOMERS = 250;
+
+    private DatabaseContext db;
+
+    @Before
+    public void setUp() throws SQLException {
+        db = new DefaultDatabaseContext(new H2MemoryConnectionSource());
+        db.getTableUtils().createTable(Customer.class);
+        Dao<Customer, ?> dao = db.getDao(Customer.class);
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < NUM_CUSTOMERS; i++) {
+            customers.add(new Customer("Street " + i, "Customer " + i));
+        }
+        dao.create(customers);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        db.closeConnections(true);
+    }
+
+    @Test
+    public void openCursor_entity() throws Exception {
+        CursorSettings settings = CursorSettings.builder().fetchSize(10).build();
+        int count = 0;
+        try (QueryCursor<Customer> cursor = db.openCursor(Customer.class, settings)) {
+            while (cursor.hasNext()) {
+                Customer customer = cursor.next();
+                assertNotNull(customer.id);
+                count++;
+            }
+            assertTrue("closed after last row", cursor.isClosed());
+        }
+        assertEquals("count", NUM_CUSTOMERS, count);
+    }
+
+    @Test
+    public void openCursor_queryBuilder() throws Exception {
+        Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+        QueryBuilder<Customer, Integer> queryBuilder = dao.queryBuilder();
+        queryBuilder.where().le("id", 3);
+        List<String> names;
+        try (QueryCursor<Customer> cursor = db.openCursor(Customer.class, queryBuilder, CursorSettings.defaults());
+             Stream<Customer> stream = cursor.stream()) {
+            names = stream.map(c -> c.name).collect(Collectors.toList());
+        }
+        assertEquals("names", Arrays.asList("Customer 0", "Customer 1", "Customer 2"), names);
+    }
+
+    @Test
+    public void open_raw() throws Exception {
+        QueryCursor<String> cursor = QueryCursors.open(db, "Customer", "SELECT address FROM Customer WHERE name = ?", results -> results.getString(0), CursorSettings.defaults(), "Customer 7");
+        List<String> addresses;
+        try (Stream<String> stream = cursor.stream()) {
+            addresses = stream.collect(Collectors.toList());
+        }
+        assertEquals("addresses", Collections.singletonList("Street 7"), addresses);
+        assertTrue("closed", cursor.isClosed());
+    }
+
+    @Test
+    public void closeBeforeExhausted() throws Exception {
+        QueryCursor<Customer> cursor = db.openCursor(Customer.class, CursorSettings.defaults());
+        assertNotNull(cursor.next());
+        cursor.close();
+        assertFalse("hasNext after close", cursor.hasNext());
+        assertEquals("connection still usable", NUM_CUSTOMERS, db.getDao(Customer.class).countOf());
+    }
+
+    @Test
+    public void streaming() {
+        assertEquals(CursorSettings.MYSQL_STREAMING_FETCH_SIZE, CursorSettings.streaming(new MysqlDatabaseType()).getFetchSize());
+        assertEquals(CursorSettings.DEFAULT_FETCH_SIZE, CursorSettings.streaming(new H2DatabaseType()).getFetchSize());
+    }
+}
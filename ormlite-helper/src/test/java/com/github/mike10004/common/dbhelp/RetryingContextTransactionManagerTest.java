@@ -0,0 +1,136 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.dao.Dao;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryingContextTransactionManagerTest {
+
+    private static SQLException deadlock() {
+        return new SQLException("Deadlock found when trying to get lock", "40001", 1213);
+    }
+
+    @Test
+    public void retryUntilSuccess() throws Exception {
+        DatabaseContext db = new DefaultDatabaseContext(new H2MemoryConnectionSource(), DefaultContextTableUtils::new, cs -> new NonSleepingRetryingTransactionManager(new DefaultContextTransactionManager(cs), RetryPolicy.defaults()));
+        try {
+            db.getTableUtils().createTable(Customer.class);
+            Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+            AtomicInteger calls = new AtomicInteger();
+            String result = db.getTransactionManager().callInTransaction(() -> {
+                dao.create(new Customer("1 Main St", "Jane"));
+                if (calls.incrementAndGet() < 3) {
+                    throw deadlock();
+                }
+                return "done";
+            });
+            assertEquals("result", "done", result);
+            assertEquals("calls", 3, calls.get());
+            assertEquals("rows (failed attempts rolled back)", 1L, dao.countOf());
+            RetryingContextTransactionManager txManager = (RetryingContextTransactionManager) db.getTransactionManager();
+            assertEquals("attempts", 3L, txManager.getAttemptCount());
+            assertEquals("retries", 2L, txManager.getRetryCount());
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+
+    @Test
+    public void exhaustAttempts() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        NonSleepingRetryingTransactionManager txManager = new NonSleepingRetryingTransactionManager(new PassThroughTransactionManager(), RetryPolicy.builder().maxAttempts(4).build());
+        try {
+            txManager.callInTransaction(() -> {
+                calls.incrementAndGet();
+                throw deadlock();
+            });
+            fail("should have thrown");
+        } catch (SQLException e) {
+            assertEquals(1213, e.getErrorCode());
+        }
+        assertEquals("calls", 4, calls.get());
+        assertEquals("exhausted", 1L, txManager.getExhaustedFailureCount());
+        assertEquals("sleeps", 3, txManager.sleeps);
+    }
+
+    @Test
+    public void nonRetryable() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        NonSleepingRetryingTransactionManager txManager = new NonSleepingRetryingTransactionManager(new PassThroughTransactionManager(), RetryPolicy.defaults());
+        try {
+            txManager.callInTransaction(() -> {
+                calls.incrementAndGet();
+                throw new SQLException("syntax error", "42000", 1064);
+            });
+            fail("should have thrown");
+        } catch (SQLException expected) {
+        }
+        assertEquals("calls", 1, calls.get());
+        assertEquals("non-retryable", 1L, txManager.getNonRetryableFailureCount());
+    }
+
+    @Test
+    public void nestedTransactionNotRetried() throws Exception {
+        AtomicInteger innerCalls = new AtomicInteger();
+        NonSleepingRetryingTransactionManager txManager = new NonSleepingRetryingTransactionManager(new PassThroughTransactionManager(), RetryPolicy.builder().maxAttempts(2).build());
+        try {
+            txManager.callInTransaction(() -> txManager.callInTransaction(() -> {
+                innerCalls.incrementAndGet();
+                throw deadlock();
+            }));
+            fail("should have thrown");
+        } catch (SQLException expected) {
+        }
+        assertEquals("inner calls (one per outer attempt)", 2, innerCalls.get());
+    }
+
+    @Test
+    public void retryableCause() {
+        SQLException wrapper = new SQLException("Transaction callable threw non-SQL exception", new RuntimeException(deadlock()));
+        assertTrue(RetryPolicy.defaults().isRetryable(wrapper));
+        assertFalse(RetryPolicy.defaults().isRetryable(new SQLException("no")));
+    }
+
+    @Test
+    public void computeBackoffMillis() {
+        RetryPolicy policy = RetryPolicy.defaults();
+        Random random = new Random(12345L);
+        for (int attempt = 1; attempt <= 20; attempt++) {
+            long bound = Math.min(1000L, 20L << Math.min(attempt - 1, 30));
+            long backoff = policy.computeBackoffMillis(attempt, random);
+            assertTrue("attempt " + attempt + " backoff " + backoff, backoff >= 0 && backoff <= bound);
+        }
+    }
+
+    private static class PassThroughTransactionManager implements ContextTransactionManager {
+        @Override
+        public <T> T callInTransaction(java.util.concurrent.Callable<T> callable) throws SQLException {
+            try {
+                return callable.call();
+            } catch (SQLException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+
+    private static class NonSleepingRetryingTransactionManager extends RetryingContextTransactionManager {
+
+        public int sleeps;
+
+        public NonSleepingRetryingTransactionManager(ContextTransactionManager delegate, RetryPolicy retryPolicy) {
+            super(delegate, retryPolicy);
+        }
+
+        @Override
+        protected void sleep(long millis) {
+            sleeps++;
+        }
+    }
+}
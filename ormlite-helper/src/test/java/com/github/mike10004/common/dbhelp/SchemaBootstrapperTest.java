@@ -0,0 +1,168 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.collect.ImmutableList;
+import com.j256.ormlite.jdbc.JdbcPooledConnectionSource;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class SchemaBootstrapperTest {
+
+    @Test
+    public void orderByDependencies() throws Exception {
+        System.out.println("orderByDependencies");
+        H2MemoryConnectionSource cs = new H2MemoryConnectionSource();
+        try {
+            SchemaBootstrapper bootstrapper = new SchemaBootstrapper(cs, 4);
+            List<DatabaseTableConfig<?>> configs = new ArrayList<>();
+            configs.add(DatabaseTableConfig.fromClass(cs, Order.class));
+            configs.add(DatabaseTableConfig.fromClass(cs, Customer.class));
+            List<List<DatabaseTableConfig<?>>> levels = bootstrapper.orderByDependencies(configs);
+            System.out.format("levels: %s%n", levels);
+            assertEquals("num levels", 2, levels.size());
+            assertEquals("first level", Customer.class, levels.get(0).get(0).getDataClass());
+            assertEquals("second level", Order.class, levels.get(1).get(0).getDataClass());
+        } finally {
+            cs.close();
+        }
+    }
+
+    @Test
+    public void createAllTables_ifNotExists() throws Exception {
+        System.out.println("createAllTables_ifNotExists");
+        H2MemoryConnectionSource cs = new H2MemoryConnectionSource();
+        DatabaseContext db = new DefaultDatabaseContext(cs);
+        try {
+            db.getTableUtils().createTable(Customer.class);
+            SchemaBootstrapper bootstrapper = new SchemaBootstrapper(cs, 1);
+            assertTrue("customers exists", bootstrapper.readExistingTableNames().contains("customer"));
+            int numStatements = bootstrapper.createAllTables(ImmutableList.of(Order.class, Customer.class), true);
+            System.out.format("%d statements executed%n", numStatements);
+            assertEquals("statements executed", 1, numStatements);
+            DatabaseTests.testBasicInsertionAndRetrieval(db);
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+
+    @Test
+    public void createAllTables_parallel() throws Exception {
+        System.out.println("createAllTables_parallel");
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        JdbcPooledConnectionSource cs = new JdbcPooledConnectionSource(url);
+        try {
+            DatabaseContext db = new DefaultDatabaseContext(cs, c -> new DefaultContextTableUtils(c, 4), DefaultContextTransactionManager::new);
+            db.getTableUtils().createAllTables(ImmutableList.of(Order.class, Customer.class));
+            DatabaseTests.testBasicInsertionAndRetrieval(db);
+            try {
+                db.getTableUtils().createAllTables(ImmutableList.of(Customer.class));
+                fail("should have failed because table exists");
+            } catch (SQLException expected) {
+                System.out.println("as expected: " + expected);
+            }
+        } finally {
+            cs.close();
+        }
+    }
+
+    @Test
+    public void createAllTables_overriddenCreateTableIsUsed() throws Exception {
+        System.out.println("createAllTables_overriddenCreateTableIsUsed");
+        for (int parallelism : new int[]{1, 4}) {
+            H2MemoryConnectionSource cs = new H2MemoryConnectionSource();
+            try {
+                List<Class<?>> created = new ArrayList<>();
+                DefaultContextTableUtils tableUtils = new DefaultContextTableUtils(cs, parallelism) {
+                    @Override
+                    public <T> int createTableIfNotExists(Class<T> dataClass) throws SQLException {
+                        throw new AssertionError("table config should be passed instead of " + dataClass);
+                    }
+
+                    @Override
+                    public <T> int createTableIfNotExists(DatabaseTableConfig<T> tableConfig) throws SQLException {
+                        synchronized (created) {
+                            created.add(tableConfig.getDataClass());
+                        }
+                        return super.createTableIfNotExists(tableConfig);
+                    }
+                };
+                tableUtils.createAllTablesIfNotExists(ImmutableList.of(Order.class, Customer.class));
+                System.out.format("parallelism %d: created %s%n", parallelism, created);
+                // single-connection source, so tables are created one at a time in dependency order
+                assertEquals("created with parallelism " + parallelism, ImmutableList.of(Customer.class, Order.class), created);
+            } finally {
+                cs.close();
+            }
+        }
+    }
+
+    @Test
+    public void createAllTables_ifNotExists_nonJdbcConnection() throws Exception {
+        System.out.println("createAllTables_ifNotExists_nonJdbcConnection");
+        H2MemoryConnectionSource h2 = new H2MemoryConnectionSource();
+        ConnectionSource cs = proxy(ConnectionSource.class, h2, (method, result) -> {
+            if (result instanceof DatabaseConnection) {
+                return proxy(DatabaseConnection.class, result, (m, r) -> r);
+            }
+            return result;
+        });
+        DatabaseContext db = new DefaultDatabaseContext(h2);
+        try {
+            db.getTableUtils().createTable(Customer.class);
+            SchemaBootstrapper bootstrapper = new SchemaBootstrapper(cs, 1);
+            assertNull("existing table names", bootstrapper.readExistingTableNames());
+            bootstrapper.createAllTables(ImmutableList.of(Order.class, Customer.class), true);
+            DatabaseTests.testBasicInsertionAndRetrieval(db);
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+
+    private interface ResultTransform {
+        Object apply(Method method, Object result);
+    }
+
+    private static <T> T proxy(Class<T> iface, Object target, ResultTransform transform) {
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface}, new ForwardingHandler(target, transform)));
+    }
+
+    private static final class ForwardingHandler implements InvocationHandler {
+
+        private final Object target;
+        private final ResultTransform transform;
+
+        ForwardingHandler(Object target, ResultTransform transform) {
+            this.target = target;
+            this.transform = transform;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // proxied connections are unwrapped when passed back to the target
+            if (args != null) {
+                for (int i = 0; i < args.length; i++) {
+                    if (args[i] != null && Proxy.isProxyClass(args[i].getClass())) {
+                        args[i] = ((ForwardingHandler) Proxy.getInvocationHandler(args[i])).target;
+                    }
+                }
+            }
+            try {
+                return transform.apply(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.SelectArg;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SlowQueryListenerTest {
+
+    @Test
+    public void reportSlowStatements() throws Exception {
+        List<StatementExecution> reported = Collections.synchronizedList(new ArrayList<>());
+        SlowQueryListener listener = SlowQueryListener.builder(0, TimeUnit.MILLISECONDS)
+                .reporter(reported::add)
+                .build();
+        DatabaseContext db = DefaultDatabaseContext.instrumented(new H2MemoryConnectionSource(), listener);
+        try {
+            db.getTableUtils().createTable(Customer.class);
+            Dao<Customer, Integer> dao = db.getDao(Customer.class, Integer.class);
+            dao.create(new Customer("1 Main St", "Jane"));
+            dao.queryBuilder().where().eq("name", new SelectArg("Jane")).query();
+        } finally {
+            db.closeConnections(true);
+        }
+        reported.forEach(System.out::println);
+        assertEquals("reported", listener.getSlowStatementCount(), reported.size());
+        StatementExecution insert = reported.stream().filter(e -> e.getSql().startsWith("INSERT")).findFirst().orElse(null);
+        assertNotNull("insert reported", insert);
+        assertEquals("insert args", 2, insert.getArgCount());
+        StatementExecution select = reported.stream().filter(e -> e.getSql().startsWith("SELECT")).findFirst().orElse(null);
+        assertNotNull("select reported", select);
+        assertEquals("select args", 1, select.getArgCount());
+        assertEquals("table", "customer", select.getTableName());
+    }
+
+    @Test
+    public void sampling() {
+        List<StatementExecution> reported = new ArrayList<>();
+        SlowQueryListener listener = SlowQueryListener.builder(5, TimeUnit.MILLISECONDS)
+                .sampleRate(0)
+                .reporter(reported::add)
+                .build();
+        listener.statementExecuted(new StatementExecution("t", "SELECT 1", 0, TimeUnit.MILLISECONDS.toNanos(1), null));
+        listener.statementExecuted(new StatementExecution("t", "SELECT 2", 0, TimeUnit.MILLISECONDS.toNanos(10), null));
+        assertEquals("slow", 1L, listener.getSlowStatementCount());
+        assertEquals("reported", 0L, listener.getReportedStatementCount());
+        assertTrue("nothing reported", reported.isEmpty());
+    }
+}
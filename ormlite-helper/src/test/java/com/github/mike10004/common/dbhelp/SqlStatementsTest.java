@@ -0,0 +1,37 @@
+package com.github.mike10004.common.dbhelp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SqlStatementsTest {
+
+    @Test
+    public void getKind() {
+        System.out.println("getKind");
+        assertEquals(SqlStatements.Kind.DELETE, SqlStatements.getKind(" delete from foo"));
+        assertEquals(SqlStatements.Kind.UPDATE, SqlStatements.getKind("UPDATE foo SET x = 1"));
+        assertEquals(SqlStatements.Kind.INSERT, SqlStatements.getKind("(INSERT INTO foo VALUES (1))"));
+        assertEquals(SqlStatements.Kind.SELECT, SqlStatements.getKind("SELECT * FROM foo"));
+        assertEquals(SqlStatements.Kind.OTHER, SqlStatements.getKind("updates"));
+        assertEquals(SqlStatements.Kind.OTHER, SqlStatements.getKind(""));
+        assertTrue(SqlStatements.Kind.TRUNCATE.isDataChange());
+        assertFalse(SqlStatements.Kind.SELECT.isDataChange());
+        assertTrue(SqlStatements.Kind.DROP.isSchemaChange());
+    }
+
+    @Test
+    public void getTargetTable() {
+        System.out.println("getTargetTable");
+        assertEquals("foo", SqlStatements.getTargetTable("UPDATE foo SET x = 1"));
+        assertEquals("order", SqlStatements.getTargetTable("INSERT INTO \"order\" (id) VALUES (1)"));
+        assertEquals("order", SqlStatements.getTargetTable("insert into \"order\"(id) values (1)"));
+        assertEquals("Bar", SqlStatements.getTargetTable("DELETE FROM \"PUBLIC\".\"Bar\" WHERE id = 1"));
+        assertEquals("baz", SqlStatements.getTargetTable("merge into public.baz key (id) values (1)"));
+        assertEquals("qux", SqlStatements.getTargetTable("TRUNCATE TABLE `qux`"));
+        assertEquals("foo", SqlStatements.getTargetTable("DROP TABLE IF EXISTS foo"));
+        assertEquals("a\"b", SqlStatements.getTargetTable("UPDATE \"a\"\"b\" SET x = 1"));
+        assertNull(SqlStatements.getTargetTable("SELECT * FROM foo"));
+        assertNull(SqlStatements.getTargetTable("WITH t AS (SELECT 1) DELETE FROM foo"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.mike10004.common.dbhelp;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.j256.ormlite.dao.BaseDaoImpl;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.db.H2DatabaseType;
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TableConfigRegistryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeAndRead() throws Exception {
+        System.out.println("writeAndRead");
+        TableConfigRegistry registry = TableConfigRegistry.scan(new H2DatabaseType(), ImmutableList.of(Customer.class, Order.class));
+        StringWriter out = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(out)) {
+            registry.write(writer);
+        }
+        System.out.println(out);
+        TableConfigRegistry loaded = TableConfigRegistry.read(new BufferedReader(new StringReader(out.toString())));
+        assertEquals("classes", ImmutableSet.of(Customer.class, Order.class), loaded.getDataClasses());
+        DatabaseTableConfig<Order> orderConfig = loaded.createTableConfig(Order.class);
+        assertNotNull(orderConfig);
+        assertEquals("table name", "order", orderConfig.getTableName());
+        assertEquals("field count", 4, orderConfig.getFieldConfigs().size());
+        assertNotSame("new config on each call", orderConfig, loaded.createTableConfig(Order.class));
+        assertNull("unregistered class", loaded.createTableConfig(String.class));
+    }
+
+    @Test
+    public void loadOrScan() throws Exception {
+        System.out.println("loadOrScan");
+        File file = new File(temporaryFolder.getRoot(), "tables.config");
+        ImmutableList<Class<?>> classes = ImmutableList.of(Customer.class, Order.class);
+        TableConfigRegistry first = TableConfigRegistry.loadOrScan(file, new H2DatabaseType(), classes);
+        assertTrue("file written", file.isFile());
+        assertEquals("classes", ImmutableSet.copyOf(classes), first.getDataClasses());
+        long modified = file.lastModified();
+        TableConfigRegistry second = TableConfigRegistry.loadOrScan(file, new H2DatabaseType(), classes);
+        assertEquals("classes", ImmutableSet.copyOf(classes), second.getDataClasses());
+        assertEquals("not rewritten", modified, file.lastModified());
+        TableConfigRegistry third = TableConfigRegistry.loadOrScan(file, new H2DatabaseType(), ImmutableList.of(Customer.class));
+        assertEquals("rescanned", ImmutableSet.of(Customer.class), third.getDataClasses());
+        assertEquals("rewritten", ImmutableSet.of(Customer.class), TableConfigRegistry.load(file).getDataClasses());
+    }
+
+    @Test
+    public void databaseContext() throws Exception {
+        System.out.println("databaseContext");
+        TableConfigRegistry registry = TableConfigRegistry.scan(new H2DatabaseType(), ImmutableList.of(Customer.class, Order.class));
+        DatabaseContext db = new DefaultDatabaseContext(new H2MemoryConnectionSource(), registry);
+        try {
+            db.getTableUtils().createAllTables(ImmutableList.of(Customer.class, Order.class));
+            DatabaseTests.testBasicInsertionAndRetrieval(db);
+            Dao<Customer, ?> dao = db.getDao(Customer.class);
+            assertNotNull("dao created from registry config", ((BaseDaoImpl<Customer, ?>) dao).getTableConfig().getFieldConfigs());
+            assertSame("same dao", dao, db.getDao(Customer.class, Integer.class));
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+
+    @Test
+    public void databaseContext_parallelRetryingInstrumented() throws Exception {
+        System.out.println("databaseContext_parallelRetryingInstrumented");
+        TableConfigRegistry registry = TableConfigRegistry.scan(new H2DatabaseType(), ImmutableList.of(Customer.class, Order.class));
+        AtomicInteger numStatements = new AtomicInteger();
+        ConnectionSource cs = new TimingConnectionSource(new H2MemoryConnectionSource(), execution -> numStatements.incrementAndGet());
+        DatabaseContext db = new DefaultDatabaseContext(cs, registry, 4, RetryingContextTransactionManager.factory(RetryPolicy.defaults()));
+        try {
+            assertTrue("retrying transaction manager", db.getTransactionManager() instanceof RetryingContextTransactionManager);
+            db.getTableUtils().createAllTables(ImmutableList.of(Customer.class, Order.class));
+            DatabaseTests.testBasicInsertionAndRetrieval(db);
+            Dao<Customer, ?> dao = db.getDao(Customer.class);
+            assertNotNull("dao created from registry config", ((BaseDaoImpl<Customer, ?>) dao).getTableConfig().getFieldConfigs());
+            assertTrue("statements reported", numStatements.get() > 0);
+        } finally {
+            db.closeConnections(true);
+        }
+    }
+}